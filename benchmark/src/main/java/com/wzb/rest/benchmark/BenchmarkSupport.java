@@ -0,0 +1,264 @@
+package com.wzb.rest.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.client.RestTemplateClient;
+import com.wzb.rest.config.MessageConvertConfigure;
+import com.wzb.rest.instance.InstanceFactory;
+import com.wzb.rest.proxy.RestClientProxy;
+import com.wzb.rest.resolver.MethodResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测公共部分：按代理方式创建客户端，本机 HttpServer 或内存中的请求工厂
+ */
+final class BenchmarkSupport {
+
+    /**
+     * 内存请求工厂使用的服务地址，不发出请求
+     */
+    static final String MEMORY_URL = "http://memory/user";
+
+    private static final byte[] USER_JSON = "{\"id\":1,\"name\":\"rest-client\",\"age\":18}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * init
+     */
+    private BenchmarkSupport() {
+
+    }
+
+    /**
+     * 代理方式名称对应 {@link RestClientProxy} 的常量
+     *
+     * @param name MODE_PROXY、MODE_JAVASSIST 或 MODE_HIDDEN
+     * @return int
+     */
+    static int mode(String name) {
+        switch (name) {
+            case "MODE_JAVASSIST":
+                return RestClientProxy.MODE_JAVASSIST;
+            case "MODE_HIDDEN":
+                return RestClientProxy.MODE_HIDDEN;
+            case "MODE_PROXY":
+                return RestClientProxy.MODE_PROXY;
+            default:
+                throw new IllegalArgumentException("unknown mode " + name);
+        }
+    }
+
+    /**
+     * 设置请求模板客户端，转换器与默认配置相同
+     *
+     * @param requestFactory 请求工厂，为null时使用默认的 HttpURLConnection
+     */
+    static void configure(ClientHttpRequestFactory requestFactory) {
+        MessageConvertConfigure converter = new MessageConvertConfigure();
+        List<HttpMessageConverter<?>> requestConverters =
+                Collections.singletonList(converter.defaultRequestHttpMessageConverter());
+        List<HttpMessageConverter<?>> responseConverters =
+                Collections.singletonList(converter.defaultResponseHttpMessageConverter());
+        RestTemplate restTemplate = null == requestFactory ? null : new RestTemplate(requestFactory);
+        ClientCacheFactory.getInstance().setRestTemplateClient(
+                new RestTemplateClient(restTemplate, requestConverters, responseConverters, Collections.emptyList()));
+    }
+
+    /**
+     * 按代理方式解析方法并创建客户端，与 RestClientProxy 一致
+     *
+     * @param mode 代理方式
+     * @param url  服务地址
+     * @return {@link UserClient}
+     */
+    static UserClient createClient(int mode, String url) {
+        Map<Method, MethodPlan> planMap = MethodResolver.getInstance().resolverMethod(UserClient.class, url);
+        if (mode == RestClientProxy.MODE_JAVASSIST) {
+            return InstanceFactory.createInstance(UserClient.class, planMap);
+        }
+        if (mode == RestClientProxy.MODE_HIDDEN) {
+            return InstanceFactory.createHiddenInstance(UserClient.class, planMap);
+        }
+        return InstanceFactory.createProxy(UserClient.class, planMap);
+    }
+
+    /**
+     * 检查响应
+     *
+     * @param user 响应
+     * @return {@link User}
+     */
+    static User check(User user) {
+        if (null == user || user.getId() != 1L) {
+            throw new IllegalStateException("unexpected response " + user);
+        }
+        return user;
+    }
+
+    /**
+     * 本机 HttpServer，固定返回一个用户
+     * <br>开启 TCP_NODELAY，否则响应头和响应体分两次写出，本机往返会等待延迟确认(约40ms)
+     *
+     * @return {@link HttpServer}
+     */
+    static HttpServer startServer() {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/user", exchange -> {
+                try (OutputStream body = exchange.getResponseBody()) {
+                    while (exchange.getRequestBody().read() >= 0) {
+                        //读完请求体，保持连接复用
+                    }
+                    exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+                    exchange.sendResponseHeaders(200, USER_JSON.length);
+                    body.write(USER_JSON);
+                }
+            });
+            server.start();
+            return server;
+        } catch (Exception e) {
+            throw new IllegalStateException("start benchmark server error", e);
+        }
+    }
+
+    /**
+     * 已使用的 Metaspace
+     *
+     * @return long 字节数
+     */
+    static long metaspaceUsed() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if ("Metaspace".equals(pool.getName())) {
+                return pool.getUsage().getUsed();
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * 内存中的请求工厂，丢弃请求体，固定返回一个用户，只留下客户端自身的开销
+     */
+    static final class MemoryRequestFactory implements ClientHttpRequestFactory {
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+            return new MemoryRequest(uri, httpMethod);
+        }
+    }
+
+    /**
+     * 内存请求
+     */
+    private static final class MemoryRequest implements ClientHttpRequest {
+
+        private final URI uri;
+
+        private final HttpMethod httpMethod;
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        MemoryRequest(URI uri, HttpMethod httpMethod) {
+            this.uri = uri;
+            this.httpMethod = httpMethod;
+        }
+
+        @Override
+        public ClientHttpResponse execute() {
+            return new MemoryResponse();
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return httpMethod;
+        }
+
+        @Override
+        public String getMethodValue() {
+            return httpMethod.name();
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    /**
+     * 内存响应
+     */
+    private static final class MemoryResponse implements ClientHttpResponse {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        MemoryResponse() {
+            headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+            headers.setContentLength(USER_JSON.length);
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return HttpStatus.OK.value();
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        public void close() {
+
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(USER_JSON);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.wzb.rest.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三种代理方式预热后的单方法调用延迟
+ * <br>memory 使用内存中的请求工厂，只有客户端自身的开销(编码、转换、代理分派)；
+ * http 发到本机 HttpServer，包含本机 HTTP 往返
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ProxyModeCallBenchmark {
+
+    @Param({"MODE_PROXY", "MODE_JAVASSIST", "MODE_HIDDEN"})
+    private String mode;
+
+    @Param({"memory", "http"})
+    private String transport;
+
+    private final User user = new User(1L, "rest-client", 18);
+
+    private HttpServer server;
+
+    private UserClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = BenchmarkSupport.MEMORY_URL;
+        if ("http".equals(transport)) {
+            server = BenchmarkSupport.startServer();
+            url = "http://127.0.0.1:" + server.getAddress().getPort() + "/user";
+            BenchmarkSupport.configure(null);
+        } else {
+            BenchmarkSupport.configure(new BenchmarkSupport.MemoryRequestFactory());
+        }
+        client = BenchmarkSupport.createClient(BenchmarkSupport.mode(mode), url);
+        BenchmarkSupport.check(client.get(1L));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (null != server) {
+            server.stop(0);
+        }
+    }
+
+    @Benchmark
+    public User pathVariable() {
+        return client.get(1L);
+    }
+
+    @Benchmark
+    public User requestParam() {
+        return client.find("rest-client", 18);
+    }
+
+    @Benchmark
+    public User requestBody() {
+        return client.save(user);
+    }
+}
@@ -0,0 +1,74 @@
+package com.wzb.rest.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三种代理方式的冷启动：解析方法并创建客户端，以及创建后首次调用三个方法
+ * <br>每个 fork 只执行一次，类生成、类加载都计入；Metaspace 为执行前后的差值(KB)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class ProxyModeStartupBenchmark {
+
+    @Param({"MODE_PROXY", "MODE_JAVASSIST", "MODE_HIDDEN"})
+    private String mode;
+
+    /**
+     * 转换器、请求模板不计入启动耗时
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.configure(new BenchmarkSupport.MemoryRequestFactory());
+    }
+
+    @Benchmark
+    public UserClient createClient(Metaspace metaspace) {
+        long before = BenchmarkSupport.metaspaceUsed();
+        UserClient client = BenchmarkSupport.createClient(BenchmarkSupport.mode(mode), BenchmarkSupport.MEMORY_URL);
+        metaspace.record(before);
+        return client;
+    }
+
+    @Benchmark
+    public User createClientAndCall(Metaspace metaspace) {
+        long before = BenchmarkSupport.metaspaceUsed();
+        UserClient client = BenchmarkSupport.createClient(BenchmarkSupport.mode(mode), BenchmarkSupport.MEMORY_URL);
+        client.get(1L);
+        client.find("rest-client", 18);
+        User user = BenchmarkSupport.check(client.save(new User(1L, "rest-client", 18)));
+        metaspace.record(before);
+        return user;
+    }
+
+    /**
+     * Metaspace 增量(KB)，作为附加结果输出；EVENTS 类型跨 fork 累加，除以 fork 数为单次的增量
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Metaspace {
+
+        public long metaspaceKb;
+
+        void record(long before) {
+            metaspaceKb = (BenchmarkSupport.metaspaceUsed() - before) / 1024;
+        }
+    }
+}
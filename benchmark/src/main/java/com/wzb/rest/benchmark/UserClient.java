@@ -0,0 +1,24 @@
+package com.wzb.rest.benchmark;
+
+import com.wzb.rest.annation.RestClient;
+import com.wzb.rest.annation.RestRequestBody;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * 压测接口：路径参数、查询参数、请求体各一个方法
+ */
+@RestClient
+public interface UserClient {
+
+    @GetMapping("/{id}")
+    User get(@PathVariable("id") long id);
+
+    @GetMapping("/find")
+    User find(@RequestParam("name") String name, @RequestParam("age") int age);
+
+    @PostMapping("/save")
+    User save(@RestRequestBody User user);
+}
@@ -0,0 +1,37 @@
+package com.wzb.rest.annation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 自适应并发限制，按下游主机(host:port)限制进行中的请求数
+ * <br>根据响应时间调整限制(Vegas算法)，响应变慢时降低、恢复后升高；加在方法上优先，加在接口上整个客户端生效
+ * <br>超过限制时直接拒绝，抛出 com.wzb.rest.exception.LimitExceededException，走 @FailBackResponse 降级处理
+ * <br>同一主机共用一个限制，以第一次创建时的配置为准
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AdaptiveLimit {
+
+    /**
+     * 初始限制
+     * @return initialLimit
+     */
+    int initialLimit() default 20;
+
+    /**
+     * 最小限制
+     * @return minLimit
+     */
+    int minLimit() default 1;
+
+    /**
+     * 最大限制
+     * @return maxLimit
+     */
+    int maxLimit() default 200;
+}
@@ -0,0 +1,44 @@
+package com.wzb.rest.annation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 合并单个查询为批量查询
+ * <br>加在只有一个参数(查询key)的方法上，时间窗口内或达到批量大小的调用合并成一次批量方法调用，
+ * 批量结果按key拆分给每个调用
+ * <br>批量方法在同一接口上，只有一个参数(Collection、List、Set或数组)，
+ * 返回Map时按key取值，返回列表或数组时按元素的 keyProperty 属性匹配
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Batch {
+
+    /**
+     * 批量方法名
+     * @return 批量方法名
+     */
+    String value();
+
+    /**
+     * 最大批量大小
+     * @return maxSize
+     */
+    int maxSize() default 100;
+
+    /**
+     * 时间窗口(毫秒)
+     * @return windowMillis
+     */
+    long windowMillis() default 10L;
+
+    /**
+     * 批量方法返回列表时，元素上与key匹配的属性
+     * @return keyProperty
+     */
+    String keyProperty() default "id";
+}
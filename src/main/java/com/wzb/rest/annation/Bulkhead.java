@@ -0,0 +1,37 @@
+package com.wzb.rest.annation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 舱壁隔离，限制并发调用数
+ * <br>加在接口上整个客户端共用一个舱壁，加在方法上该方法单独一个舱壁（优先）
+ * <br>并发已满且等待队列已满或等待超时时拒绝，抛出 com.wzb.rest.exception.BulkheadFullException，
+ * 走 @FailBackResponse 降级处理
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    /**
+     * 最大并发调用数
+     * @return maxConcurrentCalls
+     */
+    int maxConcurrentCalls();
+
+    /**
+     * 最大等待调用数，0 表示不等待直接拒绝
+     * @return maxWaitCalls
+     */
+    int maxWaitCalls() default 0;
+
+    /**
+     * 最长等待时间(毫秒)
+     * @return maxWaitMillis
+     */
+    long maxWaitMillis() default 1000L;
+}
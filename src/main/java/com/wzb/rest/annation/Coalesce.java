@@ -0,0 +1,18 @@
+package com.wzb.rest.annation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 合并并发的相同请求
+ * <br>只作用于GET方法；url(含param参数)和header参数相同的并发调用共用一次远程调用，
+ * 都拿到同一个响应对象，调用方不要修改返回值
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Coalesce {
+}
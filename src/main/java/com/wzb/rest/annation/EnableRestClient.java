@@ -33,7 +33,8 @@ public @interface EnableRestClient {
     /**
      * 代理方式 <br>
      *     可选项：{@link RestClientProxy#MODE_PROXY},
-     *     {@link RestClientProxy#MODE_JAVASSIST}
+     *     {@link RestClientProxy#MODE_JAVASSIST},
+     *     {@link RestClientProxy#MODE_HIDDEN}
      * @return mode
      */
     int mode() default RestClientProxy.MODE_PROXY;
@@ -44,4 +45,19 @@ public @interface EnableRestClient {
      * @return {@link Class<?>[]}
      */
     Class<?>[] configureClass() default {};
+
+    /**
+     * springContext 里的异步执行器(Executor)名称<br>
+     *     返回 CompletableFuture 的方法在此执行器上调用，为空使用默认线程池
+     * @return executor
+     */
+    String executor() default "";
+
+    /**
+     * 使用虚拟线程(JDK 21+)<br>
+     *     未指定 executor 时，返回 CompletableFuture 的方法在虚拟线程上调用，
+     *     阻塞IO期间不占用平台线程；JDK 21 以下仍使用默认线程池
+     * @return virtualThreads
+     */
+    boolean virtualThreads() default false;
 }
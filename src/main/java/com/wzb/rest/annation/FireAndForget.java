@@ -0,0 +1,43 @@
+package com.wzb.rest.annation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 发送后不等待，只作用于返回 void 的方法
+ * <br>调用放入有界队列后直接返回，由后台线程发送；队列满时丢弃，发送失败不重试
+ * <br>配置 batchMethod 时，只有一个参数的方法的调用按参数合并成一次批量方法调用，
+ * 批量方法在同一接口上，只有一个参数(Collection、List、Set或数组)
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface FireAndForget {
+
+    /**
+     * 队列大小
+     * @return queueSize
+     */
+    int queueSize() default 1024;
+
+    /**
+     * 发送线程数
+     * @return workers
+     */
+    int workers() default 1;
+
+    /**
+     * 批量方法名，为空时逐个发送
+     * @return batchMethod
+     */
+    String batchMethod() default "";
+
+    /**
+     * 最大批量大小
+     * @return maxBatchSize
+     */
+    int maxBatchSize() default 100;
+}
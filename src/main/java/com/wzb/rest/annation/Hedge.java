@@ -0,0 +1,24 @@
+package com.wzb.rest.annation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 对冲请求，降低长尾延迟
+ * <br>只作用于GET方法；超过延迟时间还没有响应时再发一次相同的请求(负载均衡时可能到另一个实例)，
+ * 先返回的响应生效，另一个取消
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Hedge {
+
+    /**
+     * 发出对冲请求的延迟时间(毫秒)，小于等于 0 时使用观测到的 p95 响应时间，样本不足前不对冲
+     * @return delayMillis
+     */
+    long delayMillis() default 0L;
+}
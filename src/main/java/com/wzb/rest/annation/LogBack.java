@@ -1,5 +1,7 @@
 package com.wzb.rest.annation;
 
+import com.wzb.rest.log.LogBackDispatcher;
+
 import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -14,4 +16,31 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface LogBack {
+
+    /**
+     * 异步处理，日志放入环形缓冲区由后台线程调用日志方法，不占用请求线程
+     * @return async
+     */
+    boolean async() default false;
+
+    /**
+     * 环形缓冲区大小，向上取2的幂
+     * @return bufferSize
+     */
+    int bufferSize() default 1024;
+
+    /**
+     * 缓冲区满时的处理方式
+     * <br>{@link LogBackDispatcher#OVERFLOW_DROP} 丢弃
+     * <br>{@link LogBackDispatcher#OVERFLOW_BLOCK} 等待
+     * <br>{@link LogBackDispatcher#OVERFLOW_SAMPLE} 超过一半后按 sampleRate 采样，异常日志不采样
+     * @return overflow
+     */
+    int overflow() default LogBackDispatcher.OVERFLOW_DROP;
+
+    /**
+     * 采样时每 sampleRate 条保留一条
+     * @return sampleRate
+     */
+    int sampleRate() default 10;
 }
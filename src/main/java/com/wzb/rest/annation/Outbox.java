@@ -0,0 +1,60 @@
+package com.wzb.rest.annation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 本地持久化后发送，只作用于返回 void 且没有文件参数的方法
+ * <br>调用编码后写入 rest-client.outbox.dir 目录下内存映射的追加日志后直接返回，由后台线程按顺序发送，
+ * 失败时退避重试，进程重启后继续发送未确认的调用；超过重试次数或保留时间的调用移到死信日志；未配置目录时同步调用
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Outbox {
+
+    /**
+     * 日志段文件大小(字节)
+     * @return segmentSize
+     */
+    int segmentSize() default 16 * 1024 * 1024;
+
+    /**
+     * 最多日志段文件数，写满后同步调用
+     * @return maxSegments
+     */
+    int maxSegments() default 64;
+
+    /**
+     * 每次写入后刷盘，否则由操作系统刷盘(进程退出不丢失，宕机可能丢失)
+     * @return sync
+     */
+    boolean sync() default false;
+
+    /**
+     * 首次重试等待时间(毫秒)，之后每次翻倍
+     * @return retryMillis
+     */
+    long retryMillis() default 1000L;
+
+    /**
+     * 最长重试等待时间(毫秒)
+     * @return maxRetryMillis
+     */
+    long maxRetryMillis() default 60000L;
+
+    /**
+     * 最多发送次数，超过后移到死信日志，小于等于 0 不限制
+     * @return maxAttempts
+     */
+    int maxAttempts() default 0;
+
+    /**
+     * 最长保留时间(毫秒，从写入开始)，超过后移到死信日志，小于等于 0 不限制
+     * @return maxAgeMillis
+     */
+    long maxAgeMillis() default 24 * 60 * 60 * 1000L;
+}
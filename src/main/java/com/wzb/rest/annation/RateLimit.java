@@ -0,0 +1,58 @@
+package com.wzb.rest.annation;
+
+import com.wzb.rest.invoke.TokenBucket;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 客户端限流(令牌桶)，请求发出前获取令牌
+ * <br>加在接口上整个客户端共用一个令牌桶，加在方法上该方法单独一个（优先）；perHost 为 true 时按下游主机(host:port)共用，
+ * 以第一次创建时的配置为准
+ * <br>获取不到令牌时拒绝，抛出 com.wzb.rest.exception.RateLimitedException，走 @FailBackResponse 降级处理；
+ * 下游返回 429 时按响应头 Retry-After 暂停发放令牌
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimit {
+
+    /**
+     * 每秒发放令牌数
+     * @return permitsPerSecond
+     */
+    double permitsPerSecond();
+
+    /**
+     * 令牌桶容量，空闲后最多连续发出的请求数
+     * @return burst
+     */
+    int burst() default 1;
+
+    /**
+     * 获取不到令牌时的处理方式
+     * @return mode
+     */
+    int mode() default TokenBucket.MODE_BLOCK;
+
+    /**
+     * 最长等待时间(毫秒)，不超过调用截止时间
+     * @return maxWaitMillis
+     */
+    long maxWaitMillis() default 1000L;
+
+    /**
+     * 排队时最大等待调用数
+     * @return maxWaitCalls
+     */
+    int maxWaitCalls() default 100;
+
+    /**
+     * 按下游主机共用令牌桶
+     * @return perHost
+     */
+    boolean perHost() default false;
+}
@@ -34,5 +34,21 @@ public @interface RestClient {
      */
     String name() default "";
 
+    /**
+     * 连接超时时间(毫秒)，小于 0 使用 RestTemplate 的配置，方法上的 @Timeout 优先
+     * @return connectTimeout
+     */
+    int connectTimeout() default -1;
 
+    /**
+     * 读取超时时间(毫秒)，小于 0 使用 RestTemplate 的配置，方法上的 @Timeout 优先
+     * @return readTimeout
+     */
+    int readTimeout() default -1;
+
+    /**
+     * 整体超时时间(毫秒)，小于 0 不限制，方法上的 @Timeout 优先
+     * @return timeout
+     */
+    long timeout() default -1L;
 }
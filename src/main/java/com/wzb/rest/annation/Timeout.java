@@ -0,0 +1,36 @@
+package com.wzb.rest.annation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 方法超时时间，优先于 @RestClient 上的配置，小于 0 的取 @RestClient 上的
+ * <br>配置了超时或存在 RestClientDeadline 截止时间时，连接和读取超时不超过剩余时间；
+ * 剩余时间不足时抛出 com.wzb.rest.exception.DeadlineExceededException，走 @FailBackResponse 降级处理
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Timeout {
+
+    /**
+     * 连接超时时间(毫秒)
+     * @return connectTimeout
+     */
+    int connectTimeout() default -1;
+
+    /**
+     * 读取超时时间(毫秒)
+     * @return readTimeout
+     */
+    int readTimeout() default -1;
+
+    /**
+     * 整体超时时间(毫秒)，限流、舱壁的等待和请求共用，到时中止请求
+     * @return timeout
+     */
+    long value() default -1L;
+}
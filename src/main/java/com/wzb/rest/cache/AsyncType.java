@@ -0,0 +1,10 @@
+package com.wzb.rest.cache;
+
+/**
+ * 异步返回类型
+ */
+public enum AsyncType {
+
+    NONE, FUTURE, MONO, FLUX
+
+}
@@ -1,8 +1,14 @@
 package com.wzb.rest.cache;
 
+import com.wzb.rest.annation.LogBack;
 import com.wzb.rest.annation.RestRequestBody;
 import com.wzb.rest.annation.RestRequestFile;
 import com.wzb.rest.client.RestTemplateClient;
+import com.wzb.rest.invoke.AdaptiveLimiter;
+import com.wzb.rest.invoke.BulkheadLimiter;
+import com.wzb.rest.invoke.TokenBucket;
+import com.wzb.rest.metrics.RestClientMetrics;
+import com.wzb.rest.log.LogBackDispatcher;
 import com.wzb.rest.log.RestClientLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,8 +16,12 @@ import org.springframework.http.HttpMethod;
 import org.springframework.web.bind.annotation.*;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -21,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * 客户端解析内容缓存
@@ -47,12 +58,16 @@ public final class ClientCacheFactory {
 
     private RestTemplateClient restTemplateClient;
 
+    private Executor asyncExecutor;
+
     private static final Map<String, EnumMap<ParameterType, List<ParameterSort>>> parameterSortTypeMap = new ConcurrentHashMap<>();
 
     private static final Map<Class<?>, Object> nullResponseMap = new ConcurrentHashMap<>();
 
     private MethodInstance logbackMethod;
 
+    private LogBackDispatcher logBackDispatcher;
+
     private static final Map<Class<?>, MethodInstance> nullResponseMethodMap = new ConcurrentHashMap<>();
 
     private static final Map<Class<?>, Object> failBackResponseMap = new ConcurrentHashMap<>();
@@ -61,7 +76,13 @@ public final class ClientCacheFactory {
 
     private static final Map<String, String> filePathMap = new ConcurrentHashMap<>();
 
-    private Logger logger;
+    private static final Map<String, MethodPlan> methodPlanMap = new ConcurrentHashMap<>();
+
+    private static final Map<String, BulkheadLimiter> bulkheadMap = new ConcurrentHashMap<>();
+
+    private static final Map<String, AdaptiveLimiter> adaptiveLimiterMap = new ConcurrentHashMap<>();
+
+    private static final Map<String, TokenBucket> tokenBucketMap = new ConcurrentHashMap<>();
 
     /**
      * init
@@ -136,6 +157,117 @@ public final class ClientCacheFactory {
         return Objects.nonNull(this.restTemplateClient);
     }
 
+    /**
+     * 缺省时创建舱壁，同名共用
+     *
+     * @param name               名称
+     * @param maxConcurrentCalls 最大并发调用数
+     * @param maxWaitCalls       最大等待调用数
+     * @param maxWaitMillis      最长等待时间(毫秒)
+     * @return {@link BulkheadLimiter}
+     */
+    public BulkheadLimiter putBulkheadIfAbsent(String name, int maxConcurrentCalls, int maxWaitCalls,
+                                               long maxWaitMillis) {
+        return bulkheadMap.computeIfAbsent(name, key -> {
+            BulkheadLimiter bulkhead = new BulkheadLimiter(key, maxConcurrentCalls, maxWaitCalls, maxWaitMillis);
+            RestClientMetrics.getInstance().registerBulkhead(bulkhead);
+            return bulkhead;
+        });
+    }
+
+    /**
+     * 获取舱壁
+     *
+     * @param name 名称
+     * @return {@link BulkheadLimiter}
+     */
+    public BulkheadLimiter getBulkhead(String name) {
+        return bulkheadMap.get(name);
+    }
+
+    /**
+     * 缺省时创建自适应并发限制，同一主机共用
+     *
+     * @param host         主机
+     * @param initialLimit 初始限制
+     * @param minLimit     最小限制
+     * @param maxLimit     最大限制
+     * @return {@link AdaptiveLimiter}
+     */
+    public AdaptiveLimiter putAdaptiveLimiterIfAbsent(String host, int initialLimit, int minLimit, int maxLimit) {
+        AdaptiveLimiter limiter = adaptiveLimiterMap.get(host);
+        if (null != limiter) {
+            return limiter;
+        }
+        return adaptiveLimiterMap.computeIfAbsent(host, key -> {
+            AdaptiveLimiter adaptiveLimiter = new AdaptiveLimiter(key, initialLimit, minLimit, maxLimit);
+            RestClientMetrics.getInstance().registerAdaptiveLimiter(adaptiveLimiter);
+            return adaptiveLimiter;
+        });
+    }
+
+    /**
+     * 获取自适应并发限制
+     *
+     * @param host 主机
+     * @return {@link AdaptiveLimiter}
+     */
+    public AdaptiveLimiter getAdaptiveLimiter(String host) {
+        return adaptiveLimiterMap.get(host);
+    }
+
+    /**
+     * 缺省时创建令牌桶，同名共用
+     *
+     * @param name             名称
+     * @param permitsPerSecond 每秒发放令牌数
+     * @param burst            令牌桶容量
+     * @param mode             获取不到令牌时的处理方式
+     * @param maxWaitMillis    最长等待时间(毫秒)
+     * @param maxWaitCalls     排队时最大等待调用数
+     * @return {@link TokenBucket}
+     */
+    public TokenBucket putTokenBucketIfAbsent(String name, double permitsPerSecond, int burst, int mode,
+                                              long maxWaitMillis, int maxWaitCalls) {
+        TokenBucket bucket = tokenBucketMap.get(name);
+        if (null != bucket) {
+            return bucket;
+        }
+        return tokenBucketMap.computeIfAbsent(name, key -> {
+            TokenBucket tokenBucket = new TokenBucket(key, permitsPerSecond, burst, mode, maxWaitMillis, maxWaitCalls);
+            RestClientMetrics.getInstance().registerTokenBucket(tokenBucket);
+            return tokenBucket;
+        });
+    }
+
+    /**
+     * 获取令牌桶
+     *
+     * @param name 名称
+     * @return {@link TokenBucket}
+     */
+    public TokenBucket getTokenBucket(String name) {
+        return tokenBucketMap.get(name);
+    }
+
+    /**
+     * 获取异步执行器
+     *
+     * @return {@link Executor} 未配置返回null
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * 设置异步执行器
+     *
+     * @param asyncExecutor 异步执行器
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
     /**
      * 生成方法key
      *
@@ -143,8 +275,26 @@ public final class ClientCacheFactory {
      * @return {@link String}
      */
     public String generateMethodKey(Method method) {
-        Class<?> clazz = method.getDeclaringClass();
-        return clazz.getName().concat("#").concat(method.getName());
+        return generateMethodKey(method.getDeclaringClass(), method);
+    }
+
+    /**
+     * 生成方法key，包含参数类型以区分重载方法
+     *
+     * @param clazz  rest接口
+     * @param method 方法
+     * @return {@link String}
+     */
+    public String generateMethodKey(Class<?> clazz, Method method) {
+        StringBuilder methodKey = new StringBuilder(clazz.getName()).append("#").append(method.getName()).append("(");
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                methodKey.append(",");
+            }
+            methodKey.append(parameterTypes[i].getTypeName());
+        }
+        return methodKey.append(")").toString();
     }
 
     /**
@@ -264,7 +414,8 @@ public final class ClientCacheFactory {
      * @param instance 实例
      */
     public void putNullResponseMethodIfAbsent(Class<?> clazz, Method method, Object instance) {
-        nullResponseMethodMap.putIfAbsent(clazz, new MethodInstance(method, instance));
+        nullResponseMethodMap.computeIfAbsent(clazz,
+                key -> new MethodInstance(method, instance, MethodInstance.NULL_RESPONSE));
     }
 
     /**
@@ -285,25 +436,34 @@ public final class ClientCacheFactory {
      * @return {@link Object}
      */
     public Object getNullResponse(Class<?> clazz, CharSequence nullMsg) {
-        MethodInstance methodInstance = nullResponseMethodMap.get(clazz);
-        Object[] parameters = methodInstance.getParameters(nullMsg);
-        try {
-            return methodInstance.getMethod().invoke(methodInstance.getInstance(), parameters);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            logger.warn("执行空响应处理异常", e);
-        }
-        return null;
+        return nullResponseMethodMap.get(clazz).invokeNullResponse(nullMsg);
     }
 
     /**
-     * 缺省时装填
+     * 获取空响应方法
+     *
+     * @param clazz 类型
+     * @return {@link MethodInstance}
+     */
+    MethodInstance getNullResponseMethod(Class<?> clazz) {
+        return nullResponseMethodMap.get(clazz);
+    }
+
+    /**
+     * 缺省时装填，配置异步时创建异步日志分发
      *
      * @param method   日志方法
      * @param instance 实例
      */
     public void setLogBackMethodIfAbsent(Method method, Object instance) {
         if (null == logbackMethod) {
-            logbackMethod = new MethodInstance(method, instance);
+            MethodInstance methodInstance = new MethodInstance(method, instance, MethodInstance.LOG_BACK);
+            LogBack logBack = method.getAnnotation(LogBack.class);
+            if (null != logBack && logBack.async()) {
+                logBackDispatcher = new LogBackDispatcher(logBack.bufferSize(), logBack.overflow(),
+                        logBack.sampleRate(), methodInstance::invokeLogBack);
+            }
+            logbackMethod = methodInstance;
         }
     }
 
@@ -316,23 +476,41 @@ public final class ClientCacheFactory {
         return logbackMethod != null;
     }
 
+    /**
+     * 日志方法是否异步处理(放入环形缓冲区)
+     *
+     * @return boolean
+     */
+    public boolean isLogBackAsync() {
+        return null != logBackDispatcher;
+    }
+
     /**
      * 执行日志
      *
      * @param log 日志
-     * @return {@link Object}
+     * @return {@link Object} 异步时返回null
      */
     public Object invokeLogBackMethod(RestClientLog log) {
+        if (null != logBackDispatcher) {
+            logBackDispatcher.publish(log);
+            return null;
+        }
         if (null != logbackMethod) {
-            try {
-                return logbackMethod.getMethod().invoke(logbackMethod.getInstance(), log);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                logger.warn("执行日志处理异常", e);
-            }
+            return logbackMethod.invokeLogBack(log);
         }
         return null;
     }
 
+    /**
+     * 获取异步日志分发
+     *
+     * @return {@link LogBackDispatcher} 未配置异步返回null
+     */
+    public LogBackDispatcher getLogBackDispatcher() {
+        return logBackDispatcher;
+    }
+
     /**
      * 缺省时装填
      *
@@ -371,7 +549,8 @@ public final class ClientCacheFactory {
      * @param instance 实例
      */
     public void putFailBackResponseMethodIfAbsent(Class<?> clazz, Method method, Object instance) {
-        failBackResponseMethodMap.putIfAbsent(clazz, new MethodInstance(method, instance));
+        failBackResponseMethodMap.computeIfAbsent(clazz,
+                key -> new MethodInstance(method, instance, MethodInstance.FAIL_BACK_RESPONSE));
     }
 
     /**
@@ -393,14 +572,17 @@ public final class ClientCacheFactory {
      * @return {@link Object}
      */
     public Object getFailBackResponse(Class<?> clazz, Throwable throwable, CharSequence errorMsg) {
-        MethodInstance methodInstance = failBackResponseMethodMap.get(clazz);
-        Object[] parameters = methodInstance.getParameters(throwable, errorMsg);
-        try {
-            return methodInstance.getMethod().invoke(methodInstance.getInstance(), parameters);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            logger.warn("执行异常降级处理异常", e);
-        }
-        return null;
+        return failBackResponseMethodMap.get(clazz).invokeFailBackResponse(throwable, errorMsg);
+    }
+
+    /**
+     * 获取异常响应方法
+     *
+     * @param clazz 类型
+     * @return {@link MethodInstance}
+     */
+    MethodInstance getFailBackResponseMethod(Class<?> clazz) {
+        return failBackResponseMethodMap.get(clazz);
     }
 
     /**
@@ -544,6 +726,26 @@ public final class ClientCacheFactory {
         dynamicParameterMap.putIfAbsent(methodKey, dynamicParameters);
     }
 
+    /**
+     * 获取方法执行计划
+     *
+     * @param methodKey 方法键
+     * @return {@link MethodPlan}
+     */
+    public MethodPlan getMethodPlan(String methodKey) {
+        return methodPlanMap.get(methodKey);
+    }
+
+    /**
+     * 缺省时装填
+     *
+     * @param methodKey  方法键
+     * @param methodPlan 方法执行计划
+     */
+    public void putIfAbsent(String methodKey, MethodPlan methodPlan) {
+        methodPlanMap.putIfAbsent(methodKey, methodPlan);
+    }
+
     /**
      * 获取请求注解链
      *
@@ -602,50 +804,136 @@ public final class ClientCacheFactory {
                 new ParameterAnnotation<>(RestRequestBody.class, ParameterType.REST),
                 new ParameterAnnotation<>(RestRequestFile.class, ParameterType.FILE, RestRequestFile::name, RestRequestFile::path)
         );
-
-        logger = LoggerFactory.getLogger(getClass());
     }
 
     /**
      * 类实例
+     * <br>启动时把方法绑定成固定签名的MethodHandle，执行时不再反射调用
      */
     static class MethodInstance {
 
-        private static final int NOT_FOUND = -1;
+        /**
+         * 空响应方法，签名 (CharSequence)Object
+         */
+        static final int NULL_RESPONSE = 0;
 
-        private Method method;
+        /**
+         * 异常降级方法，签名 (Throwable, CharSequence)Object
+         */
+        static final int FAIL_BACK_RESPONSE = 1;
 
-        private Object instance;
+        /**
+         * 日志方法，签名 (RestClientLog)Object
+         */
+        static final int LOG_BACK = 2;
 
-        private int throwableIndex = NOT_FOUND;
+        private static final int NOT_FOUND = -1;
+
+        private static Logger logger = LoggerFactory.getLogger(MethodInstance.class);
 
-        private int msgIndex = NOT_FOUND;
+        private final Method method;
+
+        private final MethodHandle handle;
 
         /**
-         * 类实例
+         * 类实例，只适配用途对应的签名
          *
          * @param method   方法
-         * @param instance 实例
+         * @param instance 实例，静态方法不绑定
+         * @param kind     用途 {@link #NULL_RESPONSE} / {@link #FAIL_BACK_RESPONSE} / {@link #LOG_BACK}
          */
-        MethodInstance(Method method, Object instance) {
+        MethodInstance(Method method, Object instance, int kind) {
             this.method = method;
-            this.instance = instance;
-            init();
+            Class<?>[] parameterClass = method.getParameterTypes();
+            try {
+                method.setAccessible(true);
+                MethodHandle target = MethodHandles.lookup().unreflect(method);
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    target = target.bindTo(instance);
+                }
+                switch (kind) {
+                    case NULL_RESPONSE:
+                        this.handle = adapt(target, parameterClass, new Class<?>[]{CharSequence.class},
+                                new int[]{findIndex(parameterClass, CharSequence.class)});
+                        break;
+                    case FAIL_BACK_RESPONSE:
+                        this.handle = adapt(target, parameterClass, new Class<?>[]{Throwable.class, CharSequence.class},
+                                new int[]{findIndex(parameterClass, Throwable.class),
+                                        findIndex(parameterClass, CharSequence.class)});
+                        break;
+                    case LOG_BACK:
+                        this.handle = adapt(target, parameterClass, new Class<?>[]{RestClientLog.class},
+                                new int[]{findIndex(parameterClass, RestClientLog.class)});
+                        break;
+                    default:
+                        throw new IllegalArgumentException(String.format("unknown method kind[%s]", kind));
+                }
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalStateException(String.format("bind method[%s] error", method), e);
+            }
         }
 
         /**
-         * 初始化
+         * 查找第一个可接收该类型的参数
+         *
+         * @param parameterClass 参数类型
+         * @param clazz          类型
+         * @return int
          */
-        private void init() {
-            Class<?>[] parameterClass = method.getParameterTypes();
+        private static int findIndex(Class<?>[] parameterClass, Class<?> clazz) {
+            for (int i = 0; i < parameterClass.length; i++) {
+                if (clazz.isAssignableFrom(parameterClass[i])) {
+                    return i;
+                }
+            }
+            return NOT_FOUND;
+        }
+
+        /**
+         * 适配成固定签名，未使用的参数传默认值
+         *
+         * @param target         目标方法
+         * @param parameterClass 目标方法参数类型
+         * @param adaptedTypes   适配后的参数类型
+         * @param sourceIndexes  适配后参数对应的目标方法参数索引
+         * @return {@link MethodHandle}
+         */
+        private static MethodHandle adapt(MethodHandle target,
+                                          Class<?>[] parameterClass,
+                                          Class<?>[] adaptedTypes,
+                                          int[] sourceIndexes) {
+            MethodHandle handle = target.asType(target.type().changeReturnType(Object.class));
+            int[] adaptedIndexes = new int[parameterClass.length];
+            int used = 0;
             for (int i = 0; i < parameterClass.length; i++) {
-                if (throwableIndex < 0 && Throwable.class.isAssignableFrom(parameterClass[i])) {
-                    throwableIndex = i;
+                adaptedIndexes[i] = NOT_FOUND;
+                for (int j = 0; j < sourceIndexes.length; j++) {
+                    if (sourceIndexes[j] == i) {
+                        adaptedIndexes[i] = j;
+                        used++;
+                        break;
+                    }
+                }
+            }
+            //从后往前绑定默认值，不影响前面参数的位置
+            for (int i = parameterClass.length - 1; i >= 0; i--) {
+                if (adaptedIndexes[i] == NOT_FOUND) {
+                    Object defaultValue = parameterClass[i].isPrimitive()
+                            ? Array.get(Array.newInstance(parameterClass[i], 1), 0)
+                            : null;
+                    handle = MethodHandles.insertArguments(handle, i, defaultValue);
                 }
-                if (msgIndex < 0 && CharSequence.class.isAssignableFrom(parameterClass[i])) {
-                    msgIndex = i;
+            }
+            Class<?>[] remainingTypes = new Class<?>[used];
+            int[] reorder = new int[used];
+            for (int i = 0, k = 0; i < parameterClass.length; i++) {
+                if (adaptedIndexes[i] != NOT_FOUND) {
+                    remainingTypes[k] = adaptedTypes[adaptedIndexes[i]];
+                    reorder[k++] = adaptedIndexes[i];
                 }
             }
+            handle = handle.asType(MethodType.methodType(Object.class, remainingTypes));
+            return MethodHandles.permuteArguments(handle, MethodType.methodType(Object.class, adaptedTypes), reorder);
         }
 
         /**
@@ -658,44 +946,49 @@ public final class ClientCacheFactory {
         }
 
         /**
-         * 获取实例
+         * 执行空响应
          *
+         * @param nullMsg 空消息
          * @return {@link Object}
          */
-        public Object getInstance() {
-            return instance;
+        Object invokeNullResponse(CharSequence nullMsg) {
+            try {
+                return (Object) handle.invokeExact(nullMsg);
+            } catch (Throwable e) {
+                logger.warn("执行空响应处理异常", e);
+            }
+            return null;
         }
 
         /**
-         * 获取参数
+         * 执行异常降级
          *
-         * @param parameter 参数
-         * @return {@link Object[]}
+         * @param throwable 异常
+         * @param errorMsg  错误消息
+         * @return {@link Object}
          */
-        public Object[] getParameters(CharSequence parameter) {
-            Object[] parameters = new Object[method.getParameterCount()];
-            if (msgIndex > NOT_FOUND) {
-                parameters[msgIndex] = parameter;
+        Object invokeFailBackResponse(Throwable throwable, CharSequence errorMsg) {
+            try {
+                return (Object) handle.invokeExact(throwable, errorMsg);
+            } catch (Throwable e) {
+                logger.warn("执行异常降级处理异常", e);
             }
-            return parameters;
+            return null;
         }
 
         /**
-         * 获取参数
+         * 执行日志
          *
-         * @param throwable 异常参数
-         * @param errorMsg  异常消息参数
-         * @return {@link Object[]}
+         * @param log 日志
+         * @return {@link Object}
          */
-        public Object[] getParameters(Throwable throwable, CharSequence errorMsg) {
-            Object[] parameters = new Object[method.getParameterCount()];
-            if (throwableIndex > NOT_FOUND) {
-                parameters[throwableIndex] = throwable;
-            }
-            if (msgIndex > NOT_FOUND) {
-                parameters[msgIndex] = errorMsg;
+        Object invokeLogBack(RestClientLog log) {
+            try {
+                return (Object) handle.invokeExact(log);
+            } catch (Throwable e) {
+                logger.warn("执行日志处理异常", e);
             }
-            return parameters;
+            return null;
         }
     }
 }
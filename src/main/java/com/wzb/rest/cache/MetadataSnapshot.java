@@ -0,0 +1,343 @@
+package com.wzb.rest.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.ClassUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 方法元数据快照
+ * <br>首次启动把接口的方法url、参数、文件路径写入快照目录，每个接口一个文件；
+ * 再次启动时校验接口类文件摘要和url前缀，一致则直接装填缓存，不再解析注解
+ */
+public final class MetadataSnapshot {
+
+    /**
+     * 快照目录配置
+     */
+    public static final String DIRECTORY_PROPERTY = "rest-client.metadata.snapshot-dir";
+
+    private static final int MAGIC = 0x52435331;
+
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".snapshot";
+
+    private static MetadataSnapshot snapshot = new MetadataSnapshot();
+
+    private static Logger logger = LoggerFactory.getLogger(MetadataSnapshot.class);
+
+    private volatile Path directory;
+
+    /**
+     * init
+     */
+    private MetadataSnapshot() {
+
+    }
+
+    /**
+     * 获取实例
+     *
+     * @return {@link MetadataSnapshot}
+     */
+    public static MetadataSnapshot getInstance() {
+        return snapshot;
+    }
+
+    /**
+     * 设置快照目录，为空则不使用快照
+     *
+     * @param directory 快照目录
+     */
+    public void setDirectory(String directory) {
+        this.directory = null == directory || directory.trim().isEmpty() ? null : Paths.get(directory.trim());
+    }
+
+    /**
+     * 是否使用快照
+     *
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return null != directory;
+    }
+
+    /**
+     * 加载快照并装填缓存
+     *
+     * @param factory             缓存工厂
+     * @param restClientInterface rest客户端接口
+     * @param prefixUrl           URL前缀
+     * @return boolean 快照有效并已装填
+     */
+    public boolean load(ClientCacheFactory factory, Class<?> restClientInterface, String prefixUrl) {
+        Path file = snapshotFile(restClientInterface);
+        if (null == file || !Files.isRegularFile(file)) {
+            return false;
+        }
+        ClassLoader classLoader = classLoader(restClientInterface);
+        List<Entry> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !restClientInterface.getName().equals(in.readUTF())
+                    || !prefixUrl.equals(in.readUTF())) {
+                return false;
+            }
+            byte[] digest = new byte[in.readUnsignedShort()];
+            in.readFully(digest);
+            if (!Arrays.equals(digest, digest(restClientInterface))) {
+                logger.info(">>>>>>>>>>>>>>接口[{}]已变更, 元数据快照失效", restClientInterface.getName());
+                return false;
+            }
+            int methodCount = in.readInt();
+            for (int i = 0; i < methodCount; i++) {
+                entries.add(readEntry(in, classLoader));
+            }
+        } catch (IOException | ClassNotFoundException | LinkageError | RuntimeException e) {
+            logger.warn(String.format(">>>>>>>>>>>>>>读取接口[%s]元数据快照异常", restClientInterface.getName()), e);
+            return false;
+        }
+        for (Entry entry : entries) {
+            factory.putIfAbsent(entry.methodKey, entry.methodUrl);
+            factory.putIfAbsent(entry.methodKey, entry.path);
+            for (ParameterSort parameterSort : entry.parameterSorts) {
+                factory.putIfAbsent(entry.methodKey, parameterSort);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 从缓存写入快照
+     *
+     * @param factory             缓存工厂
+     * @param restClientInterface rest客户端接口
+     * @param prefixUrl           URL前缀
+     * @param methodKeys          方法key
+     */
+    public void save(ClientCacheFactory factory, Class<?> restClientInterface, String prefixUrl,
+                     List<String> methodKeys) {
+        Path file = snapshotFile(restClientInterface);
+        if (null == file) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(restClientInterface.getName());
+                out.writeUTF(prefixUrl);
+                byte[] digest = digest(restClientInterface);
+                out.writeShort(digest.length);
+                out.write(digest);
+                out.writeInt(methodKeys.size());
+                for (String methodKey : methodKeys) {
+                    writeEntry(out, factory, methodKey);
+                }
+            }
+            Files.createDirectories(file.getParent());
+            //先写临时文件再替换，避免并发启动读到半个文件
+            Path temp = Files.createTempFile(file.getParent(), restClientInterface.getName(), ".tmp");
+            try (BufferedOutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                bytes.writeTo(out);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn(String.format(">>>>>>>>>>>>>>写入接口[%s]元数据快照异常", restClientInterface.getName()), e);
+        }
+    }
+
+    /**
+     * 写方法元数据
+     *
+     * @param out       输出
+     * @param factory   缓存工厂
+     * @param methodKey 方法key
+     * @throws IOException 写入异常
+     */
+    private void writeEntry(DataOutputStream out, ClientCacheFactory factory, String methodKey) throws IOException {
+        MethodUrl methodUrl = factory.getMethodUrl(methodKey);
+        out.writeUTF(methodKey);
+        writeNullable(out, null == methodUrl.getHttpMethod() ? null : methodUrl.getHttpMethod().name());
+        out.writeUTF(methodUrl.getUrl());
+        writeNullable(out, factory.getPath(methodKey));
+        List<ParameterSort> parameterSortList = factory.getParameterSort(methodKey);
+        if (null == parameterSortList) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(parameterSortList.size());
+        for (ParameterSort parameterSort : parameterSortList) {
+            out.writeInt(parameterSort.getIndex());
+            out.writeUTF(parameterSort.getName());
+            out.writeUTF(parameterSort.getType().name());
+            writeNullable(out, parameterSort.getAnnotationName());
+            out.writeUTF(parameterSort.getClazz().getName());
+            writeNullable(out, parameterSort.getPath());
+        }
+    }
+
+    /**
+     * 读方法元数据
+     *
+     * @param in          输入
+     * @param classLoader 类加载器
+     * @return {@link Entry}
+     * @throws IOException            读取异常
+     * @throws ClassNotFoundException 参数类不存在
+     */
+    private Entry readEntry(DataInputStream in, ClassLoader classLoader) throws IOException, ClassNotFoundException {
+        Entry entry = new Entry();
+        entry.methodKey = in.readUTF();
+        String httpMethod = readNullable(in);
+        entry.methodUrl = new MethodUrl(in.readUTF(), null == httpMethod ? null : HttpMethod.valueOf(httpMethod));
+        entry.path = readNullable(in);
+        int parameterCount = in.readInt();
+        entry.parameterSorts = new ArrayList<>(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+            entry.parameterSorts.add(ParameterSort.builder()
+                    .index(in.readInt())
+                    .name(in.readUTF())
+                    .type(ParameterType.valueOf(in.readUTF()))
+                    .annotationName(readNullable(in))
+                    .clazz(ClassUtils.forName(in.readUTF(), classLoader))
+                    .path(readNullable(in))
+                    .build());
+        }
+        return entry;
+    }
+
+    /**
+     * 接口及父接口类文件摘要
+     *
+     * @param restClientInterface rest客户端接口
+     * @return byte[]
+     * @throws IOException 读取异常
+     */
+    private byte[] digest(Class<?> restClientInterface) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        collectInterfaces(restClientInterface, interfaces);
+        byte[] buffer = new byte[4096];
+        for (Class<?> clazz : interfaces) {
+            String resource = clazz.getName().replace('.', '/').concat(".class");
+            try (InputStream in = classLoader(clazz).getResourceAsStream(resource)) {
+                if (null == in) {
+                    throw new IOException(String.format("class file[%s] not found", resource));
+                }
+                int read;
+                while ((read = in.read(buffer)) > -1) {
+                    messageDigest.update(buffer, 0, read);
+                }
+            }
+        }
+        return messageDigest.digest();
+    }
+
+    /**
+     * 收集接口及父接口
+     *
+     * @param clazz      接口
+     * @param interfaces 接口
+     */
+    private void collectInterfaces(Class<?> clazz, Set<Class<?>> interfaces) {
+        if (interfaces.add(clazz)) {
+            for (Class<?> superInterface : clazz.getInterfaces()) {
+                collectInterfaces(superInterface, interfaces);
+            }
+        }
+    }
+
+    /**
+     * 快照文件
+     *
+     * @param restClientInterface rest客户端接口
+     * @return {@link Path}
+     */
+    private Path snapshotFile(Class<?> restClientInterface) {
+        Path snapshotDirectory = this.directory;
+        return null == snapshotDirectory
+                ? null
+                : snapshotDirectory.resolve(restClientInterface.getName().concat(SUFFIX));
+    }
+
+    /**
+     * 类加载器
+     *
+     * @param clazz 类
+     * @return {@link ClassLoader}
+     */
+    private static ClassLoader classLoader(Class<?> clazz) {
+        return null == clazz.getClassLoader() ? ClassLoader.getSystemClassLoader() : clazz.getClassLoader();
+    }
+
+    /**
+     * 写可为空的字符串
+     *
+     * @param out   输出
+     * @param value 值
+     * @throws IOException 写入异常
+     */
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(null != value);
+        if (null != value) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * 读可为空的字符串
+     *
+     * @param in 输入
+     * @return {@link String}
+     * @throws IOException 读取异常
+     */
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * 方法元数据
+     */
+    private static class Entry {
+
+        private String methodKey;
+
+        private MethodUrl methodUrl;
+
+        private String path;
+
+        private List<ParameterSort> parameterSorts;
+    }
+}
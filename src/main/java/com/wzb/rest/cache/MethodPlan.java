@@ -0,0 +1,635 @@
+package com.wzb.rest.cache;
+
+import com.wzb.rest.invoke.AdaptiveLimitPolicy;
+import com.wzb.rest.invoke.BulkheadLimiter;
+import com.wzb.rest.invoke.DurableOutbox;
+import com.wzb.rest.invoke.FireAndForgetQueue;
+import com.wzb.rest.invoke.HedgePolicy;
+import com.wzb.rest.invoke.MicroBatcher;
+import com.wzb.rest.invoke.RateLimitPolicy;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 方法执行计划
+ * <br>方法解析完成后一次性生成，执行时不再查询缓存
+ */
+public final class MethodPlan {
+
+    private static final int NOT_FOUND = -1;
+
+    private static final ParameterSort[] EMPTY_SORTS = new ParameterSort[0];
+
+    private static ClientCacheFactory factory = ClientCacheFactory.getInstance();
+
+    /**
+     * 方法key
+     */
+    private final String methodKey;
+
+    /**
+     * 请求方法
+     */
+    private final HttpMethod httpMethod;
+
+    /**
+     * URL片段
+     */
+    private final String[] urlSegments;
+
+    /**
+     * URL片段后动态参数对应的方法参数索引
+     */
+    private final int[] urlVariableIndexes;
+
+    /**
+     * 按参数类型分类的参数
+     */
+    private final ParameterSort[][] parameterSorts;
+
+    /**
+     * 文件路径
+     */
+    private final String path;
+
+    /**
+     * 响应类型
+     */
+    private final Class<?> responseClass;
+
+    /**
+     * 返回类型
+     */
+    private final Type returnType;
+
+    /**
+     * 返回类型引用
+     */
+    private final ParameterizedTypeReference<?> typeReference;
+
+    /**
+     * 异步返回类型
+     */
+    private final AsyncType asyncType;
+
+    /**
+     * 舱壁
+     */
+    private final BulkheadLimiter bulkhead;
+
+    /**
+     * 合并相同的并发请求
+     */
+    private final boolean coalesce;
+
+    /**
+     * 批量合并
+     */
+    private final MicroBatcher batcher;
+
+    /**
+     * 发送后不等待
+     */
+    private final FireAndForgetQueue fireAndForget;
+
+    /**
+     * 本地持久化后发送
+     */
+    private final DurableOutbox outbox;
+
+    /**
+     * 对冲请求
+     */
+    private final HedgePolicy hedge;
+
+    /**
+     * 自适应并发限制
+     */
+    private final AdaptiveLimitPolicy adaptiveLimit;
+
+    /**
+     * 客户端限流
+     */
+    private final RateLimitPolicy rateLimit;
+
+    /**
+     * 连接、读取、整体超时时间(毫秒)，小于 0 不设置
+     */
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    private final long timeout;
+
+    private final ClientCacheFactory.MethodInstance nullResponseMethod;
+
+    private final Object nullResponse;
+
+    private final ClientCacheFactory.MethodInstance failBackResponseMethod;
+
+    private final Object failBackResponse;
+
+    private final boolean hasFailBackResponse;
+
+    /**
+     * MethodPlan
+     *
+     * @param builder 建设者
+     */
+    private MethodPlan(Builder builder) {
+        this.methodKey = builder.methodKey;
+        this.httpMethod = builder.httpMethod;
+        this.path = builder.path;
+        this.responseClass = builder.responseClass;
+        this.returnType = builder.returnType;
+        this.asyncType = null == builder.asyncType ? AsyncType.NONE : builder.asyncType;
+        this.bulkhead = builder.bulkhead;
+        this.coalesce = builder.coalesce;
+        this.batcher = builder.batcher;
+        this.fireAndForget = builder.fireAndForget;
+        this.outbox = builder.outbox;
+        this.hedge = builder.hedge;
+        this.adaptiveLimit = builder.adaptiveLimit;
+        this.rateLimit = builder.rateLimit;
+        this.connectTimeout = builder.connectTimeout;
+        this.readTimeout = builder.readTimeout;
+        this.timeout = builder.timeout;
+        this.typeReference = null == builder.returnType ? null : ParameterizedTypeReference.forType(builder.returnType);
+        //参数分类
+        this.parameterSorts = new ParameterSort[ParameterType.values().length][];
+        for (ParameterType parameterType : ParameterType.values()) {
+            List<ParameterSort> sortList = builder.parameterSortMap.get(parameterType);
+            this.parameterSorts[parameterType.ordinal()] = null == sortList || sortList.isEmpty()
+                    ? EMPTY_SORTS
+                    : sortList.toArray(new ParameterSort[0]);
+        }
+        //URL片段
+        List<DynamicParameter> dynamicParameterList = null == builder.dynamicParameters
+                ? Collections.emptyList()
+                : builder.dynamicParameters;
+        this.urlSegments = new String[dynamicParameterList.size()];
+        this.urlVariableIndexes = new int[dynamicParameterList.size()];
+        ParameterSort[] pathSorts = getParameterSorts(ParameterType.PATH);
+        for (int i = 0; i < dynamicParameterList.size(); i++) {
+            DynamicParameter dynamicParameter = dynamicParameterList.get(i);
+            this.urlSegments[i] = dynamicParameter.getSubURL().toString();
+            this.urlVariableIndexes[i] = findVariableIndex(dynamicParameter.getName(), pathSorts);
+        }
+        //降级处理
+        this.nullResponseMethod = null == responseClass ? null : factory.getNullResponseMethod(responseClass);
+        this.nullResponse = null == responseClass ? null : factory.getNullResponse(responseClass);
+        this.failBackResponseMethod = null == responseClass ? null : factory.getFailBackResponseMethod(responseClass);
+        this.failBackResponse = null == responseClass ? null : factory.getFailBackResponse(responseClass);
+        this.hasFailBackResponse = null != responseClass && factory.hasFailBackResponse(responseClass);
+    }
+
+    /**
+     * 查找动态参数对应的方法参数索引
+     *
+     * @param name      动态参数名称
+     * @param pathSorts url动态参数
+     * @return int
+     */
+    private static int findVariableIndex(String name, ParameterSort[] pathSorts) {
+        if (null == name) {
+            return NOT_FOUND;
+        }
+        for (ParameterSort sort : pathSorts) {
+            if (Objects.equals(sort.getName(), name)) {
+                return sort.getIndex();
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    public String getMethodKey() {
+        return methodKey;
+    }
+
+    public HttpMethod getHttpMethod() {
+        return httpMethod;
+    }
+
+    /**
+     * 获取URL片段
+     *
+     * @return {@link String[]}
+     */
+    public String[] getUrlSegments() {
+        return urlSegments;
+    }
+
+    /**
+     * 获取URL片段后动态参数的方法参数索引，-1表示无
+     *
+     * @return int[]
+     */
+    public int[] getUrlVariableIndexes() {
+        return urlVariableIndexes;
+    }
+
+    /**
+     * 按参数类型获取参数
+     *
+     * @param parameterType 参数类型
+     * @return {@link ParameterSort[]}
+     */
+    public ParameterSort[] getParameterSorts(ParameterType parameterType) {
+        return parameterSorts[parameterType.ordinal()];
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public boolean hasPath() {
+        return null != path;
+    }
+
+    public Class<?> getResponseClass() {
+        return responseClass;
+    }
+
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    public ParameterizedTypeReference<?> getTypeReference() {
+        return typeReference;
+    }
+
+    public AsyncType getAsyncType() {
+        return asyncType;
+    }
+
+    public BulkheadLimiter getBulkhead() {
+        return bulkhead;
+    }
+
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    public MicroBatcher getBatcher() {
+        return batcher;
+    }
+
+    public FireAndForgetQueue getFireAndForget() {
+        return fireAndForget;
+    }
+
+    public DurableOutbox getOutbox() {
+        return outbox;
+    }
+
+    public HedgePolicy getHedge() {
+        return hedge;
+    }
+
+    public AdaptiveLimitPolicy getAdaptiveLimit() {
+        return adaptiveLimit;
+    }
+
+    public RateLimitPolicy getRateLimit() {
+        return rateLimit;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 有超时配置
+     *
+     * @return boolean
+     */
+    public boolean hasTimeout() {
+        return connectTimeout >= 0 || readTimeout >= 0 || timeout >= 0;
+    }
+
+    /**
+     * 有空响应处理
+     *
+     * @return boolean
+     */
+    public boolean hasNullResponse() {
+        return null != nullResponseMethod || null != nullResponse;
+    }
+
+    /**
+     * 获取空响应
+     *
+     * @param nullMsg 空消息
+     * @return {@link Object}
+     */
+    public Object getNullResponse(CharSequence nullMsg) {
+        if (null != nullResponseMethod) {
+            return nullResponseMethod.invokeNullResponse(nullMsg);
+        }
+        return nullResponse;
+    }
+
+    /**
+     * 有降级处理
+     *
+     * @return boolean
+     */
+    public boolean hasFailBackResponse() {
+        return null != failBackResponseMethod || hasFailBackResponse;
+    }
+
+    /**
+     * 获取降级处理响应
+     *
+     * @param throwable 异常
+     * @param errorMsg  错误消息
+     * @return {@link Object}
+     */
+    public Object getFailBackResponse(Throwable throwable, CharSequence errorMsg) {
+        if (null != failBackResponseMethod) {
+            return failBackResponseMethod.invokeFailBackResponse(throwable, errorMsg);
+        }
+        return failBackResponse;
+    }
+
+    /**
+     * 建设者
+     *
+     * @param methodKey 方法key
+     * @return {@link Builder}
+     */
+    public static Builder builder(String methodKey) {
+        return new Builder(methodKey);
+    }
+
+    /**
+     * Builder
+     */
+    public static class Builder {
+
+        private String methodKey;
+
+        private HttpMethod httpMethod;
+
+        private List<DynamicParameter> dynamicParameters;
+
+        private Map<ParameterType, List<ParameterSort>> parameterSortMap = new EnumMap<>(ParameterType.class);
+
+        private String path;
+
+        private Class<?> responseClass;
+
+        private Type returnType;
+
+        private AsyncType asyncType;
+
+        private BulkheadLimiter bulkhead;
+
+        private boolean coalesce;
+
+        private MicroBatcher batcher;
+
+        private FireAndForgetQueue fireAndForget;
+
+        private DurableOutbox outbox;
+
+        private HedgePolicy hedge;
+
+        private AdaptiveLimitPolicy adaptiveLimit;
+
+        private RateLimitPolicy rateLimit;
+
+        private int connectTimeout = -1;
+
+        private int readTimeout = -1;
+
+        private long timeout = -1L;
+
+        /**
+         * Builder
+         *
+         * @param methodKey 方法key
+         */
+        private Builder(String methodKey) {
+            this.methodKey = methodKey;
+        }
+
+        /**
+         * 请求方法
+         *
+         * @param httpMethod 请求方法
+         * @return {@link Builder}
+         */
+        public Builder httpMethod(HttpMethod httpMethod) {
+            this.httpMethod = httpMethod;
+            return this;
+        }
+
+        /**
+         * 动态参数
+         *
+         * @param dynamicParameters 动态参数
+         * @return {@link Builder}
+         */
+        public Builder dynamicParameters(List<DynamicParameter> dynamicParameters) {
+            this.dynamicParameters = dynamicParameters;
+            return this;
+        }
+
+        /**
+         * 参数分类
+         *
+         * @param parameterType     参数类型
+         * @param parameterSortList 参数
+         * @return {@link Builder}
+         */
+        public Builder parameterSorts(ParameterType parameterType, List<ParameterSort> parameterSortList) {
+            this.parameterSortMap.put(parameterType, parameterSortList);
+            return this;
+        }
+
+        /**
+         * 追加参数，按参数类型分类
+         *
+         * @param parameterSort 参数
+         * @return {@link Builder}
+         */
+        public Builder parameterSort(ParameterSort parameterSort) {
+            this.parameterSortMap.computeIfAbsent(parameterSort.getType(), type -> new ArrayList<>())
+                    .add(parameterSort);
+            return this;
+        }
+
+        /**
+         * 文件路径
+         *
+         * @param path 路径
+         * @return {@link Builder}
+         */
+        public Builder path(String path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * 响应类型
+         *
+         * @param responseClass 响应类型
+         * @return {@link Builder}
+         */
+        public Builder responseClass(Class<?> responseClass) {
+            this.responseClass = responseClass;
+            return this;
+        }
+
+        /**
+         * 返回类型
+         *
+         * @param returnType 返回类型
+         * @return {@link Builder}
+         */
+        public Builder returnType(Type returnType) {
+            this.returnType = returnType;
+            return this;
+        }
+
+        /**
+         * 异步返回类型
+         *
+         * @param asyncType 异步返回类型
+         * @return {@link Builder}
+         */
+        public Builder asyncType(AsyncType asyncType) {
+            this.asyncType = asyncType;
+            return this;
+        }
+
+        /**
+         * 舱壁
+         *
+         * @param bulkhead 舱壁
+         * @return {@link Builder}
+         */
+        public Builder bulkhead(BulkheadLimiter bulkhead) {
+            this.bulkhead = bulkhead;
+            return this;
+        }
+
+        /**
+         * 合并相同的并发请求
+         *
+         * @param coalesce 是否合并
+         * @return {@link Builder}
+         */
+        public Builder coalesce(boolean coalesce) {
+            this.coalesce = coalesce;
+            return this;
+        }
+
+        /**
+         * 批量合并
+         *
+         * @param batcher 批量合并
+         * @return {@link Builder}
+         */
+        public Builder batcher(MicroBatcher batcher) {
+            this.batcher = batcher;
+            return this;
+        }
+
+        /**
+         * 发送后不等待
+         *
+         * @param fireAndForget 发送队列
+         * @return {@link Builder}
+         */
+        public Builder fireAndForget(FireAndForgetQueue fireAndForget) {
+            this.fireAndForget = fireAndForget;
+            return this;
+        }
+
+        /**
+         * 本地持久化后发送
+         *
+         * @param outbox 本地日志
+         * @return {@link Builder}
+         */
+        public Builder outbox(DurableOutbox outbox) {
+            this.outbox = outbox;
+            return this;
+        }
+
+        /**
+         * 对冲请求
+         *
+         * @param hedge 对冲请求
+         * @return {@link Builder}
+         */
+        public Builder hedge(HedgePolicy hedge) {
+            this.hedge = hedge;
+            return this;
+        }
+
+        /**
+         * 自适应并发限制
+         *
+         * @param adaptiveLimit 自适应并发限制
+         * @return {@link Builder}
+         */
+        public Builder adaptiveLimit(AdaptiveLimitPolicy adaptiveLimit) {
+            this.adaptiveLimit = adaptiveLimit;
+            return this;
+        }
+
+        /**
+         * 客户端限流
+         *
+         * @param rateLimit 客户端限流
+         * @return {@link Builder}
+         */
+        public Builder rateLimit(RateLimitPolicy rateLimit) {
+            this.rateLimit = rateLimit;
+            return this;
+        }
+
+        /**
+         * 超时时间
+         *
+         * @param connectTimeout 连接超时时间(毫秒)
+         * @param readTimeout    读取超时时间(毫秒)
+         * @param timeout        整体超时时间(毫秒)
+         * @return {@link Builder}
+         */
+        public Builder timeout(int connectTimeout, int readTimeout, long timeout) {
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 建造
+         *
+         * @return {@link MethodPlan}
+         */
+        public MethodPlan build() {
+            return new MethodPlan(this);
+        }
+    }
+}
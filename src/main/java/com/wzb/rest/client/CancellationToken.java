@@ -0,0 +1,145 @@
+package com.wzb.rest.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 调用取消标记
+ * <br>绑定在执行调用的线程上，期间发出的请求登记中止操作，取消时中止请求(断开连接)，阻塞在连接或读取上的调用立即失败；
+ * 子标记随父标记一起取消
+ */
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> currentToken = new ThreadLocal<>();
+
+    private final CancellationToken parent;
+
+    private final List<Runnable> aborts = new ArrayList<>(1);
+
+    private final List<CancellationToken> children = new ArrayList<>(0);
+
+    private boolean cancelled;
+
+    /**
+     * 调用取消标记
+     */
+    public CancellationToken() {
+        this(null);
+    }
+
+    /**
+     * 调用取消标记
+     *
+     * @param parent 父标记
+     */
+    private CancellationToken(CancellationToken parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * 当前线程的取消标记
+     *
+     * @return {@link CancellationToken} 未绑定返回null
+     */
+    public static CancellationToken current() {
+        return currentToken.get();
+    }
+
+    /**
+     * 绑定到当前线程，需在 finally 里调用 {@link #restore(CancellationToken)}
+     *
+     * @param token 取消标记
+     * @return {@link CancellationToken} 原取消标记
+     */
+    public static CancellationToken bind(CancellationToken token) {
+        CancellationToken previous = currentToken.get();
+        currentToken.set(token);
+        return previous;
+    }
+
+    /**
+     * 恢复原取消标记
+     *
+     * @param previous {@link #bind(CancellationToken)} 返回的原取消标记
+     */
+    public static void restore(CancellationToken previous) {
+        if (null == previous) {
+            currentToken.remove();
+        } else {
+            currentToken.set(previous);
+        }
+    }
+
+    /**
+     * 创建子标记，本标记已取消时子标记也是取消的
+     *
+     * @return {@link CancellationToken}
+     */
+    public synchronized CancellationToken newChild() {
+        CancellationToken child = new CancellationToken(this);
+        if (cancelled) {
+            child.cancel();
+        } else {
+            children.add(child);
+        }
+        return child;
+    }
+
+    /**
+     * 取消，中止登记的请求
+     */
+    public void cancel() {
+        List<Runnable> openRequests;
+        List<CancellationToken> childTokens;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            openRequests = new ArrayList<>(aborts);
+            childTokens = new ArrayList<>(children);
+            aborts.clear();
+            children.clear();
+        }
+        openRequests.forEach(Runnable::run);
+        childTokens.forEach(CancellationToken::cancel);
+    }
+
+    /**
+     * 结束使用，从父标记上移除
+     */
+    public void release() {
+        if (null != parent) {
+            synchronized (parent) {
+                parent.children.remove(this);
+            }
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 登记请求的中止操作
+     *
+     * @param abort 中止操作
+     * @return boolean 已取消返回false
+     */
+    synchronized boolean register(Runnable abort) {
+        if (cancelled) {
+            return false;
+        }
+        aborts.add(abort);
+        return true;
+    }
+
+    /**
+     * 取消登记
+     *
+     * @param abort 中止操作
+     */
+    synchronized void unregister(Runnable abort) {
+        aborts.remove(abort);
+    }
+}
@@ -0,0 +1,214 @@
+package com.wzb.rest.client;
+
+import com.wzb.rest.request.RestAcceptHeaderRequestCallback;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.HttpMessageConverterExtractor;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * ReactiveRestClient
+ * <br>基于WebClient的非阻塞客户端，请求体编码、Accept协商、响应解码及错误处理
+ * 与 {@link RestTemplateClient} 使用同一组转换器和错误处理器，结果保持一致
+ */
+public class ReactiveRestClient {
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final WebClient webClient;
+
+    private final List<HttpMessageConverter<?>> requestConverterList;
+
+    private final List<HttpMessageConverter<?>> responseConverterList;
+
+    private final ResponseErrorHandler errorHandler;
+
+    /**
+     * 响应式rest客户端
+     *
+     * @param webClient          WebClient
+     * @param restTemplateClient rest模板客户端，提供转换器和错误处理器
+     */
+    public ReactiveRestClient(WebClient webClient, RestTemplateClient restTemplateClient) {
+        this.webClient = webClient;
+        this.requestConverterList = restTemplateClient.getRequestConverterList();
+        this.responseConverterList = restTemplateClient.getResponseConverterList();
+        this.errorHandler = restTemplateClient.getErrorHandler();
+    }
+
+    /**
+     * 交换，响应体为空时不发出元素
+     *
+     * @param url           网址
+     * @param method        方法
+     * @param requestEntity 请求实体
+     * @param responseType  响应类型
+     * @return {@link Mono<Object>}
+     */
+    public Mono<Object> exchange(URI url,
+                                 HttpMethod method,
+                                 @Nullable HttpEntity<?> requestEntity,
+                                 Type responseType) {
+        BufferedClientHttpRequest request = new BufferedClientHttpRequest(method, url);
+        try {
+            new RestAcceptHeaderRequestCallback(requestEntity, responseType, this.requestConverterList)
+                    .doWithRequest(request);
+        } catch (IOException | RuntimeException e) {
+            return Mono.error(e);
+        }
+        WebClient.RequestBodySpec requestSpec = webClient.method(method)
+                .uri(url)
+                .headers(httpHeaders -> httpHeaders.putAll(request.getHeaders()));
+        WebClient.RequestHeadersSpec<?> exchangeSpec = request.body.size() > 0
+                ? requestSpec.syncBody(request.body.toByteArray())
+                : requestSpec;
+        return exchangeSpec.exchange()
+                .flatMap(response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(EMPTY_BODY)
+                        .flatMap(body -> extract(url, method, response, body, responseType)));
+    }
+
+    /**
+     * 提取响应
+     *
+     * @param url          网址
+     * @param method       方法
+     * @param response     响应
+     * @param body         响应体
+     * @param responseType 响应类型
+     * @return {@link Mono<Object>}
+     */
+    private Mono<Object> extract(URI url, HttpMethod method, ClientResponse response, byte[] body,
+                                 Type responseType) {
+        BufferedClientHttpResponse clientHttpResponse = new BufferedClientHttpResponse(
+                response.rawStatusCode(), response.headers().asHttpHeaders(), body);
+        try {
+            if (errorHandler.hasError(clientHttpResponse)) {
+                errorHandler.handleError(url, method, clientHttpResponse);
+            }
+            if (Void.class == responseType) {
+                return Mono.empty();
+            }
+            return Mono.justOrEmpty(new HttpMessageConverterExtractor<>(responseType, this.responseConverterList)
+                    .extractData(clientHttpResponse));
+        } catch (IOException | RuntimeException e) {
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * 缓存请求，只用于收集请求头和编码后的请求体
+     */
+    private static class BufferedClientHttpRequest implements ClientHttpRequest {
+
+        private final HttpMethod method;
+
+        private final URI uri;
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        BufferedClientHttpRequest(HttpMethod method, URI uri) {
+            this.method = method;
+            this.uri = uri;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getMethodValue() {
+            return method.name();
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public ClientHttpResponse execute() {
+            throw new UnsupportedOperationException("buffered request can not be executed");
+        }
+    }
+
+    /**
+     * 缓存响应，交给转换器和错误处理器读取
+     */
+    private static class BufferedClientHttpResponse implements ClientHttpResponse {
+
+        private final int statusCode;
+
+        private final HttpHeaders headers;
+
+        private final byte[] body;
+
+        BufferedClientHttpResponse(int statusCode, HttpHeaders headers, byte[] body) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return HttpStatus.valueOf(statusCode);
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus status = HttpStatus.resolve(statusCode);
+            return null == status ? "" : status.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.wzb.rest.client;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 按调用设置超时时间、可取消的请求工厂
+ * <br>包装请求模板配置的请求工厂，连接池、SSL、代理等配置不变；超时时间绑定在调用线程上，创建请求后按请求的实现设置：
+ * HttpURLConnection 设置连接和读取超时，Apache HttpClient 在原有 RequestConfig 上设置连接和读取超时。
+ * 调用线程绑定了 {@link CancellationToken} 时登记中止操作，取消时 HttpURLConnection 断开连接，Apache HttpClient 中止请求；
+ * 其他实现按原配置执行，不能中止
+ */
+class RestClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+    private static final boolean httpComponentsPresent = ClassUtils.isPresent(
+            "org.apache.http.client.methods.HttpRequestBase", RestClientHttpRequestFactory.class.getClassLoader());
+
+    private static final ThreadLocal<Call> calls = new ThreadLocal<>();
+
+    /**
+     * 请求实现类的字段
+     */
+    private static final Map<Class<?>, RequestFields> requestFieldsMap = new ConcurrentHashMap<>();
+
+    private final ClientHttpRequestFactory delegate;
+
+    /**
+     * 按调用设置超时时间、可取消的请求工厂
+     *
+     * @param delegate 请求模板配置的请求工厂，为null时使用 {@link SimpleClientHttpRequestFactory}
+     */
+    RestClientHttpRequestFactory(ClientHttpRequestFactory delegate) {
+        this.delegate = null == delegate ? new SimpleClientHttpRequestFactory() : delegate;
+    }
+
+    /**
+     * 按超时时间执行
+     *
+     * @param connectTimeout 连接超时时间(毫秒)，小于 0 不设置
+     * @param readTimeout    读取超时时间(毫秒)，小于 0 不设置
+     * @param supplier       执行内容
+     * @param <T>            泛型
+     * @return {@link T}
+     */
+    static <T> T execute(int connectTimeout, int readTimeout, Supplier<T> supplier) {
+        Call previous = calls.get();
+        Call call = new Call(connectTimeout, readTimeout, CancellationToken.current());
+        calls.set(call);
+        try {
+            return supplier.get();
+        } finally {
+            call.release();
+            if (null == previous) {
+                calls.remove();
+            } else {
+                calls.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        ClientHttpRequest request = delegate.createRequest(uri, httpMethod);
+        Call call = calls.get();
+        if (null != call) {
+            call.prepare(request);
+        }
+        return request;
+    }
+
+    /**
+     * 一次调用
+     */
+    private static class Call {
+
+        private final int connectTimeout;
+
+        private final int readTimeout;
+
+        private final CancellationToken token;
+
+        private final List<Runnable> aborts = new ArrayList<>(1);
+
+        Call(int connectTimeout, int readTimeout, CancellationToken token) {
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+            this.token = token;
+        }
+
+        /**
+         * 设置超时时间，登记中止操作，已取消时不再发送
+         *
+         * @param request 请求
+         * @throws IOException 已取消
+         */
+        void prepare(ClientHttpRequest request) throws IOException {
+            RequestFields fields = requestFieldsMap.computeIfAbsent(request.getClass(), RequestFields::new);
+            Runnable abort = null;
+            Object connection = fields.get(fields.connection, request);
+            if (connection instanceof HttpURLConnection) {
+                abort = prepare((HttpURLConnection) connection);
+            } else if (httpComponentsPresent) {
+                abort = HttpComponents.prepare(fields, request, connectTimeout, readTimeout);
+            }
+            if (null == token || null == abort) {
+                return;
+            }
+            if (!token.register(abort)) {
+                abort.run();
+                throw new IOException("rest client call cancelled");
+            }
+            aborts.add(abort);
+        }
+
+        /**
+         * 连接前设置超时时间
+         *
+         * @param connection 连接
+         * @return {@link Runnable} 中止操作
+         */
+        private Runnable prepare(HttpURLConnection connection) {
+            if (connectTimeout >= 0) {
+                connection.setConnectTimeout(connectTimeout);
+            }
+            if (readTimeout >= 0) {
+                connection.setReadTimeout(readTimeout);
+            }
+            return connection::disconnect;
+        }
+
+        /**
+         * 调用结束，取消登记，连接交还连接池后不再中止
+         */
+        void release() {
+            if (null != token) {
+                aborts.forEach(token::unregister);
+            }
+        }
+    }
+
+    /**
+     * Apache HttpClient 请求，类路径上有 HttpClient 时才加载
+     */
+    private static final class HttpComponents {
+
+        /**
+         * 在原有 RequestConfig 上设置超时时间
+         * <br>原有配置依次取请求、请求上下文、HttpClient 上的配置，设置到请求上优先于其他配置
+         *
+         * @param fields         请求实现类的字段
+         * @param request        请求
+         * @param connectTimeout 连接超时时间(毫秒)，小于 0 不设置
+         * @param readTimeout    读取超时时间(毫秒)，小于 0 不设置
+         * @return {@link Runnable} 中止操作，不是 HttpClient 的请求返回null
+         */
+        static Runnable prepare(RequestFields fields, ClientHttpRequest request, int connectTimeout, int readTimeout) {
+            Object target = fields.get(fields.httpRequest, request);
+            if (!(target instanceof HttpRequestBase)) {
+                return null;
+            }
+            HttpRequestBase httpRequest = (HttpRequestBase) target;
+            if (connectTimeout >= 0 || readTimeout >= 0) {
+                RequestConfig config = httpRequest.getConfig();
+                Object context = fields.get(fields.httpContext, request);
+                if (null == config && context instanceof HttpContext) {
+                    config = (RequestConfig) ((HttpContext) context).getAttribute(HttpClientContext.REQUEST_CONFIG);
+                }
+                Object client = fields.get(fields.httpClient, request);
+                if (null == config && client instanceof Configurable) {
+                    config = ((Configurable) client).getConfig();
+                }
+                RequestConfig.Builder builder = null == config ? RequestConfig.custom() : RequestConfig.copy(config);
+                if (connectTimeout >= 0) {
+                    builder.setConnectTimeout(connectTimeout).setConnectionRequestTimeout(connectTimeout);
+                }
+                if (readTimeout >= 0) {
+                    builder.setSocketTimeout(readTimeout);
+                }
+                httpRequest.setConfig(builder.build());
+            }
+            return httpRequest::abort;
+        }
+    }
+
+    /**
+     * 请求实现类上持有连接或底层请求的字段，没有的为null
+     * <br>SimpleClientHttpRequestFactory 的请求持有 connection，HttpComponentsClientHttpRequestFactory 的请求持有
+     * httpClient、httpRequest、httpContext
+     */
+    private static final class RequestFields {
+
+        private final Field connection;
+
+        private final Field httpRequest;
+
+        private final Field httpContext;
+
+        private final Field httpClient;
+
+        RequestFields(Class<?> requestClass) {
+            this.connection = find(requestClass, "connection");
+            this.httpRequest = find(requestClass, "httpRequest");
+            this.httpContext = find(requestClass, "httpContext");
+            this.httpClient = find(requestClass, "httpClient");
+        }
+
+        Object get(Field field, Object request) {
+            return null == field ? null : ReflectionUtils.getField(field, request);
+        }
+
+        private static Field find(Class<?> requestClass, String name) {
+            Field field = ReflectionUtils.findField(requestClass, name);
+            if (null != field) {
+                ReflectionUtils.makeAccessible(field);
+            }
+            return field;
+        }
+    }
+}
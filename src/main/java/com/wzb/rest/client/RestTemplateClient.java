@@ -6,14 +6,19 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.support.HttpAccessor;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.util.ArrayList;
@@ -35,6 +40,11 @@ public class RestTemplateClient {
 
     private List<ClientHttpRequestInterceptor> interceptorList;
 
+    /**
+     * 按调用设置超时时间、可取消的请求模板，首次使用时创建
+     */
+    private volatile RestTemplate callRestTemplate;
+
     /**
      * rest模板客户端
      *
@@ -71,6 +81,71 @@ public class RestTemplateClient {
         return nonNull(restTemplate.execute(url, method, requestCallback, responseExtractor));
     }
 
+    /**
+     * 交换，按调用设置超时时间，当前线程绑定 {@link CancellationToken} 时可取消
+     * <br>使用 {@link RestClientHttpRequestFactory} 包装原请求工厂的请求模板，转换器、拦截器和错误处理器与原请求模板一致
+     *
+     * @param url            网址
+     * @param method         方法
+     * @param requestEntity  请求实体
+     * @param responseType   响应类型
+     * @param connectTimeout 连接超时时间(毫秒)，小于 0 不设置
+     * @param readTimeout    读取超时时间(毫秒)，小于 0 不设置
+     * @param <T>            泛型
+     * @return {@link ResponseEntity<T>}
+     */
+    public <T> ResponseEntity<T> exchange(URI url,
+                                          HttpMethod method,
+                                          @Nullable HttpEntity<?> requestEntity,
+                                          ParameterizedTypeReference<T> responseType,
+                                          int connectTimeout,
+                                          int readTimeout) {
+        Type type = responseType.getType();
+        RequestCallback requestCallback = httpEntityCallback(requestEntity, type);
+        ResponseExtractor<ResponseEntity<T>> responseExtractor = responseEntityExtractor(type);
+        RestTemplate template = callRestTemplate();
+        return RestClientHttpRequestFactory.execute(connectTimeout, readTimeout,
+                () -> nonNull(template.execute(url, method, requestCallback, responseExtractor)));
+    }
+
+    /**
+     * 获取按调用设置超时时间、可取消的请求模板
+     *
+     * @return {@link RestTemplate}
+     */
+    private RestTemplate callRestTemplate() {
+        RestTemplate template = callRestTemplate;
+        if (null == template) {
+            synchronized (this) {
+                template = callRestTemplate;
+                if (null == template) {
+                    template = new RestTemplate(new RestClientHttpRequestFactory(requestFactory()));
+                    template.setMessageConverters(restTemplate.getMessageConverters());
+                    template.setErrorHandler(restTemplate.getErrorHandler());
+                    template.setInterceptors(restTemplate.getInterceptors());
+                    callRestTemplate = template;
+                }
+            }
+        }
+        return template;
+    }
+
+    /**
+     * 原请求模板配置的请求工厂
+     * <br>配置了拦截器时 getRequestFactory 返回包装了拦截器的工厂，新请求模板会再加一次拦截器，取未包装的请求工厂
+     *
+     * @return {@link ClientHttpRequestFactory} 取不到返回null
+     */
+    private ClientHttpRequestFactory requestFactory() {
+        Field field = ReflectionUtils.findField(HttpAccessor.class, "requestFactory");
+        if (null == field) {
+            return restTemplate.getInterceptors().isEmpty() ? restTemplate.getRequestFactory() : null;
+        }
+        ReflectionUtils.makeAccessible(field);
+        Object requestFactory = ReflectionUtils.getField(field, restTemplate);
+        return requestFactory instanceof ClientHttpRequestFactory ? (ClientHttpRequestFactory) requestFactory : null;
+    }
+
     /**
      * http实体回调
      *
@@ -93,6 +168,33 @@ public class RestTemplateClient {
         return new RestResponseEntityResponseExtractor<>(responseType, this.responseConverterList);
     }
 
+    /**
+     * 获取请求转换器
+     *
+     * @return {@link List<HttpMessageConverter<?>>}
+     */
+    List<HttpMessageConverter<?>> getRequestConverterList() {
+        return requestConverterList;
+    }
+
+    /**
+     * 获取响应转换器
+     *
+     * @return {@link List<HttpMessageConverter<?>>}
+     */
+    List<HttpMessageConverter<?>> getResponseConverterList() {
+        return responseConverterList;
+    }
+
+    /**
+     * 获取响应错误处理器
+     *
+     * @return {@link ResponseErrorHandler}
+     */
+    ResponseErrorHandler getErrorHandler() {
+        return restTemplate.getErrorHandler();
+    }
+
     /**
      * 非空
      *
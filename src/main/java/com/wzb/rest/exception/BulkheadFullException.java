@@ -0,0 +1,16 @@
+package com.wzb.rest.exception;
+
+/**
+ * 舱壁已满异常
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    /**
+     * 舱壁已满异常
+     *
+     * @param message 消息
+     */
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
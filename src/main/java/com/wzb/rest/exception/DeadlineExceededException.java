@@ -0,0 +1,16 @@
+package com.wzb.rest.exception;
+
+/**
+ * 超过截止时间异常
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    /**
+     * 超过截止时间异常
+     *
+     * @param message 消息
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
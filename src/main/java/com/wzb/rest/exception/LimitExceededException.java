@@ -0,0 +1,16 @@
+package com.wzb.rest.exception;
+
+/**
+ * 超过并发限制异常
+ */
+public class LimitExceededException extends RuntimeException {
+
+    /**
+     * 超过并发限制异常
+     *
+     * @param message 消息
+     */
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
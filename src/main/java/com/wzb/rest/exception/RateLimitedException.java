@@ -0,0 +1,16 @@
+package com.wzb.rest.exception;
+
+/**
+ * 超过调用频率限制异常
+ */
+public class RateLimitedException extends RuntimeException {
+
+    /**
+     * 超过调用频率限制异常
+     *
+     * @param message 消息
+     */
+    public RateLimitedException(String message) {
+        super(message);
+    }
+}
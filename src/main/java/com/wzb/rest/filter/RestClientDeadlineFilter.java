@@ -0,0 +1,78 @@
+package com.wzb.rest.filter;
+
+import com.wzb.rest.invoke.RestClientDeadline;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * 入站截止时间过滤器
+ * <br>请求头 X-Request-Timeout 带剩余时间(毫秒)时，请求处理期间的rest客户端调用不超过剩余时间；
+ * 没有请求头时使用构造时的默认超时时间，小于 0 不设置
+ * <pre>
+ * &#64;Bean
+ * public FilterRegistrationBean&lt;RestClientDeadlineFilter&gt; restClientDeadlineFilter() {
+ *     return new FilterRegistrationBean&lt;&gt;(new RestClientDeadlineFilter());
+ * }
+ * </pre>
+ */
+public class RestClientDeadlineFilter implements Filter {
+
+    private final long defaultTimeoutMillis;
+
+    /**
+     * 入站截止时间过滤器，只按请求头设置
+     */
+    public RestClientDeadlineFilter() {
+        this(-1L);
+    }
+
+    /**
+     * 入站截止时间过滤器
+     *
+     * @param defaultTimeoutMillis 没有请求头时的超时时间(毫秒)，小于 0 不设置
+     */
+    public RestClientDeadlineFilter(long defaultTimeoutMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        long timeoutMillis = request instanceof HttpServletRequest
+                ? parseTimeout(((HttpServletRequest) request).getHeader(RestClientDeadline.HEADER))
+                : defaultTimeoutMillis;
+        if (timeoutMillis < 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long previous = RestClientDeadline.start(timeoutMillis);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RestClientDeadline.restore(previous);
+        }
+    }
+
+    /**
+     * 解析请求头
+     *
+     * @param header 请求头
+     * @return long 无效时返回默认超时时间
+     */
+    private long parseTimeout(String header) {
+        if (null == header || header.isEmpty()) {
+            return defaultTimeoutMillis;
+        }
+        try {
+            return Math.max(0L, Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            return defaultTimeoutMillis;
+        }
+    }
+}
@@ -1,26 +1,36 @@
 package com.wzb.rest.instance;
 
 
-import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.invoke.GenericRequestEncoder;
 import com.wzb.rest.invoke.Invoker;
+import com.wzb.rest.invoke.RequestEncoder;
 import javassist.CannotCompileException;
 import javassist.ClassPool;
 import javassist.CtClass;
+import javassist.CtField;
 import javassist.CtMethod;
 import javassist.CtNewConstructor;
 import javassist.LoaderClassPath;
+import javassist.NotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.DigestUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
 import java.security.ProtectionDomain;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -31,7 +41,37 @@ public final class InstanceFactory {
 
     private static Logger logger = LoggerFactory.getLogger(InstanceFactory.class);
 
-    private static ClientCacheFactory factory = ClientCacheFactory.getInstance();
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private static final String PROXY_SUFFIX = "$RestClientProxy";
+
+    /**
+     * 编译期生成的实现类后缀
+     */
+    public static final String GENERATED_SUFFIX = "$RestClientImpl";
+
+    private static final String ENCODER_SUFFIX = "$Encoder";
+
+    /**
+     * 隐藏类所在包
+     */
+    private static final String HIDDEN_PACKAGE = InstanceFactory.class.getName()
+            .substring(0, InstanceFactory.class.getName().lastIndexOf('.') + 1);
+
+    /**
+     * 隐藏类定义方法，JDK 15 以下为null
+     */
+    private static final MethodHandle HIDDEN_CLASS_DEFINER = findHiddenClassDefiner();
+
+    /**
+     * 共享类池，生成后的类都会从类池移除
+     */
+    private static final ClassPool CLASS_POOL = createClassPool();
+
+    /**
+     * 已生成的类
+     */
+    private static final Map<String, Class<?>> generatedClassMap = new ConcurrentHashMap<>();
 
     /**
      * init
@@ -44,105 +84,209 @@ public final class InstanceFactory {
      * 创建代理
      *
      * @param interfaceClass 接口类
+     * @param planMap        方法执行计划
      * @param <T>            泛型
      * @return {@link T}
      */
     @SuppressWarnings("unchecked")
-    public static <T> T createProxy(Class<T> interfaceClass) {
+    public static <T> T createProxy(Class<T> interfaceClass, Map<Method, MethodPlan> planMap) {
         return (T) Proxy.newProxyInstance(getClassLoader(), new Class<?>[]{interfaceClass},
                 (proxy, method, args) -> {
-                    String methodKey = factory.generateMethodKey(method);
-                    List<Object> argsList = null == args
-                            ? new ArrayList<>()
-                            : Stream.of(args).collect(Collectors.toList());
-                    return Invoker.invoke(methodKey, argsList, method.getReturnType());
+                    MethodPlan plan = planMap.get(method);
+                    if (null == plan) {
+                        return invokeObjectMethod(interfaceClass, proxy, method, args);
+                    }
+                    return Invoker.invoke(plan, null == args ? EMPTY_ARGS : args);
                 });
     }
 
+    /**
+     * 执行Object方法
+     *
+     * @param interfaceClass 接口类
+     * @param proxy          代理
+     * @param method         方法
+     * @param args           方法参数
+     * @return {@link Object}
+     */
+    private static Object invokeObjectMethod(Class<?> interfaceClass, Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return null != args && args.length == 1 && proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return interfaceClass.getName().concat("@").concat(Integer.toHexString(System.identityHashCode(proxy)));
+            default:
+                throw new UnsupportedOperationException(
+                        String.format("method[%s] is not a rest client method", method));
+        }
+    }
+
     /**
      * 创建实例
      *
      * @param interfaceClass 接口类
+     * @param planMap        方法执行计划
      * @param <T>            泛型
      * @return {@link T}
      */
-    public static <T> T createInstance(Class<T> interfaceClass) {
-        Method[] methods = interfaceClass.getMethods();
-        //过滤default、static修饰方法
-        List<Method> methodList = Stream.of(methods)
-                .filter(method -> !method.isDefault() && !Modifier.isStatic(method.getModifiers()))
-                .collect(Collectors.toList());
-        //包路径
-        String packageStr = interfaceClass.getName().substring(0, interfaceClass.getName().lastIndexOf('.'));
-        //随机包路径及文件名
-        int packageRandInt = new Random().nextInt(100);
-        while (packageRandInt < 1) {
-            packageRandInt = new Random().nextInt(100);
-        }
-        int nameRandInt = new Random().nextInt(packageRandInt);
-        //实例类名
-        String instanceClassName = String.format(packageStr.concat(".javassist%d.RestClientProxy%d"), packageRandInt, nameRandInt);
-        //实例实现方法定义
-        List<String> methodDefinitionList = methodList.stream()
-                .map(method -> definitionMethod(interfaceClass, method)).collect(Collectors.toList());
+    public static <T> T createInstance(Class<T> interfaceClass, Map<Method, MethodPlan> planMap) {
+        List<Method> methodList = implementMethods(interfaceClass);
+        //实例类名，由接口名确定
+        String instanceClassName = interfaceClass.getName().concat(PROXY_SUFFIX);
+        //实例实现方法定义，方法执行计划按方法顺序存放
+        MethodPlan[] plans = new MethodPlan[methodList.size()];
+        List<String> methodDefinitionList = new ArrayList<>(methodList.size());
+        for (int i = 0; i < methodList.size(); i++) {
+            plans[i] = planMap.get(methodList.get(i));
+            methodDefinitionList.add(definitionMethod(methodList.get(i), i));
+        }
 
         ClassLoader classLoader = getClassLoader();
-        ClassPool classPool = new ClassPool(true);
-        classPool.appendClassPath(new LoaderClassPath(classLoader));
+        ProtectionDomain pd = InstanceFactory.class.getProtectionDomain();
+        //每个方法的专用请求编码
+        RequestEncoder[] encoders = new RequestEncoder[plans.length];
+        for (int i = 0; i < plans.length; i++) {
+            encoders[i] = createEncoder(pd, classLoader, instanceClassName.concat(ENCODER_SUFFIX) + i, plans[i]);
+        }
         @SuppressWarnings("unchecked")
-        Class<T> clazz = (Class<T>) toClass(classPool, InstanceFactory.class.getProtectionDomain(),
-                classLoader, instanceClassName, methodDefinitionList, interfaceClass);
+        Class<T> clazz = (Class<T>) toClass(pd, classLoader, instanceClassName, methodDefinitionList, interfaceClass);
         if (null != clazz) {
             try {
-                return clazz.newInstance();
-            } catch (InstantiationException | IllegalAccessException e) {
+                return clazz.getConstructor(MethodPlan[].class, RequestEncoder[].class).newInstance(plans, encoders);
+            } catch (ReflectiveOperationException e) {
                 logger.warn(String.format(">>>>>>>>>>>>>>实例化接口[%s]异常", interfaceClass.getName()), e);
             }
         }
-        logger.info(">>>>>>>>>>>>>>实例化接口[{}]异常, 降级处理成 java 代理", interfaceClass.getName());
+        logger.warn(">>>>>>>>>>>>>>实例化接口[{}]异常, 降级处理成 java 代理", interfaceClass.getName());
         //降级处理
-        return createProxy(interfaceClass);
+        return createProxy(interfaceClass, planMap);
+    }
+
+    /**
+     * 创建编译期生成的实例
+     * <br>接口经 com.wzb.rest.processor.RestClientProcessor 处理后存在实现类，
+     * 实现类构造时按运行时规则解析方法执行计划，不需要生成代理类
+     *
+     * @param interfaceClass 接口类
+     * @param prefixUrl      URL前缀
+     * @param <T>            泛型
+     * @return {@link T} 没有生成实现类时返回null
+     */
+    public static <T> T createGeneratedInstance(Class<T> interfaceClass, String prefixUrl) {
+        ClassLoader classLoader = null == interfaceClass.getClassLoader()
+                ? getClassLoader()
+                : interfaceClass.getClassLoader();
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(interfaceClass.getName().concat(GENERATED_SUFFIX), true, classLoader);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        try {
+            return interfaceClass.cast(clazz.getConstructor(String.class).newInstance(prefixUrl));
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            logger.warn(String.format(">>>>>>>>>>>>>>实例化生成类[%s]异常, 使用运行时解析", clazz.getName()), e);
+        }
+        return null;
+    }
+
+    /**
+     * 创建隐藏类实例
+     * <br>JDK 15+ 使用 {@link MethodHandles.Lookup}#defineHiddenClass 定义实现类，
+     * 类不进入类加载器的命名空间，无引用后可被卸载；不支持时降级成 javassist 实例
+     *
+     * @param interfaceClass 接口类
+     * @param planMap        方法执行计划
+     * @param <T>            泛型
+     * @return {@link T}
+     */
+    public static <T> T createHiddenInstance(Class<T> interfaceClass, Map<Method, MethodPlan> planMap) {
+        if (!supportHiddenClass()) {
+            logger.info(">>>>>>>>>>>>>>当前JDK不支持隐藏类, 接口[{}]使用 javassist 代理", interfaceClass.getName());
+            return createInstance(interfaceClass, planMap);
+        }
+        List<Method> methodList = implementMethods(interfaceClass);
+        //隐藏类必须与Lookup类同包，名称由JVM追加后缀保证唯一
+        String instanceClassName = HIDDEN_PACKAGE.concat(interfaceClass.getSimpleName()).concat(PROXY_SUFFIX);
+        MethodPlan[] plans = new MethodPlan[methodList.size()];
+        List<String> methodDefinitionList = new ArrayList<>(methodList.size());
+        for (int i = 0; i < methodList.size(); i++) {
+            plans[i] = planMap.get(methodList.get(i));
+            methodDefinitionList.add(definitionMethod(methodList.get(i), i));
+        }
+        RequestEncoder[] encoders = new RequestEncoder[plans.length];
+        for (int i = 0; i < plans.length; i++) {
+            encoders[i] = createHiddenEncoder(instanceClassName.concat(ENCODER_SUFFIX) + i, plans[i]);
+        }
+        try {
+            byte[] bytecode;
+            synchronized (CLASS_POOL) {
+                CtClass mCtc = null;
+                CtClass interfaceCtc = null;
+                try {
+                    mCtc = makeInstanceClass(instanceClassName, methodDefinitionList);
+                    interfaceCtc = CLASS_POOL.makeInterface(interfaceClass.getName());
+                    mCtc.addInterface(interfaceCtc);
+                    bytecode = mCtc.toBytecode();
+                } finally {
+                    detach(mCtc);
+                    detach(interfaceCtc);
+                }
+            }
+            Class<?> clazz = defineHiddenClass(bytecode);
+            return interfaceClass.cast(clazz.getConstructor(MethodPlan[].class, RequestEncoder[].class)
+                    .newInstance(plans, encoders));
+        } catch (Throwable e) {
+            logger.warn(String.format(">>>>>>>>>>>>>>隐藏类实现接口[%s]异常", interfaceClass.getName()), e);
+        }
+        logger.warn(">>>>>>>>>>>>>>实例化接口[{}]异常, 降级处理成 java 代理", interfaceClass.getName());
+        //降级处理
+        return createProxy(interfaceClass, planMap);
+    }
+
+    /**
+     * 是否支持隐藏类
+     *
+     * @return boolean
+     */
+    public static boolean supportHiddenClass() {
+        return null != HIDDEN_CLASS_DEFINER;
+    }
+
+    /**
+     * 需要实现的接口方法，过滤default、static修饰方法
+     *
+     * @param interfaceClass 接口类
+     * @return {@link List<Method>}
+     */
+    private static List<Method> implementMethods(Class<?> interfaceClass) {
+        return Stream.of(interfaceClass.getMethods())
+                .filter(method -> !method.isDefault() && !Modifier.isStatic(method.getModifiers()))
+                .collect(Collectors.toList());
     }
 
     /**
      * 定义方法
      *
-     * @param clazz  接口
-     * @param method 方法
+     * @param method    方法
+     * @param planIndex 方法执行计划索引
      * @return {@link String}
      */
-    private static String definitionMethod(Class<?> clazz, Method method) {
-        //方法key
-        String methodKey = clazz.getName().concat("#").concat(method.getName());
+    private static String definitionMethod(Method method, int planIndex) {
         //实现接口方法
         StringBuilder methodDefinition = new StringBuilder("public ");
         Class<?> returnType = method.getReturnType();
-        if (returnType.equals(Void.class)) {
-            methodDefinition.append("void ");
-        } else {
-            methodDefinition.append(returnType.getName()).append(" ");
-        }
+        methodDefinition.append(returnType.getTypeName()).append(" ");
         methodDefinition.append(method.getName()).append("(");
         methodDefinition.append(definitionParameter(method.getParameters())).append(") { ");
-        methodDefinition.append(String.class.getName()).append(" methodKey = ");
-        methodDefinition.append("\"").append(methodKey).append("\"; ");
-        methodDefinition.append(Class.class.getName()).append(" returnType = ");
-        methodDefinition.append(method.getReturnType().getName()).append(".class; ");
-        methodDefinition.append(List.class.getName()).append(" args = ");
-        if (0 == method.getParameterCount()) {
-            methodDefinition.append("null; ");
-        } else {
-            methodDefinition.append("new ").append(LinkedList.class.getName()).append("(); ");
-            for (int i = 0; i < method.getParameterCount(); i++) {
-                methodDefinition.append("args.add($").append(i + 1).append("); ");
-            }
-        }
-        if (returnType.equals(Void.class)) {
-            methodDefinition.append(Invoker.class.getName()).append(".invoke(methodKey, args); ");
-        } else {
-            methodDefinition.append("return ").append(Invoker.class.getName())
-                    .append(".invoke(methodKey, args, returnType); ");
+        if (!returnType.equals(void.class)) {
+            methodDefinition.append("return ($r) ");
         }
+        methodDefinition.append(Invoker.class.getName())
+                .append(".invoke(this.plans[").append(planIndex).append("], this.encoders[")
+                .append(planIndex).append("], $args); ");
         methodDefinition.append("} ");
         return methodDefinition.toString();
     }
@@ -159,7 +303,7 @@ public final class InstanceFactory {
             if (parameterDefinition.length() > 0) {
                 parameterDefinition.append(", ");
             }
-            parameterDefinition.append(parameter.getType().getName())
+            parameterDefinition.append(parameter.getType().getTypeName())
                     .append(" ").append(parameter.getName());
         }
         return parameterDefinition.toString();
@@ -184,7 +328,6 @@ public final class InstanceFactory {
     /**
      * 转换成类文件
      *
-     * @param classPool      类池
      * @param pd             保护域
      * @param classLoader    类加载器
      * @param className      类名
@@ -192,23 +335,224 @@ public final class InstanceFactory {
      * @param interfaceClass 接口
      * @return {@link Class}
      */
-    private static Class<?> toClass(ClassPool classPool,
-                                    ProtectionDomain pd,
+    private static Class<?> toClass(ProtectionDomain pd,
                                     ClassLoader classLoader,
                                     String className,
                                     List<String> methodList,
                                     Class<?> interfaceClass) {
+        synchronized (CLASS_POOL) {
+            Class<?> clazz = findGeneratedClass(className, classLoader);
+            if (null != clazz) {
+                return clazz;
+            }
+            CtClass mCtc = null;
+            CtClass interfaceCtc = null;
+            try {
+                mCtc = makeInstanceClass(className, methodList);
+                interfaceCtc = CLASS_POOL.makeInterface(interfaceClass.getName());
+                mCtc.addInterface(interfaceCtc);
+                clazz = mCtc.toClass(classLoader, pd);
+                generatedClassMap.put(className, clazz);
+                return clazz;
+            } catch (CannotCompileException | RuntimeException ex) {
+                logger.warn(">>>>>>>>>>>>>代理类实现接口异常", ex);
+            } finally {
+                detach(mCtc);
+                detach(interfaceCtc);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 生成实例类，持有方法执行计划及请求编码
+     *
+     * @param className  类名
+     * @param methodList 方法列表
+     * @return {@link CtClass}
+     * @throws CannotCompileException 编译异常
+     */
+    private static CtClass makeInstanceClass(String className, List<String> methodList)
+            throws CannotCompileException {
+        CtClass mCtc = CLASS_POOL.makeClass(className);
         try {
-            CtClass mCtc = classPool.makeClass(className);
+            //方法执行计划
+            mCtc.addField(CtField.make("private final " + MethodPlan.class.getName() + "[] plans;", mCtc));
+            mCtc.addField(CtField.make("private final " + RequestEncoder.class.getName() + "[] encoders;", mCtc));
+            mCtc.addConstructor(CtNewConstructor.make("public " + mCtc.getSimpleName() + "("
+                    + MethodPlan.class.getName() + "[] plans, " + RequestEncoder.class.getName()
+                    + "[] encoders) { this.plans = $1; this.encoders = $2; }", mCtc));
             for (String method : methodList) {
                 mCtc.addMethod(CtMethod.make(method, mCtc));
             }
-            mCtc.addInterface(classPool.makeInterface(interfaceClass.getName()));
-            mCtc.addConstructor(CtNewConstructor.defaultConstructor(mCtc));
-            return mCtc.toClass(classLoader, pd);
+            return mCtc;
         } catch (CannotCompileException | RuntimeException ex) {
-            logger.warn(">>>>>>>>>>>>>代理类实现接口异常", ex);
+            detach(mCtc);
+            throw ex;
         }
-        return null;
+    }
+
+    /**
+     * 创建专用请求编码，生成失败时使用通用编码
+     * <br>类名带编码源码的摘要，同一方法的编码源码不同时(如多个容器配置不同)不共用已生成的类
+     *
+     * @param pd          保护域
+     * @param classLoader 类加载器
+     * @param className   类名前缀
+     * @param plan        方法执行计划
+     * @return {@link RequestEncoder}
+     */
+    private static RequestEncoder createEncoder(ProtectionDomain pd,
+                                                ClassLoader classLoader,
+                                                String className,
+                                                MethodPlan plan) {
+        List<String> methodList = RequestEncoderFactory.definitionEncoder(plan);
+        if (methodList.isEmpty()) {
+            return GenericRequestEncoder.getInstance();
+        }
+        String encoderClassName = className + '$' + digest(methodList);
+        synchronized (CLASS_POOL) {
+            CtClass mCtc = null;
+            try {
+                Class<?> clazz = findGeneratedClass(encoderClassName, classLoader);
+                if (null == clazz) {
+                    mCtc = CLASS_POOL.makeClass(encoderClassName,
+                            CLASS_POOL.get(GenericRequestEncoder.class.getName()));
+                    for (String method : methodList) {
+                        mCtc.addMethod(CtMethod.make(method, mCtc));
+                    }
+                    mCtc.addConstructor(CtNewConstructor.defaultConstructor(mCtc));
+                    clazz = mCtc.toClass(classLoader, pd);
+                    generatedClassMap.put(encoderClassName, clazz);
+                }
+                return (RequestEncoder) clazz.newInstance();
+            } catch (CannotCompileException | NotFoundException | ReflectiveOperationException | RuntimeException ex) {
+                logger.warn(String.format(">>>>>>>>>>>>>生成方法[%s]请求编码异常, 使用通用编码", plan.getMethodKey()), ex);
+            } finally {
+                detach(mCtc);
+            }
+        }
+        return GenericRequestEncoder.getInstance();
+    }
+
+    /**
+     * 源码摘要
+     *
+     * @param methodList 方法定义
+     * @return {@link String} md5 前 16 位
+     */
+    private static String digest(List<String> methodList) {
+        byte[] source = String.join("\n", methodList).getBytes(StandardCharsets.UTF_8);
+        return DigestUtils.md5DigestAsHex(source).substring(0, 16);
+    }
+
+    /**
+     * 创建隐藏类专用请求编码，生成失败时使用通用编码
+     *
+     * @param className 类名
+     * @param plan      方法执行计划
+     * @return {@link RequestEncoder}
+     */
+    private static RequestEncoder createHiddenEncoder(String className, MethodPlan plan) {
+        List<String> methodList = RequestEncoderFactory.definitionEncoder(plan);
+        if (methodList.isEmpty()) {
+            return GenericRequestEncoder.getInstance();
+        }
+        try {
+            byte[] bytecode;
+            synchronized (CLASS_POOL) {
+                CtClass mCtc = null;
+                try {
+                    mCtc = CLASS_POOL.makeClass(className, CLASS_POOL.get(GenericRequestEncoder.class.getName()));
+                    for (String method : methodList) {
+                        mCtc.addMethod(CtMethod.make(method, mCtc));
+                    }
+                    mCtc.addConstructor(CtNewConstructor.defaultConstructor(mCtc));
+                    bytecode = mCtc.toBytecode();
+                } finally {
+                    detach(mCtc);
+                }
+            }
+            return (RequestEncoder) defineHiddenClass(bytecode).getConstructor().newInstance();
+        } catch (Throwable ex) {
+            logger.warn(String.format(">>>>>>>>>>>>>生成方法[%s]请求编码异常, 使用通用编码", plan.getMethodKey()), ex);
+        }
+        return GenericRequestEncoder.getInstance();
+    }
+
+    /**
+     * 定义隐藏类，不使用 STRONG 选项，类可随实例一起卸载
+     *
+     * @param bytecode 字节码
+     * @return {@link Class}
+     * @throws Throwable 定义异常
+     */
+    private static Class<?> defineHiddenClass(byte[] bytecode) throws Throwable {
+        MethodHandles.Lookup hiddenLookup = (MethodHandles.Lookup) HIDDEN_CLASS_DEFINER
+                .invokeExact(MethodHandles.lookup(), bytecode, true);
+        return hiddenLookup.lookupClass();
+    }
+
+    /**
+     * 查找 Lookup#defineHiddenClass(byte[], boolean, ClassOption...)，JDK 15 以下返回null
+     *
+     * @return {@link MethodHandle}
+     */
+    private static MethodHandle findHiddenClassDefiner() {
+        try {
+            Class<?> classOptionClass = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            Object options = Array.newInstance(classOptionClass, 0);
+            MethodHandle definer = MethodHandles.publicLookup().findVirtual(MethodHandles.Lookup.class,
+                    "defineHiddenClass",
+                    MethodType.methodType(MethodHandles.Lookup.class, byte[].class, boolean.class,
+                            options.getClass()));
+            return MethodHandles.insertArguments(definer, 3, options);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 查找已生成的类
+     *
+     * @param className   类名
+     * @param classLoader 类加载器
+     * @return {@link Class}
+     */
+    private static Class<?> findGeneratedClass(String className, ClassLoader classLoader) {
+        Class<?> clazz = generatedClassMap.get(className);
+        if (null != clazz) {
+            return clazz;
+        }
+        try {
+            //类加载器里已定义过同名类
+            clazz = Class.forName(className, false, classLoader);
+            generatedClassMap.put(className, clazz);
+            return clazz;
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 从类池移除，释放内存
+     *
+     * @param ctClass 类
+     */
+    private static void detach(CtClass ctClass) {
+        if (null != ctClass) {
+            ctClass.detach();
+        }
+    }
+
+    /**
+     * 创建类池
+     *
+     * @return {@link ClassPool}
+     */
+    private static ClassPool createClassPool() {
+        ClassPool classPool = new ClassPool(true);
+        classPool.appendClassPath(new LoaderClassPath(getClassLoader()));
+        return classPool;
     }
 }
@@ -0,0 +1,286 @@
+package com.wzb.rest.instance;
+
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.cache.ParameterSort;
+import com.wzb.rest.cache.ParameterType;
+import com.wzb.rest.invoke.GenericRequestEncoder;
+import com.wzb.rest.invoke.Invoker;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 专用请求编码定义
+ * <br>按方法执行计划生成继承 {@link GenericRequestEncoder} 的编码方法源码，
+ * 参数按声明类型拼接，请求体形态在生成时确定；URL片段和path来自配置，运行时从执行计划读取
+ */
+final class RequestEncoderFactory {
+
+    private static final String PLAN = "$1";
+
+    private static final String ARGS = "$2";
+
+    /**
+     * init
+     */
+    private RequestEncoderFactory() {
+
+    }
+
+    /**
+     * 定义编码方法
+     *
+     * @param plan 方法执行计划
+     * @return {@link List<String>} 需要覆盖的方法，为空则使用通用编码
+     */
+    static List<String> definitionEncoder(MethodPlan plan) {
+        List<String> methodList = new ArrayList<>(2);
+        if (null == plan || null == plan.getHttpMethod()) {
+            return methodList;
+        }
+        methodList.add(definitionEncodeURL(plan));
+        //文件上传使用通用编码
+        if (plan.getParameterSorts(ParameterType.FILE).length == 0) {
+            methodList.add(definitionEncodeHttpEntity(plan));
+        }
+        return methodList;
+    }
+
+    /**
+     * 定义URL编码方法
+     *
+     * @param plan 方法执行计划
+     * @return {@link String}
+     */
+    private static String definitionEncodeURL(MethodPlan plan) {
+        StringBuilder method = new StringBuilder("public ").append(String.class.getName())
+                .append(" encodeURL(").append(MethodPlan.class.getName()).append(" plan, Object[] args) { ");
+        method.append(StringBuilder.class.getName()).append(" url = new ")
+                .append(StringBuilder.class.getName()).append("(); ");
+        method.append("String[] segments = ").append(PLAN).append(".getUrlSegments(); ");
+        int[] urlVariableIndexes = plan.getUrlVariableIndexes();
+        ParameterSort[] pathSorts = plan.getParameterSorts(ParameterType.PATH);
+        for (int i = 0; i < urlVariableIndexes.length; i++) {
+            method.append("url.append(segments[").append(i).append("]); ");
+            if (urlVariableIndexes[i] > -1) {
+                Class<?> clazz = findClass(pathSorts, urlVariableIndexes[i]);
+                appendValue(method, "url", urlVariableIndexes[i], clazz, "\"\"");
+            }
+        }
+        ParameterSort[] paramSorts = plan.getParameterSorts(ParameterType.PARAM);
+        if (paramSorts.length == 0 && !plan.hasPath()) {
+            return method.append("return url.toString(); }").toString();
+        }
+        method.append(StringBuilder.class.getName()).append(" parameter = new ")
+                .append(StringBuilder.class.getName()).append("(); ");
+        for (ParameterSort sort : paramSorts) {
+            String prefix = sort.getName().concat("=");
+            if (sort.getClazz().isPrimitive()) {
+                appendSeparator(method);
+                method.append("parameter.append(").append(literal(prefix)).append("); ");
+                appendValue(method, "parameter", sort.getIndex(), sort.getClazz(), null);
+            } else {
+                method.append("if (").append(arg(sort.getIndex())).append(" != null) { ");
+                appendSeparator(method);
+                method.append("parameter.append(").append(literal(prefix)).append("); ");
+                appendValue(method, "parameter", sort.getIndex(), sort.getClazz(), null);
+                method.append("} ");
+            }
+        }
+        if (plan.hasPath()) {
+            appendSeparator(method);
+            method.append("parameter.append(").append(literal("path=")).append(").append(")
+                    .append(PLAN).append(".getPath()); ");
+        }
+        method.append("return ").append(Invoker.class.getName()).append(".appendParameter(url, parameter); }");
+        return method.toString();
+    }
+
+    /**
+     * 定义请求实体编码方法
+     *
+     * @param plan 方法执行计划
+     * @return {@link String}
+     */
+    private static String definitionEncodeHttpEntity(MethodPlan plan) {
+        StringBuilder method = new StringBuilder("public ").append(HttpEntity.class.getName())
+                .append(" encodeHttpEntity(").append(MethodPlan.class.getName()).append(" plan, Object[] args) { ");
+        //请求头
+        method.append(HttpHeaders.class.getName()).append(" headers = new ")
+                .append(HttpHeaders.class.getName()).append("(); ");
+        method.append("headers.setContentType(").append(MediaType.class.getName())
+                .append(".APPLICATION_JSON_UTF8); ");
+        for (ParameterSort sort : plan.getParameterSorts(ParameterType.HEADER)) {
+            method.append("headers.add(").append(literal(sort.getName())).append(", ")
+                    .append(stringValue(sort.getIndex(), sort.getClazz())).append("); ");
+        }
+        //请求体
+        ParameterSort[] requestBodies = plan.getParameterSorts(ParameterType.BODY);
+        ParameterSort[] restRequestBodies = plan.getParameterSorts(ParameterType.REST);
+        String body;
+        if (requestBodies.length == 0) {
+            body = restRequestBodies.length > 0 ? arg(restRequestBodies[0].getIndex()) : "null";
+        } else if (requestBodies.length > 1 || Invoker.isNotBeanOrMap(requestBodies[0].getClazz())) {
+            //组装成一个map
+            method.append(HashMap.class.getName()).append(" body = new ").append(HashMap.class.getName())
+                    .append("(").append(requestBodies.length * 2).append("); ");
+            for (ParameterSort sort : requestBodies) {
+                method.append("body.put(").append(literal(sort.getName())).append(", ")
+                        .append(arg(sort.getIndex())).append("); ");
+            }
+            body = "body";
+        } else {
+            body = arg(requestBodies[0].getIndex());
+        }
+        method.append("return new ").append(HttpEntity.class.getName()).append("(")
+                .append(body).append(", headers); }");
+        return method.toString();
+    }
+
+    /**
+     * 拼接分隔符
+     *
+     * @param method 方法定义
+     */
+    private static void appendSeparator(StringBuilder method) {
+        method.append("if (parameter.length() > 0) { parameter.append('&'); } ");
+    }
+
+    /**
+     * 按参数类型拼接参数值
+     *
+     * @param method      方法定义
+     * @param builder     拼接变量名
+     * @param index       参数索引
+     * @param clazz       参数类型
+     * @param nullDefault 空默认值
+     */
+    private static void appendValue(StringBuilder method, String builder, int index, Class<?> clazz,
+                                    String nullDefault) {
+        if (null != clazz && (clazz.isPrimitive() || CharSequence.class.isAssignableFrom(clazz))) {
+            if (null != nullDefault && !clazz.isPrimitive()) {
+                method.append("if (").append(arg(index)).append(" != null) { ")
+                        .append(builder).append(".append(").append(typedValue(index, clazz)).append("); } ");
+            } else {
+                method.append(builder).append(".append(").append(typedValue(index, clazz)).append("); ");
+            }
+            return;
+        }
+        method.append(builder).append(".append(").append(Invoker.class.getName()).append(".convert(")
+                .append(arg(index));
+        if (null != nullDefault) {
+            method.append(", ").append(nullDefault);
+        }
+        method.append(")); ");
+    }
+
+    /**
+     * 参数字符串值
+     *
+     * @param index 参数索引
+     * @param clazz 参数类型
+     * @return {@link String}
+     */
+    private static String stringValue(int index, Class<?> clazz) {
+        if (null != clazz && clazz.isPrimitive()) {
+            return "String.valueOf(" + typedValue(index, clazz) + ")";
+        }
+        if (null != clazz && String.class.equals(clazz)) {
+            return typedValue(index, clazz);
+        }
+        return Invoker.class.getName() + ".convert(" + arg(index) + ")";
+    }
+
+    /**
+     * 按声明类型取参数值
+     *
+     * @param index 参数索引
+     * @param clazz 参数类型
+     * @return {@link String}
+     */
+    private static String typedValue(int index, Class<?> clazz) {
+        if (clazz.isPrimitive()) {
+            String wrapper = wrapperClass(clazz).getName();
+            return "((" + wrapper + ") " + arg(index) + ")." + clazz.getName() + "Value()";
+        }
+        return "((" + clazz.getName() + ") " + arg(index) + ")";
+    }
+
+    /**
+     * 包装类型
+     *
+     * @param clazz 基本类型
+     * @return {@link Class}
+     */
+    private static Class<?> wrapperClass(Class<?> clazz) {
+        if (int.class.equals(clazz)) {
+            return Integer.class;
+        }
+        if (long.class.equals(clazz)) {
+            return Long.class;
+        }
+        if (boolean.class.equals(clazz)) {
+            return Boolean.class;
+        }
+        if (double.class.equals(clazz)) {
+            return Double.class;
+        }
+        if (float.class.equals(clazz)) {
+            return Float.class;
+        }
+        if (char.class.equals(clazz)) {
+            return Character.class;
+        }
+        if (short.class.equals(clazz)) {
+            return Short.class;
+        }
+        return Byte.class;
+    }
+
+    /**
+     * 查找参数类型
+     *
+     * @param sorts 参数
+     * @param index 参数索引
+     * @return {@link Class}
+     */
+    private static Class<?> findClass(ParameterSort[] sorts, int index) {
+        for (ParameterSort sort : sorts) {
+            if (sort.getIndex() == index) {
+                return sort.getClazz();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 方法参数
+     *
+     * @param index 参数索引
+     * @return {@link String}
+     */
+    private static String arg(int index) {
+        return ARGS + "[" + index + "]";
+    }
+
+    /**
+     * 字符串字面量
+     *
+     * @param value 值
+     * @return {@link String}
+     */
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\');
+            }
+            literal.append(c);
+        }
+        return literal.append("\"").toString();
+    }
+}
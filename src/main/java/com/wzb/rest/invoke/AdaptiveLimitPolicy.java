@@ -0,0 +1,44 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.cache.ClientCacheFactory;
+
+import java.net.URI;
+
+/**
+ * 自适应并发限制配置
+ * <br>按请求的 host:port 取共用的 {@link AdaptiveLimiter}
+ */
+public final class AdaptiveLimitPolicy {
+
+    private static ClientCacheFactory factory = ClientCacheFactory.getInstance();
+
+    private final int initialLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    /**
+     * 自适应并发限制配置
+     *
+     * @param initialLimit 初始限制
+     * @param minLimit     最小限制
+     * @param maxLimit     最大限制
+     */
+    public AdaptiveLimitPolicy(int initialLimit, int minLimit, int maxLimit) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * 获取主机的并发限制
+     *
+     * @param uri 调用url
+     * @return {@link AdaptiveLimiter}
+     */
+    public AdaptiveLimiter limiter(URI uri) {
+        String host = uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        return factory.putAdaptiveLimiterIfAbsent(String.valueOf(host), initialLimit, minLimit, maxLimit);
+    }
+}
@@ -0,0 +1,172 @@
+package com.wzb.rest.invoke;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发限制(Vegas算法)
+ * <br>以最小响应时间作为无负载响应时间，估算下游排队数：排队少时升高限制，排队多或超时时降低限制；
+ * 每隔约 {@value #PROBE_MULTIPLIER} 倍限制次调用重新探测无负载响应时间
+ */
+public final class AdaptiveLimiter {
+
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final String name;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private volatile int limit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    /**
+     * 无负载响应时间(纳秒)，以下字段在 update 内访问
+     */
+    private long rttNoLoadNanos;
+
+    private long probeCountdown;
+
+    /**
+     * 自适应并发限制
+     *
+     * @param name         名称
+     * @param initialLimit 初始限制
+     * @param minLimit     最小限制
+     * @param maxLimit     最大限制
+     */
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException(String.format("adaptive limit[%s] requires 1 <= minLimit <= maxLimit", name));
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+        this.probeCountdown = nextProbe(this.limit);
+    }
+
+    /**
+     * 获取许可，不等待
+     *
+     * @return boolean 超过限制返回false
+     */
+    public boolean tryAcquire() {
+        for (; ; ) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejectedCalls.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放许可，不采样
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 释放许可并按响应时间调整限制
+     *
+     * @param rttNanos 响应时间(纳秒)
+     * @param dropped  是否超时或连接失败
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        update(rttNanos, current, dropped);
+    }
+
+    /**
+     * 调整限制
+     *
+     * @param rttNanos 响应时间(纳秒)
+     * @param inFlight 请求时进行中的请求数
+     * @param dropped  是否超时或连接失败
+     */
+    private synchronized void update(long rttNanos, int inFlight, boolean dropped) {
+        int currentLimit = limit;
+        double step = Math.max(1D, Math.log10(currentLimit));
+        double newLimit;
+        if (dropped) {
+            newLimit = currentLimit - step;
+        } else {
+            //定期重新探测无负载响应时间，下游恢复或变慢后基准随之变化
+            if (--probeCountdown <= 0) {
+                probeCountdown = nextProbe(currentLimit);
+                rttNoLoadNanos = rttNanos;
+                return;
+            }
+            if (rttNoLoadNanos == 0 || rttNanos < rttNoLoadNanos) {
+                rttNoLoadNanos = rttNanos;
+                return;
+            }
+            //没有用满限制时不调整
+            if (inFlight * 2 < currentLimit) {
+                return;
+            }
+            int queueSize = (int) Math.ceil(currentLimit * (1D - (double) rttNoLoadNanos / rttNanos));
+            if (queueSize <= step) {
+                newLimit = currentLimit + 6 * step;
+            } else if (queueSize < 3 * step) {
+                newLimit = currentLimit + step;
+            } else if (queueSize > 6 * step) {
+                newLimit = currentLimit - step;
+            } else {
+                return;
+            }
+        }
+        limit = (int) Math.min(maxLimit, Math.max(minLimit, Math.round(newLimit)));
+    }
+
+    /**
+     * 下一次探测前的调用次数，加随机抖动避免多个限制同时探测
+     *
+     * @param currentLimit 当前限制
+     * @return long
+     */
+    private static long nextProbe(int currentLimit) {
+        return (long) (PROBE_MULTIPLIER * currentLimit * (1D + ThreadLocalRandom.current().nextDouble() * 0.5D));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 当前限制
+     *
+     * @return int
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 进行中的请求数
+     *
+     * @return int
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 累计拒绝数
+     *
+     * @return long
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+}
@@ -0,0 +1,136 @@
+package com.wzb.rest.invoke;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 舱壁
+ * <br>信号量限制并发调用数，并发已满时最多 maxWaitCalls 个调用排队等待许可
+ */
+public final class BulkheadLimiter {
+
+    private final String name;
+
+    private final int maxConcurrentCalls;
+
+    private final int maxWaitCalls;
+
+    private final long maxWaitMillis;
+
+    private final Semaphore semaphore;
+
+    private final AtomicInteger waitingCalls = new AtomicInteger();
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    /**
+     * 舱壁
+     *
+     * @param name               名称
+     * @param maxConcurrentCalls 最大并发调用数
+     * @param maxWaitCalls       最大等待调用数
+     * @param maxWaitMillis      最长等待时间(毫秒)
+     */
+    public BulkheadLimiter(String name, int maxConcurrentCalls, int maxWaitCalls, long maxWaitMillis) {
+        if (maxConcurrentCalls < 1) {
+            throw new IllegalArgumentException(String.format("bulkhead[%s] maxConcurrentCalls must be positive", name));
+        }
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitCalls = Math.max(0, maxWaitCalls);
+        this.maxWaitMillis = Math.max(0L, maxWaitMillis);
+        this.semaphore = new Semaphore(maxConcurrentCalls);
+    }
+
+    /**
+     * 获取许可，并发已满时排队等待，等待时间不超过调用截止时间
+     *
+     * @return boolean 队列已满、等待超时或被中断返回false
+     */
+    public boolean tryAcquire() {
+        if (semaphore.tryAcquire()) {
+            return true;
+        }
+        if (maxWaitCalls == 0 || waitingCalls.incrementAndGet() > maxWaitCalls) {
+            if (maxWaitCalls > 0) {
+                waitingCalls.decrementAndGet();
+            }
+            rejectedCalls.increment();
+            return false;
+        }
+        try {
+            long waitMillis = Math.min(maxWaitMillis, RestClientDeadline.remainingMillis());
+            if (semaphore.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waitingCalls.decrementAndGet();
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * 获取许可，不等待
+     * <br>用于不能阻塞的调用线程，如响应式调用
+     *
+     * @return boolean
+     */
+    public boolean tryAcquireNow() {
+        if (semaphore.tryAcquire()) {
+            return true;
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * 释放许可
+     */
+    public void release() {
+        semaphore.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getMaxWaitCalls() {
+        return maxWaitCalls;
+    }
+
+    /**
+     * 可用并发数
+     *
+     * @return int
+     */
+    public int getAvailableCalls() {
+        return semaphore.availablePermits();
+    }
+
+    /**
+     * 等待队列深度
+     *
+     * @return int
+     */
+    public int getWaitingCalls() {
+        return waitingCalls.get();
+    }
+
+    /**
+     * 累计拒绝数
+     *
+     * @return long
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+}
@@ -0,0 +1,29 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.client.CancellationToken;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 可取消的异步结果
+ * <br>cancel 时同时取消执行中的远程调用，断开连接
+ *
+ * @param <T> 泛型
+ */
+final class CancellableFuture<T> extends CompletableFuture<T> {
+
+    private final CancellationToken token = new CancellationToken();
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            token.cancel();
+        }
+        return cancelled;
+    }
+
+    CancellationToken getToken() {
+        return token;
+    }
+}
@@ -0,0 +1,378 @@
+package com.wzb.rest.invoke;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.parser.Feature;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.exception.FileException;
+import com.wzb.rest.metrics.RestClientMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 本地持久化后发送
+ * <br>调用编码成url、请求头和JSON请求体后写入内存映射的追加日志，写入后即返回；
+ * 后台线程按写入顺序发送，失败时退避重试，4xx 响应、超过最多发送次数或最长保留时间的调用移到死信日志(子目录 {@value #DEAD_LETTER_DIRECTORY})；
+ * 发送成功或移到死信日志后才移动读取位置，进程重启后从读取位置继续发送(至少发送一次)
+ */
+public final class DurableOutbox {
+
+    /**
+     * 日志目录配置
+     */
+    public static final String DIRECTORY_PROPERTY = "rest-client.outbox.dir";
+
+    /**
+     * 死信日志子目录
+     */
+    public static final String DEAD_LETTER_DIRECTORY = "dead";
+
+    private static final String THREAD_NAME = "rest-client-outbox-";
+
+    private static final String TIME = "time";
+
+    private static final String URL = "url";
+
+    private static final String METHOD = "method";
+
+    private static final String HEADERS = "headers";
+
+    private static final String BODY = "body";
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    private static Logger logger = LoggerFactory.getLogger(DurableOutbox.class);
+
+    private static ClientCacheFactory factory = ClientCacheFactory.getInstance();
+
+    private static final Map<Path, DurableOutbox> outboxMap = new ConcurrentHashMap<>();
+
+    private static final AtomicLong threadNumber = new AtomicLong();
+
+    private static volatile Path directory;
+
+    private final String methodKey;
+
+    private final OutboxLog log;
+
+    private final OutboxLog deadLetters;
+
+    private final long retryMillis;
+
+    private final long maxRetryMillis;
+
+    private final int maxAttempts;
+
+    private final long maxAgeMillis;
+
+    private final Thread sender;
+
+    private volatile boolean waiting;
+
+    private final LongAdder sentCalls = new LongAdder();
+
+    private final AtomicLong failedCalls = new AtomicLong();
+
+    private final AtomicLong retriedCalls = new AtomicLong();
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    /**
+     * 本地持久化后发送
+     *
+     * @param methodKey      方法key
+     * @param log            追加日志
+     * @param deadLetters    死信日志
+     * @param retryMillis    首次重试等待时间(毫秒)
+     * @param maxRetryMillis 最长重试等待时间(毫秒)
+     * @param maxAttempts    最多发送次数，小于等于 0 不限制
+     * @param maxAgeMillis   最长保留时间(毫秒)，小于等于 0 不限制
+     */
+    private DurableOutbox(String methodKey, OutboxLog log, OutboxLog deadLetters, long retryMillis,
+                          long maxRetryMillis, int maxAttempts, long maxAgeMillis) {
+        this.methodKey = methodKey;
+        this.log = log;
+        this.deadLetters = deadLetters;
+        this.retryMillis = Math.max(1L, retryMillis);
+        this.maxRetryMillis = Math.max(this.retryMillis, maxRetryMillis);
+        this.maxAttempts = Math.max(0, maxAttempts);
+        this.maxAgeMillis = Math.max(0L, maxAgeMillis);
+        this.sender = new Thread(this::send, THREAD_NAME + threadNumber.incrementAndGet());
+        this.sender.setDaemon(true);
+        this.sender.start();
+        RestClientMetrics.getInstance().registerOutbox(this);
+    }
+
+    /**
+     * 设置日志目录，为空则不持久化
+     *
+     * @param directory 日志目录
+     */
+    public static void setDirectory(String directory) {
+        DurableOutbox.directory = null == directory || directory.trim().isEmpty()
+                ? null : Paths.get(directory.trim());
+    }
+
+    /**
+     * 打开方法的日志，每个方法一个子目录，已打开的直接返回
+     *
+     * @param methodKey      方法key
+     * @param segmentSize    段文件大小(字节)
+     * @param maxSegments    最多段文件数
+     * @param sync           每次写入后刷盘
+     * @param retryMillis    首次重试等待时间(毫秒)
+     * @param maxRetryMillis 最长重试等待时间(毫秒)
+     * @param maxAttempts    最多发送次数，小于等于 0 不限制
+     * @param maxAgeMillis   最长保留时间(毫秒)，小于等于 0 不限制
+     * @return {@link DurableOutbox} 未配置目录或打开失败返回null
+     */
+    public static DurableOutbox open(String methodKey, int segmentSize, int maxSegments, boolean sync,
+                                     long retryMillis, long maxRetryMillis, int maxAttempts, long maxAgeMillis) {
+        Path root = directory;
+        if (null == root) {
+            logger.warn(">>>>>>>>>>>>>>@Outbox requires {}, call synchronously on {}", DIRECTORY_PROPERTY, methodKey);
+            return null;
+        }
+        Path path = root.resolve(methodKey.replaceAll("[^A-Za-z0-9._-]", "_")).toAbsolutePath().normalize();
+        return outboxMap.computeIfAbsent(path, key -> {
+            try {
+                return new DurableOutbox(methodKey, new OutboxLog(key, segmentSize, maxSegments, sync),
+                        new OutboxLog(key.resolve(DEAD_LETTER_DIRECTORY), segmentSize, maxSegments, sync),
+                        retryMillis, maxRetryMillis, maxAttempts, maxAgeMillis);
+            } catch (IOException e) {
+                logger.warn(String.format(">>>>>>>>>>>>>>open outbox %s fail, call synchronously on %s",
+                        key, methodKey), e);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 编码后写入日志，不等待发送
+     *
+     * @param plan    方法执行计划
+     * @param encoder 请求编码
+     * @param args    方法参数
+     * @return boolean 日志已满或写入失败返回false
+     */
+    public boolean append(MethodPlan plan, RequestEncoder encoder, Object[] args) {
+        try {
+            HttpEntity<?> httpEntity = encoder.encodeHttpEntity(plan, args);
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put(TIME, System.currentTimeMillis());
+            record.put(URL, encoder.encodeURL(plan, args));
+            record.put(METHOD, plan.getHttpMethod().name());
+            record.put(HEADERS, httpEntity.getHeaders());
+            if (null != httpEntity.getBody()) {
+                //与请求转换器的序列化配置一致
+                record.put(BODY, JSON.toJSONString(httpEntity.getBody(),
+                        SerializerFeature.WriteMapNullValue, SerializerFeature.DisableCircularReferenceDetect));
+            }
+            if (log.append(JSON.toJSONString(record).getBytes(StandardCharsets.UTF_8))) {
+                if (waiting) {
+                    LockSupport.unpark(sender);
+                }
+                return true;
+            }
+        } catch (IOException | FileException | RuntimeException e) {
+            logger.warn(String.format(">>>>>>>>>>>>>>>>>>rest-client-proxy outbox append fail:%s", methodKey), e);
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * 发送线程，按写入顺序发送，发送成功或移到死信日志后确认
+     */
+    private void send() {
+        while (true) {
+            byte[] payload;
+            try {
+                payload = log.peek();
+            } catch (IOException e) {
+                logger.warn(String.format(">>>>>>>>>>>>>>>>>>rest-client-proxy outbox read fail:%s", methodKey), e);
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(retryMillis));
+                continue;
+            }
+            if (null == payload) {
+                waiting = true;
+                if (!log.hasMore()) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                waiting = false;
+                continue;
+            }
+            deliver(payload);
+            log.ack(payload);
+        }
+    }
+
+    /**
+     * 发送一条记录，失败时退避重试，超过最多发送次数或最长保留时间时移到死信日志
+     *
+     * @param payload 记录
+     */
+    @SuppressWarnings("unchecked")
+    private void deliver(byte[] payload) {
+        long time;
+        String callUrl;
+        HttpMethod httpMethod;
+        HttpEntity<?> httpEntity;
+        try {
+            Map<String, Object> record = JSON.parseObject(new String(payload, StandardCharsets.UTF_8), Map.class,
+                    Feature.OrderedField);
+            HttpHeaders headers = new HttpHeaders();
+            Map<String, Object> headerMap = (Map<String, Object>) record.get(HEADERS);
+            if (null != headerMap) {
+                headerMap.forEach((name, values) -> {
+                    List<String> headerValues = new ArrayList<>();
+                    for (Object value : (List<Object>) values) {
+                        headerValues.add(String.valueOf(value));
+                    }
+                    headers.put(name, headerValues);
+                });
+            }
+            String body = (String) record.get(BODY);
+            //没有写入时间的记录从现在开始计算
+            time = record.get(TIME) instanceof Number
+                    ? ((Number) record.get(TIME)).longValue() : System.currentTimeMillis();
+            callUrl = (String) record.get(URL);
+            httpMethod = HttpMethod.valueOf((String) record.get(METHOD));
+            httpEntity = new HttpEntity<>(null == body ? null : JSON.parse(body, Feature.OrderedField), headers);
+        } catch (RuntimeException e) {
+            deadLetter(payload, e);
+            return;
+        }
+        long expireAt = maxAgeMillis > 0 ? time + maxAgeMillis : Long.MAX_VALUE;
+        long backoff = retryMillis;
+        int attempts = 0;
+        while (true) {
+            //方法执行计划在代理创建后才有
+            MethodPlan plan = factory.getMethodPlan(methodKey);
+            Exception failure = null;
+            if (null != plan && factory.hasRestTemplateClient()) {
+                attempts++;
+                try {
+                    Invoker.deliver(plan, callUrl, httpMethod, httpEntity);
+                    sentCalls.increment();
+                    return;
+                } catch (HttpClientErrorException e) {
+                    //请求本身有问题，重试也不会成功
+                    deadLetter(payload, e);
+                    return;
+                } catch (Exception e) {
+                    failure = e;
+                }
+            }
+            long now = System.currentTimeMillis();
+            if ((maxAttempts > 0 && attempts >= maxAttempts) || now >= expireAt) {
+                deadLetter(payload, failure);
+                return;
+            }
+            if (null != failure) {
+                long retried = retriedCalls.incrementAndGet();
+                if ((retried & (retried - 1)) == 0) {
+                    logger.warn(String.format(">>>>>>>>>>>>>>>>>>rest-client-proxy outbox %s retries, next in %sms:%s",
+                            retried, backoff, methodKey), failure);
+                }
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Math.min(backoff, expireAt - now)));
+            backoff = Math.min(maxRetryMillis, backoff * 2);
+        }
+    }
+
+    /**
+     * 不再重试，移到死信日志，死信日志已满时丢弃
+     *
+     * @param payload 记录
+     * @param e       最后一次的异常，未发送过为null
+     */
+    private void deadLetter(byte[] payload, Exception e) {
+        long failed = failedCalls.incrementAndGet();
+        boolean kept;
+        try {
+            kept = deadLetters.append(payload);
+        } catch (IOException ex) {
+            kept = false;
+        }
+        logger.warn(String.format(">>>>>>>>>>>>>>>>>>rest-client-proxy outbox %s calls failed, %s:%s",
+                failed, kept ? "moved to dead letter log" : "dead letter log is full, discarded", methodKey), e);
+    }
+
+    public String getName() {
+        return methodKey;
+    }
+
+    /**
+     * 日志中未确认的调用数
+     *
+     * @return long
+     */
+    public long getPendingCalls() {
+        return log.pending();
+    }
+
+    /**
+     * 累计发送成功数
+     *
+     * @return long
+     */
+    public long getSentCalls() {
+        return sentCalls.sum();
+    }
+
+    /**
+     * 累计不再重试数(移到死信日志或死信日志已满丢弃)
+     *
+     * @return long
+     */
+    public long getFailedCalls() {
+        return failedCalls.get();
+    }
+
+    /**
+     * 死信日志中的调用数
+     *
+     * @return long
+     */
+    public long getDeadLetters() {
+        return deadLetters.pending();
+    }
+
+    /**
+     * 累计重试次数
+     *
+     * @return long
+     */
+    public long getRetriedCalls() {
+        return retriedCalls.get();
+    }
+
+    /**
+     * 累计写入失败数(改为同步调用)
+     *
+     * @return long
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+}
@@ -0,0 +1,299 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.metrics.RestClientMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 发送后不等待
+ * <br>调用在调用线程上编码成url和请求实体后放入有界队列直接返回，之后修改参数不影响发送；后台线程取出后发送；
+ * 配置批量方法时只放入key参数，一次取出的调用按参数合并成一次批量调用。
+ * 队列满时丢弃，发送失败不重试，丢弃数和失败数可通过指标查看
+ */
+public final class FireAndForgetQueue {
+
+    private static Logger logger = LoggerFactory.getLogger(FireAndForgetQueue.class);
+
+    private static ClientCacheFactory factory = ClientCacheFactory.getInstance();
+
+    private static final String THREAD_NAME = "rest-client-fire-";
+
+    private static final long SHUTDOWN_MILLIS = 1000L;
+
+    private static final long SHUTDOWN_PARK_MILLIS = 10L;
+
+    private static final AtomicLong threadNumber = new AtomicLong();
+
+    private final String methodKey;
+
+    private final String bulkMethodKey;
+
+    private final Class<?> bulkParameterType;
+
+    private final int maxBatchSize;
+
+    private final int capacity;
+
+    private final int workers;
+
+    private final BlockingQueue<Call> queue;
+
+    private final LongAdder sentCalls = new LongAdder();
+
+    private final AtomicLong droppedCalls = new AtomicLong();
+
+    private final AtomicLong failedCalls = new AtomicLong();
+
+    private volatile boolean started;
+
+    /**
+     * 逐个发送
+     *
+     * @param methodKey 方法key
+     * @param queueSize 队列大小
+     * @param workers   发送线程数
+     */
+    public FireAndForgetQueue(String methodKey, int queueSize, int workers) {
+        this(methodKey, queueSize, workers, null, null, 1);
+    }
+
+    /**
+     * 合并成批量调用发送
+     *
+     * @param methodKey         方法key
+     * @param queueSize         队列大小
+     * @param workers           发送线程数
+     * @param bulkMethodKey     批量方法key，为null时逐个发送
+     * @param bulkParameterType 批量方法参数类型
+     * @param maxBatchSize      最大批量大小
+     */
+    public FireAndForgetQueue(String methodKey, int queueSize, int workers,
+                              String bulkMethodKey, Class<?> bulkParameterType, int maxBatchSize) {
+        this.methodKey = methodKey;
+        this.bulkMethodKey = bulkMethodKey;
+        this.bulkParameterType = bulkParameterType;
+        this.maxBatchSize = null == bulkMethodKey ? 1 : Math.max(1, maxBatchSize);
+        this.capacity = Math.max(1, queueSize);
+        this.workers = Math.max(1, workers);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        RestClientMetrics.getInstance().registerFireAndForget(this);
+    }
+
+    /**
+     * 编码后放入队列，不等待发送
+     *
+     * @param plan    方法执行计划
+     * @param encoder 请求编码
+     * @param args    方法参数
+     * @return boolean 队列满被丢弃或编码失败返回false
+     */
+    public boolean submit(MethodPlan plan, RequestEncoder encoder, Object[] args) {
+        if (!started) {
+            start();
+        }
+        Call call;
+        if (null != bulkMethodKey) {
+            call = new Call(null, null, args[0]);
+        } else if (null == plan.getHttpMethod()) {
+            return true;
+        } else {
+            try {
+                call = new Call(encoder.encodeURL(plan, args), encoder.encodeHttpEntity(plan, args), null);
+            } catch (Exception e) {
+                fail(1, e);
+                return false;
+            }
+        }
+        if (queue.offer(call)) {
+            return true;
+        }
+        long dropped = droppedCalls.incrementAndGet();
+        //按2的幂次告警，避免队列满时刷屏
+        if ((dropped & (dropped - 1)) == 0) {
+            logger.warn(">>>>>>>>>>>>>>>>>>rest-client-proxy fire and forget queue is full, {} calls dropped:{}",
+                    dropped, methodKey);
+        }
+        return false;
+    }
+
+    /**
+     * 首次放入时启动发送线程
+     */
+    private synchronized void start() {
+        if (started) {
+            return;
+        }
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::work, THREAD_NAME + threadNumber.incrementAndGet());
+            worker.setDaemon(true);
+            worker.start();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, THREAD_NAME + "shutdown"));
+        started = true;
+    }
+
+    /**
+     * 发送线程，等待第一个调用后取出已排队的调用，最多 maxBatchSize 个
+     */
+    private void work() {
+        List<Call> calls = new ArrayList<>(maxBatchSize);
+        while (true) {
+            try {
+                calls.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(calls, maxBatchSize - 1);
+            try {
+                if (null == bulkMethodKey) {
+                    calls.forEach(this::send);
+                } else {
+                    sendBatch(calls);
+                }
+            } finally {
+                calls.clear();
+            }
+        }
+    }
+
+    /**
+     * 逐个发送
+     *
+     * @param call 调用
+     */
+    private void send(Call call) {
+        try {
+            MethodPlan plan = factory.getMethodPlan(methodKey);
+            Invoker.deliver(plan, call.callUrl, plan.getHttpMethod(), call.httpEntity);
+            sentCalls.increment();
+        } catch (Exception e) {
+            fail(1, e);
+        }
+    }
+
+    /**
+     * 按参数合并成一次批量调用发送
+     *
+     * @param calls 调用
+     */
+    private void sendBatch(List<Call> calls) {
+        List<Object> keys = new ArrayList<>(calls.size());
+        for (Call call : calls) {
+            keys.add(call.key);
+        }
+        try {
+            Invoker.deliver(factory.getMethodPlan(bulkMethodKey), GenericRequestEncoder.getInstance(),
+                    new Object[]{MicroBatcher.bulkArgument(bulkParameterType, keys)});
+            sentCalls.add(calls.size());
+            if (logger.isDebugEnabled()) {
+                logger.debug(">>>>>>>>>>>>>>>>>>rest-client-proxy fire and forget {} calls into {}",
+                        calls.size(), bulkMethodKey);
+            }
+        } catch (Exception e) {
+            fail(calls.size(), e);
+        }
+    }
+
+    /**
+     * 发送失败
+     *
+     * @param count 调用数
+     * @param e     异常
+     */
+    private void fail(int count, Exception e) {
+        long failed = failedCalls.addAndGet(count);
+        //按2的幂次告警，避免下游不可用时刷屏
+        if (Long.highestOneBit(failed) > Long.highestOneBit(failed - count)) {
+            logger.warn(String.format(">>>>>>>>>>>>>>>>>>rest-client-proxy fire and forget %s calls failed:%s",
+                    failed, methodKey), e);
+        }
+    }
+
+    /**
+     * 停止前等待队列发送完
+     */
+    private void shutdown() {
+        long end = System.currentTimeMillis() + SHUTDOWN_MILLIS;
+        while (!queue.isEmpty() && System.currentTimeMillis() < end) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(SHUTDOWN_PARK_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public String getName() {
+        return methodKey;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 队列中等待发送的调用数
+     *
+     * @return int
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * 累计发送成功数，合并发送时按合并前的调用数计
+     *
+     * @return long
+     */
+    public long getSentCalls() {
+        return sentCalls.sum();
+    }
+
+    /**
+     * 累计队列满丢弃数
+     *
+     * @return long
+     */
+    public long getDroppedCalls() {
+        return droppedCalls.get();
+    }
+
+    /**
+     * 累计发送失败数
+     *
+     * @return long
+     */
+    public long getFailedCalls() {
+        return failedCalls.get();
+    }
+
+    /**
+     * 排队的调用，逐个发送时是编码后的请求，合并发送时是key参数
+     */
+    private static class Call {
+
+        private final String callUrl;
+
+        private final HttpEntity<?> httpEntity;
+
+        private final Object key;
+
+        Call(String callUrl, HttpEntity<?> httpEntity, Object key) {
+            this.callUrl = callUrl;
+            this.httpEntity = httpEntity;
+            this.key = key;
+        }
+    }
+}
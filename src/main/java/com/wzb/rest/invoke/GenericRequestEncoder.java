@@ -0,0 +1,40 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.exception.FileException;
+import org.springframework.http.HttpEntity;
+
+/**
+ * 通用请求编码
+ * <br>运行时按参数类型分支处理，生成的专用编码继承此类并覆盖需要专用化的部分
+ */
+public class GenericRequestEncoder implements RequestEncoder {
+
+    private static GenericRequestEncoder encoder = new GenericRequestEncoder();
+
+    /**
+     * init
+     */
+    protected GenericRequestEncoder() {
+
+    }
+
+    /**
+     * 获取实例
+     *
+     * @return {@link GenericRequestEncoder}
+     */
+    public static GenericRequestEncoder getInstance() {
+        return encoder;
+    }
+
+    @Override
+    public String encodeURL(MethodPlan plan, Object[] args) {
+        return Invoker.generateURL(plan, args);
+    }
+
+    @Override
+    public HttpEntity<?> encodeHttpEntity(MethodPlan plan, Object[] args) throws FileException {
+        return Invoker.buildHttpEntity(plan, args);
+    }
+}
@@ -0,0 +1,254 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.client.CancellationToken;
+import com.wzb.rest.exception.DeadlineExceededException;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对冲请求
+ * <br>首次请求在调用线程上执行，超过延迟时间未响应时在异步执行器上再发一次相同的请求，先成功的生效，另一个中止；
+ * 未配置延迟时间时按最近 {@value #WINDOW} 次调用的响应时间(从首次请求开始，调用方看到的耗时)的 p95
+ */
+public final class HedgePolicy {
+
+    private static ClientCacheFactory factory = ClientCacheFactory.getInstance();
+
+    /**
+     * 响应时间采样窗口
+     */
+    private static final int WINDOW = 128;
+
+    /**
+     * 计算 p95 需要的最少样本数
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * 每隔多少个样本重新计算 p95
+     */
+    private static final int REFRESH_SAMPLES = 16;
+
+    private final long delayMillis;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    private final LongAdder hedgedCalls = new LongAdder();
+
+    private volatile long p95Millis = -1L;
+
+    /**
+     * 对冲请求
+     *
+     * @param delayMillis 延迟时间(毫秒)，小于等于 0 时使用观测到的 p95
+     */
+    public HedgePolicy(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * 执行调用，超过延迟时间再发一次
+     * <br>首次请求失败后等待对冲请求，等待时间不超过调用截止时间
+     *
+     * @param call 调用
+     * @param <T>  泛型
+     * @return {@link T}
+     * @throws Exception 两次调用都失败时抛出最后一次的异常
+     */
+    public <T> T execute(Callable<T> call) throws Exception {
+        long start = System.currentTimeMillis();
+        long delay = getDelayMillis();
+        //样本不足，直接调用
+        if (delay < 0) {
+            T response = call.call();
+            record(System.currentTimeMillis() - start);
+            return response;
+        }
+        Executor executor = null == factory.getAsyncExecutor()
+                ? RestClientExecutors.defaultExecutor()
+                : factory.getAsyncExecutor();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger();
+        Attempt<T> primary = new Attempt<>(call, result, running);
+        Attempt<T> backup = new Attempt<>(call, result, running);
+        long deadline = RestClientDeadline.current();
+        //先完成的生效，中止另一个
+        result.whenComplete((response, throwable) -> {
+            primary.cancel();
+            backup.cancel();
+        });
+        ScheduledFuture<?> timer = RestClientExecutors.scheduler().schedule(() -> {
+            if (!result.isDone() && backup.launch(executor, deadline)) {
+                hedgedCalls.increment();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        try {
+            primary.runInline();
+            T response = await(result);
+            record(System.currentTimeMillis() - start);
+            return response;
+        } finally {
+            timer.cancel(false);
+            primary.cancel();
+            backup.cancel();
+        }
+    }
+
+    /**
+     * 等待结果，首次请求失败时对冲请求可能还在执行，等待时间不超过调用截止时间
+     *
+     * @param result 结果
+     * @param <T>    泛型
+     * @return {@link T}
+     * @throws Exception 调用异常
+     */
+    private static <T> T await(CompletableFuture<T> result) throws Exception {
+        try {
+            long remaining = RestClientDeadline.remainingMillis();
+            if (remaining == Long.MAX_VALUE) {
+                return result.get();
+            }
+            return result.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("deadline exceeded waiting for hedged call");
+        }
+    }
+
+    /**
+     * 发出对冲请求的延迟时间
+     *
+     * @return long 小于 0 表示样本不足不对冲
+     */
+    public long getDelayMillis() {
+        return delayMillis > 0 ? delayMillis : p95Millis;
+    }
+
+    public long getHedgedCalls() {
+        return hedgedCalls.sum();
+    }
+
+    /**
+     * 记录响应时间
+     *
+     * @param costMillis 响应时间(毫秒)
+     */
+    private void record(long costMillis) {
+        long count = sampleCount.incrementAndGet();
+        samples.set((int) ((count - 1) % WINDOW), costMillis);
+        if (delayMillis <= 0 && count >= MIN_SAMPLES && count % REFRESH_SAMPLES == 0) {
+            int size = (int) Math.min(count, WINDOW);
+            long[] snapshot = new long[size];
+            for (int i = 0; i < size; i++) {
+                snapshot[i] = samples.get(i);
+            }
+            Arrays.sort(snapshot);
+            p95Millis = snapshot[(int) Math.ceil(size * 0.95D) - 1];
+        }
+    }
+
+    /**
+     * 一次调用，取消标记是调用线程取消标记的子标记，调用方取消时一起取消
+     *
+     * @param <T> 泛型
+     */
+    private final class Attempt<T> implements Runnable {
+
+        private final Callable<T> call;
+
+        private final CompletableFuture<T> result;
+
+        private final AtomicInteger running;
+
+        private final CancellationToken token;
+
+        Attempt(Callable<T> call, CompletableFuture<T> result, AtomicInteger running) {
+            this.call = call;
+            this.result = result;
+            this.running = running;
+            CancellationToken parent = CancellationToken.current();
+            this.token = null == parent ? new CancellationToken() : parent.newChild();
+        }
+
+        /**
+         * 在调用线程上执行
+         */
+        void runInline() {
+            running.incrementAndGet();
+            run();
+        }
+
+        /**
+         * 提交到执行器，沿用调用方的截止时间
+         *
+         * @param executor 执行器
+         * @param deadline 截止时间
+         * @return boolean 被拒绝且没有其他调用在执行时以拒绝异常结束
+         */
+        boolean launch(Executor executor, long deadline) {
+            running.incrementAndGet();
+            try {
+                executor.execute(() -> RestClientDeadline.callAt(deadline, () -> {
+                    run();
+                    return null;
+                }));
+                return true;
+            } catch (RejectedExecutionException e) {
+                fail(e);
+                return false;
+            }
+        }
+
+        @Override
+        public void run() {
+            if (token.isCancelled()) {
+                fail(new CancellationException("hedged call cancelled"));
+                return;
+            }
+            CancellationToken previous = CancellationToken.bind(token);
+            try {
+                result.complete(call.call());
+            } catch (Exception e) {
+                fail(e);
+            } finally {
+                CancellationToken.restore(previous);
+            }
+        }
+
+        /**
+         * 失败，最后一个在执行的调用失败时结束
+         *
+         * @param e 异常
+         */
+        private void fail(Exception e) {
+            if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * 取消，未开始的不再执行，执行中的断开连接
+         */
+        void cancel() {
+            token.cancel();
+            token.release();
+        }
+    }
+}
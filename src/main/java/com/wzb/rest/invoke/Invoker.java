@@ -1,16 +1,21 @@
 package com.wzb.rest.invoke;
 
 import com.alibaba.fastjson.JSON;
+import com.wzb.rest.cache.AsyncType;
 import com.wzb.rest.cache.ClientCacheFactory;
-import com.wzb.rest.cache.DynamicParameter;
+import com.wzb.rest.cache.MethodPlan;
 import com.wzb.rest.cache.ParameterSort;
+import com.wzb.rest.client.CancellationToken;
 import com.wzb.rest.client.RestTemplateClient;
+import com.wzb.rest.exception.BulkheadFullException;
+import com.wzb.rest.exception.DeadlineExceededException;
 import com.wzb.rest.exception.FileException;
+import com.wzb.rest.exception.LimitExceededException;
+import com.wzb.rest.exception.RateLimitedException;
 import com.wzb.rest.log.RestClientLog;
 import com.wzb.rest.cache.ParameterType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -19,6 +24,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
@@ -32,10 +39,15 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 /**
@@ -53,6 +65,15 @@ public final class Invoker {
 
     private static final int NOT_FOUND = -1;
 
+    static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * 合并同步调用，异步调用单独合并，异步执行时仍可与同步调用合并
+     */
+    private static final SingleFlight syncFlight = new SingleFlight();
+
+    private static final SingleFlight asyncFlight = new SingleFlight();
+
     /**
      * inti
      */
@@ -63,24 +84,127 @@ public final class Invoker {
     /**
      * 代理执行
      *
-     * @param methodKey  方法key
-     * @param args       方法参
-     * @param returnType 返回类型
+     * @param plan 方法执行计划
+     * @param args 方法参数
+     * @return {@link Object}
+     */
+    public static Object invoke(MethodPlan plan, Object[] args) {
+        return invoke(plan, GenericRequestEncoder.getInstance(), args);
+    }
+
+    /**
+     * 代理执行
+     *
+     * @param plan    方法执行计划
+     * @param encoder 请求编码
+     * @param args    方法参数
      * @return {@link Object}
      */
-    public static Object invoke(String methodKey, List<Object> args, Class<?> returnType) {
+    public static Object invoke(MethodPlan plan, RequestEncoder encoder, Object[] args) {
+        //并行调用中记录降级使用的方法
+        ScatterGather.recordPlan(plan);
+        //本地持久化后发送，写入失败时按其他方式调用
+        if (null != plan.getOutbox() && plan.getOutbox().append(plan, encoder, args)) {
+            return null;
+        }
+        //发送后不等待
+        if (null != plan.getFireAndForget()) {
+            plan.getFireAndForget().submit(plan, encoder, args);
+            return null;
+        }
+        //合并成批量调用
+        if (null != plan.getBatcher()) {
+            CompletableFuture<Object> future = plan.getBatcher().submit(args[0]);
+            return plan.getAsyncType() == AsyncType.FUTURE ? future : MicroBatcher.join(plan, future);
+        }
+        if (plan.getAsyncType() == AsyncType.FUTURE) {
+            return invokeAsync(plan, encoder, args);
+        }
+        if (plan.getAsyncType() == AsyncType.MONO || plan.getAsyncType() == AsyncType.FLUX) {
+            return ReactiveInvoker.invoke(plan, encoder, args);
+        }
+        return invokeSync(plan, encoder, args);
+    }
+
+    /**
+     * 异步执行，空响应和降级处理作用于完成值
+     *
+     * @param plan    方法执行计划
+     * @param encoder 请求编码
+     * @param args    方法参数
+     * @return {@link CompletableFuture}
+     */
+    private static CompletableFuture<Object> invokeAsync(MethodPlan plan, RequestEncoder encoder, Object[] args) {
+        if (plan.isCoalesce()) {
+            return asyncFlight.executeAsync(coalesceKey(plan, encoder.encodeURL(plan, args), args),
+                    () -> submitAsync(plan, encoder, args));
+        }
+        return submitAsync(plan, encoder, args);
+    }
+
+    /**
+     * 提交到异步执行器，返回的结果 cancel 时断开执行中的远程调用
+     *
+     * @param plan    方法执行计划
+     * @param encoder 请求编码
+     * @param args    方法参数
+     * @return {@link CompletableFuture}
+     */
+    private static CompletableFuture<Object> submitAsync(MethodPlan plan, RequestEncoder encoder, Object[] args) {
+        Executor executor = factory.getAsyncExecutor();
+        //执行线程沿用提交时的截止时间
+        long deadline = RestClientDeadline.current();
+        CancellableFuture<Object> future = new CancellableFuture<>();
+        try {
+            (null == executor ? RestClientExecutors.defaultExecutor() : executor).execute(() -> {
+                //执行前已取消
+                if (future.isDone()) {
+                    return;
+                }
+                CancellationToken previous = CancellationToken.bind(future.getToken());
+                try {
+                    future.complete(RestClientDeadline.callAt(deadline, () -> invokeSync(plan, encoder, args)));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    CancellationToken.restore(previous);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn(">>>>>>>>>>>>>>>>>>rest-client-proxy async invoke rejected:{}", plan.getMethodKey());
+            if (plan.hasFailBackResponse()) {
+                future.complete(plan.getFailBackResponse(e, e.getLocalizedMessage()));
+            } else {
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * 同步执行
+     *
+     * @param plan    方法执行计划
+     * @param encoder 请求编码
+     * @param args    方法参数
+     * @return {@link Object}
+     */
+    private static Object invokeSync(MethodPlan plan, RequestEncoder encoder, Object[] args) {
         long start = System.currentTimeMillis();
         //解析链接
-        HttpMethod httpMethod = factory.getMethodUrl(methodKey).getHttpMethod();
+        HttpMethod httpMethod = plan.getHttpMethod();
         //不识别请求类型
         if (null == httpMethod) {
             //mock
             return null;
         }
         //生成URL
-        String callUrl = generateURL(methodKey, args);
-        //远程调用
-        Object response = call(methodKey, callUrl, httpMethod, args, factory.getRestTemplateClient());
+        String callUrl = encoder.encodeURL(plan, args);
+        //远程调用，相同的并发请求合并
+        Object response = plan.isCoalesce()
+                ? syncFlight.execute(coalesceKey(plan, callUrl, args),
+                        () -> call(plan, encoder, callUrl, httpMethod, args, factory.getRestTemplateClient()))
+                : call(plan, encoder, callUrl, httpMethod, args, factory.getRestTemplateClient());
         if (logger.isDebugEnabled()) {
             logger.debug(">>>>>>>>>>>>>>>>>>rest-client-proxy invoke cost:{}(ms)", System.currentTimeMillis() - start);
         }
@@ -88,135 +212,78 @@ public final class Invoker {
     }
 
     /**
-     * 代理执行
+     * 合并请求key，方法key + url + header参数
      *
-     * @param methodKey 方法key
-     * @param args      方法参
+     * @param plan    方法执行计划
+     * @param callUrl 调用url
+     * @param args    方法参数
+     * @return {@link String}
      */
-    public static void invoke(String methodKey, List<Object> args) {
-        long start = System.currentTimeMillis();
-        //解析链接
-        HttpMethod httpMethod = factory.getMethodUrl(methodKey).getHttpMethod();
-        //识别请求类型
-        if (null != httpMethod) {
-            //生成URL
-            String callUrl = generateURL(methodKey, args);
-            //远程调用
-            call(methodKey, callUrl, httpMethod, args, factory.getRestTemplateClient());
-            if (logger.isDebugEnabled()) {
-                logger.debug(">>>>>>>>>>>>>>>>>>rest-client-proxy invoke cost:{}(ms)",
-                        System.currentTimeMillis() - start);
-            }
+    private static String coalesceKey(MethodPlan plan, String callUrl, Object[] args) {
+        StringBuilder key = new StringBuilder(plan.getMethodKey()).append(' ').append(callUrl);
+        for (ParameterSort sort : plan.getParameterSorts(ParameterType.HEADER)) {
+            key.append('\n').append(sort.getName()).append(':').append(convert(args[sort.getIndex()]));
         }
+        return key.toString();
     }
 
     /**
      * 生成url
      *
-     * @param methodKey 方法key
-     * @param args      方法参数
+     * @param plan 方法执行计划
+     * @param args 方法参数
      * @return {@link String}
      */
-    private static String generateURL(String methodKey, List<Object> args) {
-        //动态参数
-        List<DynamicParameter> dynamicParameterList = factory.getDynamicParameter(methodKey);
-        if (!factory.hasParameterSort(methodKey) || factory.getParameterSort(methodKey).isEmpty()) {
-            //处理URL动态参数
-            return parameterReplacePlaceholder(dynamicParameterList);
-        }
-        //param参数
-        List<ParameterSort> parameterSortList = factory.getParameterSortByParameterType(methodKey, ParameterType.PARAM);
-        //url动态参数
-        List<ParameterSort> pathParameterSortList = factory.getParameterSortByParameterType(methodKey, ParameterType.PATH);
+    static String generateURL(MethodPlan plan, Object[] args) {
         //处理URL动态参数
-        String newUrl = parameterReplacePlaceholder(dynamicParameterList, pathParameterSortList, args);
+        String[] urlSegments = plan.getUrlSegments();
+        int[] urlVariableIndexes = plan.getUrlVariableIndexes();
+        StringBuilder url = new StringBuilder();
+        for (int i = 0; i < urlSegments.length; i++) {
+            url.append(urlSegments[i]);
+            if (urlVariableIndexes[i] > NOT_FOUND) {
+                url.append(convert(args[urlVariableIndexes[i]], ""));
+            }
+        }
         //param参数拼接
         StringBuilder parameter = new StringBuilder();
         //参数拼接到url里
-        parameterSortList.forEach(sort -> {
-            Object parameterValue = args.get(sort.getIndex());
+        for (ParameterSort sort : plan.getParameterSorts(ParameterType.PARAM)) {
+            Object parameterValue = args[sort.getIndex()];
             if (null != parameterValue) {
                 if (parameter.length() > 0) {
                     parameter.append("&");
                 }
                 parameter.append(sort.getName()).append("=").append(convert(parameterValue));
             }
-        });
-        if (factory.hasPath(methodKey)) {
+        }
+        if (plan.hasPath()) {
             if (parameter.length() > 0) {
                 parameter.append("&");
             }
-            parameter.append("path=").append(factory.getPath(methodKey));
-        }
-        if (parameter.length() == 0) {
-            return newUrl;
-        }
-        if (!newUrl.contains("?")) {
-            return newUrl.concat("?").concat(parameter.toString());
-        }
-        if (newUrl.endsWith("&")) {
-            return newUrl.concat(parameter.toString());
+            parameter.append("path=").append(plan.getPath());
         }
-        return newUrl.concat("&").concat(parameter.toString());
+        return appendParameter(url, parameter);
     }
 
     /**
-     * 参数替换占位符
+     * 拼接param参数到url
      *
-     * @param dynamicParameterList 动态参数表
+     * @param url       url
+     * @param parameter param参数
      * @return {@link String}
      */
-    private static String parameterReplacePlaceholder(List<DynamicParameter> dynamicParameterList) {
-        return parameterReplacePlaceholder(dynamicParameterList, null, null);
-    }
-
-    /**
-     * 参数替换占位符
-     *
-     * @param dynamicParameterList 动态参数表
-     * @param parameterSortList    参数排序列表
-     * @param args                 方法参数
-     * @return {@link String}
-     */
-    private static String parameterReplacePlaceholder(List<DynamicParameter> dynamicParameterList,
-                                                      List<ParameterSort> parameterSortList,
-                                                      List<Object> args) {
-        StringBuilder url = new StringBuilder();
-        dynamicParameterList.forEach(dynamicParameter -> {
-            url.append(dynamicParameter.getSubURL());
-            String dynamicParameterName = dynamicParameter.getName();
-            if (null != dynamicParameterName) {
-                String dynamicParameterValue = findDynamicParameterValue(dynamicParameterName,
-                        parameterSortList, args);
-                url.append(dynamicParameterValue);
-            }
-        });
-        return url.toString();
-    }
-
-    /**
-     * 找到动态参数值
-     *
-     * @param dynamicParameterName 动态参数名称
-     * @param parameterSortList    参数排序列表
-     * @param args                 方法参数
-     * @return {@link String}
-     */
-    private static String findDynamicParameterValue(String dynamicParameterName,
-                                                    List<ParameterSort> parameterSortList,
-                                                    List<Object> args) {
-        if (null == parameterSortList || parameterSortList.isEmpty()) {
-            return "";
-        }
-        //参数名相同
-        Optional<ParameterSort> optional = parameterSortList.stream()
-                .filter(sort -> Objects.equals(sort.getName(), dynamicParameterName)).findFirst();
-        if (optional.isPresent()) {
-            ParameterSort sort = optional.get();
-            Object value = args.get(sort.getIndex());
-            return convert(value, "");
-        }
-        return "";
+    public static String appendParameter(StringBuilder url, CharSequence parameter) {
+        if (parameter.length() == 0) {
+            return url.toString();
+        }
+        if (url.indexOf("?") < 0) {
+            return url.append("?").append(parameter).toString();
+        }
+        if (url.charAt(url.length() - 1) == '&') {
+            return url.append(parameter).toString();
+        }
+        return url.append("&").append(parameter).toString();
     }
 
     /**
@@ -225,7 +292,7 @@ public final class Invoker {
      * @param parameter 类型
      * @return 结果
      */
-    private static String convert(Object parameter) {
+    public static String convert(Object parameter) {
         return convert(parameter, null);
     }
 
@@ -236,7 +303,7 @@ public final class Invoker {
      * @param nullDefault 空默认值
      * @return 结果
      */
-    private static String convert(Object parameter, String nullDefault) {
+    public static String convert(Object parameter, String nullDefault) {
         if (Objects.isNull(parameter)) {
             return nullDefault;
         }
@@ -292,131 +359,415 @@ public final class Invoker {
     /**
      * 调用
      *
-     * @param methodKey    方法key
+     * @param plan         方法执行计划
+     * @param encoder      请求编码
      * @param callUrl      调用url
      * @param httpMethod   http方法
      * @param args         方法参数
      * @param restTemplate 请求模板
      * @return Response
      */
-    private static Object call(String methodKey,
+    private static Object call(MethodPlan plan,
+                               RequestEncoder encoder,
                                String callUrl,
                                HttpMethod httpMethod,
-                               List<Object> args,
+                               Object[] args,
                                RestTemplateClient restTemplate) {
         Object response = null;
         ResponseEntity<?> responseEntity;
         HttpEntity<?> httpEntity = null;
-        Class<?> responseClass = factory.getResponseClass(methodKey).get(0);
         try {
-            httpEntity = buildHttpEntity(factory, methodKey, args);
+            httpEntity = encoder.encodeHttpEntity(plan, args);
             long ii = System.currentTimeMillis();
-            responseEntity = restTemplate.exchange(new URI(callUrl), httpMethod, httpEntity,
-                    buildParameterizedTypeReference(methodKey));
+            responseEntity = exchange(plan, callUrl, httpMethod, httpEntity, restTemplate);
             response = responseEntity.getBody();
             //接口返回空
-            if (null == response) {
-                if (factory.hasNullResponseMethod(responseClass)) {
-                    //使用配置的空响应方法
-                    response = factory.getNullResponse(responseClass, callUrl);
-                } else if (factory.hasNullResponse(responseClass)) {
-                    //使用配置的空响应
-                    response = factory.getNullResponse(responseClass);
-                }
-            }
-            if (factory.hasLogBackMethod()) {
-                factory.invokeLogBackMethod(RestClientLog.builder()
-                        .url(callUrl)
-                        .method(httpMethod)
-                        .parameter(httpEntity)
-                        .response(response)
-                        .speedTime(System.currentTimeMillis() - ii)
-                        .multipart(MediaType.MULTIPART_FORM_DATA.equals(httpEntity.getHeaders().getContentType()))
-                        .build());
+            if (null == response && plan.hasNullResponse()) {
+                //使用配置的空响应
+                response = plan.getNullResponse(callUrl);
             }
+            logBack(callUrl, httpMethod, httpEntity, response, null, System.currentTimeMillis() - ii);
         } catch (Exception e) {
-            if (factory.hasLogBackMethod()) {
-                factory.invokeLogBackMethod(RestClientLog.builder()
-                        .url(callUrl)
-                        .method(httpMethod)
-                        .parameter(httpEntity)
-                        .response(response)
-                        .throwable(e)
-                        .multipart(null != httpEntity && MediaType.MULTIPART_FORM_DATA
-                                .equals(httpEntity.getHeaders().getContentType()))
-                        .build());
-            }
+            logBack(callUrl, httpMethod, httpEntity, response, e, 0L);
             //异常降级处理
-            if (factory.hasFailBackResponseMethod(responseClass)) {
-                response = factory.getFailBackResponse(responseClass, e, e.getLocalizedMessage());
-            } else if (factory.hasFailBackResponse(responseClass)) {
-                response = factory.getFailBackResponse(responseClass);
+            if (plan.hasFailBackResponse()) {
+                response = plan.getFailBackResponse(e, e.getLocalizedMessage());
             }
         }
         return response;
     }
 
     /**
-     * 构建参数化类型引用
+     * 在当前线程上发送，不处理空响应和降级，异常抛给调用方
      *
-     * @param methodKey 方法键
-     * @return {@link ParameterizedTypeReference}
+     * @param plan    方法执行计划
+     * @param encoder 请求编码
+     * @param args    方法参数
+     * @return {@link Object} 响应
+     * @throws Exception 调用异常
      */
-    private static ParameterizedTypeReference<?> buildParameterizedTypeReference(String methodKey) {
-        return ParameterizedTypeReference.forType(factory.getReturnType(methodKey));
+    static Object deliver(MethodPlan plan, RequestEncoder encoder, Object[] args) throws Exception {
+        HttpMethod httpMethod = plan.getHttpMethod();
+        if (null == httpMethod) {
+            return null;
+        }
+        String callUrl = encoder.encodeURL(plan, args);
+        HttpEntity<?> httpEntity;
+        try {
+            httpEntity = encoder.encodeHttpEntity(plan, args);
+        } catch (Exception e) {
+            logBack(callUrl, httpMethod, null, null, e, 0L);
+            throw e;
+        }
+        return deliver(plan, callUrl, httpMethod, httpEntity);
+    }
+
+    /**
+     * 发送已编码的请求，不处理空响应和降级，异常抛给调用方
+     *
+     * @param plan       方法执行计划
+     * @param callUrl    调用url
+     * @param httpMethod http方法
+     * @param httpEntity 请求实体
+     * @return {@link Object} 响应
+     * @throws Exception 调用异常
+     */
+    static Object deliver(MethodPlan plan, String callUrl, HttpMethod httpMethod, HttpEntity<?> httpEntity)
+            throws Exception {
+        try {
+            long ii = System.currentTimeMillis();
+            ResponseEntity<?> responseEntity = exchange(plan, callUrl, httpMethod, httpEntity,
+                    factory.getRestTemplateClient());
+            Object response = responseEntity.getBody();
+            logBack(callUrl, httpMethod, httpEntity, response, null, System.currentTimeMillis() - ii);
+            return response;
+        } catch (Exception e) {
+            logBack(callUrl, httpMethod, httpEntity, null, e, 0L);
+            throw e;
+        }
+    }
+
+    /**
+     * 调用日志
+     *
+     * @param callUrl    调用url
+     * @param httpMethod http方法
+     * @param httpEntity 请求实体
+     * @param response   响应
+     * @param throwable  异常
+     * @param speedTime  耗时(毫秒)
+     */
+    private static void logBack(String callUrl,
+                                HttpMethod httpMethod,
+                                HttpEntity<?> httpEntity,
+                                Object response,
+                                Throwable throwable,
+                                long speedTime) {
+        if (!factory.hasLogBackMethod()) {
+            return;
+        }
+        factory.invokeLogBackMethod(RestClientLog.builder()
+                .url(callUrl)
+                .method(httpMethod)
+                .parameter(httpEntity)
+                .response(response)
+                .speedTime(speedTime)
+                .throwable(throwable)
+                .multipart(null != httpEntity && MediaType.MULTIPART_FORM_DATA
+                        .equals(httpEntity.getHeaders().getContentType()))
+                .build());
+    }
+
+    /**
+     * 远程调用，配置整体超时时间时从这里开始计算截止时间，限流和舱壁的等待、请求共用；
+     * 到截止时间时取消调用，中止执行中的请求
+     *
+     * @param plan         方法执行计划
+     * @param callUrl      调用url
+     * @param httpMethod   http方法
+     * @param httpEntity   请求实体
+     * @param restTemplate 请求模板
+     * @return {@link ResponseEntity}
+     * @throws Exception 调用异常
+     */
+    private static ResponseEntity<?> exchange(MethodPlan plan,
+                                              String callUrl,
+                                              HttpMethod httpMethod,
+                                              HttpEntity<?> httpEntity,
+                                              RestTemplateClient restTemplate) throws Exception {
+        URI uri = new URI(callUrl);
+        if (plan.getTimeout() < 0) {
+            return rateLimit(plan, uri, httpMethod, httpEntity, restTemplate);
+        }
+        long previousDeadline = RestClientDeadline.start(plan.getTimeout());
+        CancellationToken parent = CancellationToken.current();
+        CancellationToken token = null == parent ? new CancellationToken() : parent.newChild();
+        CancellationToken previous = CancellationToken.bind(token);
+        ScheduledFuture<?> timer = RestClientExecutors.scheduler()
+                .schedule(token::cancel, RestClientDeadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        try {
+            return rateLimit(plan, uri, httpMethod, httpEntity, restTemplate);
+        } catch (Exception e) {
+            if (token.isCancelled() && (null == parent || !parent.isCancelled())) {
+                throw new DeadlineExceededException(String.format("deadline exceeded calling %s", uri));
+            }
+            throw e;
+        } finally {
+            timer.cancel(false);
+            CancellationToken.restore(previous);
+            token.release();
+            RestClientDeadline.restore(previousDeadline);
+        }
+    }
+
+    /**
+     * 配置限流时先获取令牌
+     *
+     * @param plan         方法执行计划
+     * @param uri          调用url
+     * @param httpMethod   http方法
+     * @param httpEntity   请求实体
+     * @param restTemplate 请求模板
+     * @return {@link ResponseEntity}
+     * @throws Exception 调用异常
+     */
+    private static ResponseEntity<?> rateLimit(MethodPlan plan,
+                                               URI uri,
+                                               HttpMethod httpMethod,
+                                               HttpEntity<?> httpEntity,
+                                               RestTemplateClient restTemplate) throws Exception {
+        RateLimitPolicy rateLimit = plan.getRateLimit();
+        if (null == rateLimit) {
+            return bulkhead(plan, uri, httpMethod, httpEntity, restTemplate);
+        }
+        TokenBucket bucket = rateLimit.bucket(uri);
+        if (!bucket.acquire()) {
+            throw new RateLimitedException(String.format("rate limit[%s] exceeded", bucket.getName()));
+        }
+        try {
+            return bulkhead(plan, uri, httpMethod, httpEntity, restTemplate);
+        } catch (HttpStatusCodeException e) {
+            //下游限流，按 Retry-After 暂停发放令牌
+            if (e.getRawStatusCode() == TOO_MANY_REQUESTS) {
+                bucket.pause(TokenBucket.retryAfterMillis(e.getResponseHeaders()));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 配置舱壁时先获取许可
+     *
+     * @param plan         方法执行计划
+     * @param uri          调用url
+     * @param httpMethod   http方法
+     * @param httpEntity   请求实体
+     * @param restTemplate 请求模板
+     * @return {@link ResponseEntity}
+     * @throws Exception 调用异常
+     */
+    private static ResponseEntity<?> bulkhead(MethodPlan plan,
+                                              URI uri,
+                                              HttpMethod httpMethod,
+                                              HttpEntity<?> httpEntity,
+                                              RestTemplateClient restTemplate) throws Exception {
+        BulkheadLimiter bulkhead = plan.getBulkhead();
+        if (null == bulkhead) {
+            return limit(plan, uri, httpMethod, httpEntity, restTemplate);
+        }
+        if (!bulkhead.tryAcquire()) {
+            throw new BulkheadFullException(String.format("bulkhead[%s] is full", bulkhead.getName()));
+        }
+        try {
+            return limit(plan, uri, httpMethod, httpEntity, restTemplate);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * 配置自适应并发限制时按主机限制，超过限制直接拒绝，按响应时间调整限制
+     *
+     * @param plan         方法执行计划
+     * @param uri          调用url
+     * @param httpMethod   http方法
+     * @param httpEntity   请求实体
+     * @param restTemplate 请求模板
+     * @return {@link ResponseEntity}
+     * @throws Exception 调用异常
+     */
+    private static ResponseEntity<?> limit(MethodPlan plan,
+                                           URI uri,
+                                           HttpMethod httpMethod,
+                                           HttpEntity<?> httpEntity,
+                                           RestTemplateClient restTemplate) throws Exception {
+        AdaptiveLimitPolicy adaptiveLimit = plan.getAdaptiveLimit();
+        if (null == adaptiveLimit) {
+            return send(plan, uri, httpMethod, httpEntity, restTemplate);
+        }
+        AdaptiveLimiter limiter = adaptiveLimit.limiter(uri);
+        if (!limiter.tryAcquire()) {
+            throw new LimitExceededException(String.format("adaptive limit[%s] exceeded", limiter.getName()));
+        }
+        long start = System.nanoTime();
+        try {
+            ResponseEntity<?> responseEntity = send(plan, uri, httpMethod, httpEntity, restTemplate);
+            limiter.release(System.nanoTime() - start, false);
+            return responseEntity;
+        } catch (HttpStatusCodeException e) {
+            //下游有响应，按响应时间采样
+            limiter.release(System.nanoTime() - start, false);
+            throw e;
+        } catch (ResourceAccessException e) {
+            //超时或连接失败，降低限制
+            limiter.release(System.nanoTime() - start, true);
+            throw e;
+        } catch (Exception | Error e) {
+            limiter.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 发送请求，配置对冲时超过延迟再发一次
+     *
+     * @param plan         方法执行计划
+     * @param uri          调用url
+     * @param httpMethod   http方法
+     * @param httpEntity   请求实体
+     * @param restTemplate 请求模板
+     * @return {@link ResponseEntity}
+     * @throws Exception 调用异常
+     */
+    private static ResponseEntity<?> send(MethodPlan plan,
+                                          URI uri,
+                                          HttpMethod httpMethod,
+                                          HttpEntity<?> httpEntity,
+                                          RestTemplateClient restTemplate) throws Exception {
+        Callable<ResponseEntity<?>> exchange = exchangeCall(plan, uri, httpMethod, httpEntity, restTemplate);
+        HedgePolicy hedge = plan.getHedge();
+        if (null == hedge) {
+            return exchange.call();
+        }
+        return hedge.execute(exchange);
+    }
+
+    /**
+     * 远程调用，配置超时或有截止时间时连接和读取超时不超过剩余时间，剩余时间通过请求头传给下游；
+     * 可取消的调用(异步、对冲、并行调用)使用可断开连接的请求模板
+     *
+     * @param plan         方法执行计划
+     * @param uri          调用url
+     * @param httpMethod   http方法
+     * @param httpEntity   请求实体
+     * @param restTemplate 请求模板
+     * @return {@link Callable}
+     */
+    private static Callable<ResponseEntity<?>> exchangeCall(MethodPlan plan,
+                                                            URI uri,
+                                                            HttpMethod httpMethod,
+                                                            HttpEntity<?> httpEntity,
+                                                            RestTemplateClient restTemplate) {
+        long remaining = Math.min(RestClientDeadline.remainingMillis(),
+                plan.getTimeout() >= 0 ? plan.getTimeout() : Long.MAX_VALUE);
+        if (remaining == Long.MAX_VALUE && !plan.hasTimeout()) {
+            if (null == CancellationToken.current() && null == plan.getHedge()) {
+                return () -> restTemplate.exchange(uri, httpMethod, httpEntity, plan.getTypeReference());
+            }
+            return () -> restTemplate.exchange(uri, httpMethod, httpEntity, plan.getTypeReference(), -1, -1);
+        }
+        if (remaining <= 0) {
+            throw new DeadlineExceededException(String.format("deadline exceeded before calling %s", uri));
+        }
+        int connectTimeout = budget(plan.getConnectTimeout(), remaining);
+        int readTimeout = budget(plan.getReadTimeout(), remaining);
+        HttpEntity<?> requestEntity = remaining == Long.MAX_VALUE ? httpEntity : deadlineEntity(httpEntity, remaining);
+        return () -> restTemplate.exchange(uri, httpMethod, requestEntity, plan.getTypeReference(),
+                connectTimeout, readTimeout);
+    }
+
+    /**
+     * 超时时间不超过剩余时间
+     *
+     * @param timeout   配置的超时时间(毫秒)，小于 0 不设置，0 不超时
+     * @param remaining 剩余时间(毫秒)
+     * @return int
+     */
+    private static int budget(int timeout, long remaining) {
+        if (remaining == Long.MAX_VALUE) {
+            return timeout;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, timeout > 0 ? Math.min(timeout, remaining) : remaining);
+    }
+
+    /**
+     * 请求头加上剩余时间
+     *
+     * @param httpEntity 请求实体
+     * @param remaining  剩余时间(毫秒)
+     * @return {@link HttpEntity}
+     */
+    private static HttpEntity<?> deadlineEntity(HttpEntity<?> httpEntity, long remaining) {
+        HttpHeaders headers = new HttpHeaders();
+        if (null != httpEntity) {
+            headers.putAll(httpEntity.getHeaders());
+        }
+        headers.set(RestClientDeadline.HEADER, String.valueOf(remaining));
+        return new HttpEntity<>(null == httpEntity ? null : httpEntity.getBody(), headers);
     }
 
     /**
      * 构建HttpEntity
      *
-     * @param factory   缓存工厂
-     * @param methodKey 方法key
-     * @param args      方法参数
+     * @param plan 方法执行计划
+     * @param args 方法参数
      * @return HttpEntity<?>
      * @throws FileException 文件异常
      */
-    private static HttpEntity<?> buildHttpEntity(ClientCacheFactory factory,
-                                                 String methodKey,
-                                                 List<Object> args) throws FileException {
-        List<ParameterSort> fileParameterList = factory.getParameterSortByParameterType(methodKey, ParameterType.FILE);
-        HttpHeaders httpHeaders = buildHttpHeaders(factory, methodKey, args, !fileParameterList.isEmpty());
-        List<ParameterSort> requestBodyList = factory.getParameterSortByParameterType(methodKey, ParameterType.BODY);
-        List<ParameterSort> restRequestBodyList = factory.getParameterSortByParameterType(methodKey, ParameterType.REST);
+    static HttpEntity<?> buildHttpEntity(MethodPlan plan, Object[] args) throws FileException {
+        ParameterSort[] fileParameters = plan.getParameterSorts(ParameterType.FILE);
+        HttpHeaders httpHeaders = buildHttpHeaders(plan, args, fileParameters.length > 0);
+        ParameterSort[] requestBodies = plan.getParameterSorts(ParameterType.BODY);
+        ParameterSort[] restRequestBodies = plan.getParameterSorts(ParameterType.REST);
         HttpEntity<?> httpEntity;
-        if (!fileParameterList.isEmpty()) {
+        if (fileParameters.length > 0) {
             //文件组装
             MultiValueMap<String, Object> multiValueMap = new LinkedMultiValueMap<>();
-            for (ParameterSort sort : fileParameterList) {
-                multiValueMap.add(sort.getName(), buildByteArrayResource(args.get(sort.getIndex()), sort.getName()));
+            for (ParameterSort sort : fileParameters) {
+                multiValueMap.add(sort.getName(), buildByteArrayResource(args[sort.getIndex()], sort.getName()));
             }
             final Map<String, Object> requestMap = new HashMap<>();
             //多个requestBody组装成一个map
-            if (requestBodyList.size() > 1) {
-                requestBodyList.forEach(body -> requestMap.put(body.getName(), convert(args.get(body.getIndex()))));
-            } else if (!requestBodyList.isEmpty() && isNotBeanOrMap(requestBodyList.get(0).getClazz())) {
-                requestMap.put(requestBodyList.get(0).getName(), args.get(requestBodyList.get(0).getIndex()));
-            } else if (!requestBodyList.isEmpty()) {
-                requestMap.putAll(toMap(args.get(requestBodyList.get(0).getIndex())));
+            if (requestBodies.length > 1) {
+                for (ParameterSort body : requestBodies) {
+                    requestMap.put(body.getName(), convert(args[body.getIndex()]));
+                }
+            } else if (requestBodies.length == 1 && isNotBeanOrMap(requestBodies[0].getClazz())) {
+                requestMap.put(requestBodies[0].getName(), args[requestBodies[0].getIndex()]);
+            } else if (requestBodies.length == 1) {
+                requestMap.putAll(toMap(args[requestBodies[0].getIndex()]));
             }
             requestMap.forEach(multiValueMap::add);
             httpEntity = new HttpEntity<>(multiValueMap, httpHeaders);
-        } else if (requestBodyList.isEmpty()) {
-            if (!restRequestBodyList.isEmpty()) {
-                httpEntity = new HttpEntity<>(args.get(restRequestBodyList.get(0).getIndex()), httpHeaders);
+        } else if (requestBodies.length == 0) {
+            if (restRequestBodies.length > 0) {
+                httpEntity = new HttpEntity<>(args[restRequestBodies[0].getIndex()], httpHeaders);
             } else {
                 httpEntity = new HttpEntity<>(httpHeaders);
             }
-        } else if (requestBodyList.size() > 1) {
+        } else if (requestBodies.length > 1) {
             //多个requestBody组装成一个map
             final Map<String, Object> requestMap = new HashMap<>();
-            requestBodyList.forEach(body -> requestMap.put(body.getName(), args.get(body.getIndex())));
+            for (ParameterSort body : requestBodies) {
+                requestMap.put(body.getName(), args[body.getIndex()]);
+            }
             httpEntity = new HttpEntity<>(requestMap, httpHeaders);
-        } else if (isNotBeanOrMap(requestBodyList.get(0).getClazz())) {
+        } else if (isNotBeanOrMap(requestBodies[0].getClazz())) {
             Map<String, Object> bodyMap = new HashMap<>();
-            bodyMap.put(requestBodyList.get(0).getName(), args.get(requestBodyList.get(0).getIndex()));
+            bodyMap.put(requestBodies[0].getName(), args[requestBodies[0].getIndex()]);
             httpEntity = new HttpEntity<>(bodyMap, httpHeaders);
         } else {
-            Object singleBody = args.get(requestBodyList.get(0).getIndex());
+            Object singleBody = args[requestBodies[0].getIndex()];
             httpEntity = new HttpEntity<>(singleBody, httpHeaders);
         }
         return httpEntity;
@@ -425,15 +776,13 @@ public final class Invoker {
     /**
      * 生成http标头
      *
-     * @param factory   缓存工厂
-     * @param methodKey 方法key
-     * @param args      方法参数
-     * @param hasFile   有文件
+     * @param plan    方法执行计划
+     * @param args    方法参数
+     * @param hasFile 有文件
      * @return {@link HttpHeaders}
      */
-    private static HttpHeaders buildHttpHeaders(ClientCacheFactory factory,
-                                                String methodKey,
-                                                List<Object> args,
+    private static HttpHeaders buildHttpHeaders(MethodPlan plan,
+                                                Object[] args,
                                                 boolean hasFile) {
         HttpHeaders httpHeaders = new HttpHeaders();
         if (hasFile) {
@@ -442,10 +791,8 @@ public final class Invoker {
         } else {
             httpHeaders.setContentType(MediaType.APPLICATION_JSON_UTF8);
         }
-        List<ParameterSort> headerParameterSortList = factory.getParameterSortByParameterType(methodKey, ParameterType.HEADER);
-        if (!headerParameterSortList.isEmpty()) {
-            headerParameterSortList.forEach(sort ->
-                    httpHeaders.add(sort.getName(), convert(args.get(sort.getIndex()))));
+        for (ParameterSort sort : plan.getParameterSorts(ParameterType.HEADER)) {
+            httpHeaders.add(sort.getName(), convert(args[sort.getIndex()]));
         }
         return httpHeaders;
     }
@@ -456,7 +803,7 @@ public final class Invoker {
      * @param clazz 类型
      * @return boolean
      */
-    private static boolean isNotBeanOrMap(Class<?> clazz) {
+    public static boolean isNotBeanOrMap(Class<?> clazz) {
         return clazz.isArray() || clazz.isPrimitive() || clazz.isEnum()
                 || clazz.equals(Byte.class) || clazz.equals(Character.class)
                 || clazz.equals(Short.class) || clazz.equals(Integer.class)
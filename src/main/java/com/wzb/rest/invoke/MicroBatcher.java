@@ -0,0 +1,386 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.exception.DeadlineExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 批量合并
+ * <br>单个查询先进入待合并列表，时间窗口到期或达到批量大小时合并成一次批量方法调用，
+ * 批量调用在异步执行器上同步执行(不再嵌套异步调用)，结果按key拆分完成每个调用；
+ * 批量调用失败时每个调用按单个查询方法的降级处理
+ */
+public final class MicroBatcher {
+
+    private static Logger logger = LoggerFactory.getLogger(MicroBatcher.class);
+
+    private static ClientCacheFactory factory = ClientCacheFactory.getInstance();
+
+    private static final Object NO_ACCESSOR = new Object();
+
+    private final String methodKey;
+
+    private final String bulkMethodKey;
+
+    private final Class<?> bulkParameterType;
+
+    private final int maxSize;
+
+    private final long windowMillis;
+
+    private final String keyProperty;
+
+    private final Map<Class<?>, Object> keyAccessorMap = new ConcurrentHashMap<>();
+
+    private List<Pending> pendingList = new ArrayList<>();
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * 批量合并
+     *
+     * @param methodKey         单个查询方法key
+     * @param bulkMethodKey     批量方法key
+     * @param bulkParameterType 批量方法参数类型
+     * @param maxSize           最大批量大小
+     * @param windowMillis      时间窗口(毫秒)
+     * @param keyProperty       列表元素上与key匹配的属性
+     */
+    public MicroBatcher(String methodKey, String bulkMethodKey, Class<?> bulkParameterType,
+                        int maxSize, long windowMillis, String keyProperty) {
+        this.methodKey = methodKey;
+        this.bulkMethodKey = bulkMethodKey;
+        this.bulkParameterType = bulkParameterType;
+        this.maxSize = Math.max(1, maxSize);
+        this.windowMillis = Math.max(0L, windowMillis);
+        this.keyProperty = keyProperty;
+    }
+
+    /**
+     * 提交单个查询，key为空时不合并也不调用，直接按空响应处理
+     *
+     * @param key 查询key
+     * @return {@link CompletableFuture}
+     */
+    public CompletableFuture<Object> submit(Object key) {
+        if (null == key) {
+            return CompletableFuture.completedFuture(nullResponse(factory.getMethodPlan(methodKey)));
+        }
+        Pending pending = new Pending(key);
+        List<Pending> batch = null;
+        synchronized (this) {
+            pendingList.add(pending);
+            if (pendingList.size() >= maxSize) {
+                batch = takeBatch();
+            } else if (null == scheduledFlush) {
+                scheduledFlush = RestClientExecutors.scheduler()
+                        .schedule(this::flushWindow, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (null != batch) {
+            dispatch(batch);
+        }
+        return pending.future;
+    }
+
+    /**
+     * 等待结果，同步方法使用
+     * <br>等待时间不超过调用截止时间，没有截止时间时不超过单个查询方法的整体超时时间；
+     * 超时按单个查询方法的降级处理
+     *
+     * @param plan   单个查询方法执行计划
+     * @param future 结果
+     * @return {@link Object}
+     */
+    static Object join(MethodPlan plan, CompletableFuture<Object> future) {
+        long waitMillis = RestClientDeadline.remainingMillis();
+        if (waitMillis == Long.MAX_VALUE && plan.getTimeout() >= 0) {
+            waitMillis = plan.getTimeout();
+        }
+        try {
+            return waitMillis == Long.MAX_VALUE ? future.get() : future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            DeadlineExceededException ex = new DeadlineExceededException(
+                    String.format("batch call of %s not completed in %sms", plan.getMethodKey(), waitMillis));
+            if (plan.hasFailBackResponse()) {
+                return plan.getFailBackResponse(ex, ex.getLocalizedMessage());
+            }
+            throw ex;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (plan.hasFailBackResponse()) {
+                return plan.getFailBackResponse(e, e.getLocalizedMessage());
+            }
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 时间窗口到期
+     */
+    private void flushWindow() {
+        List<Pending> batch;
+        synchronized (this) {
+            if (pendingList.isEmpty()) {
+                scheduledFlush = null;
+                return;
+            }
+            batch = takeBatch();
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * 取出待合并列表，调用方持有锁
+     *
+     * @return {@link List<Pending>}
+     */
+    private List<Pending> takeBatch() {
+        List<Pending> batch = pendingList;
+        pendingList = new ArrayList<>();
+        if (null != scheduledFlush) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    /**
+     * 提交批量调用到异步执行器
+     *
+     * @param batch 待合并列表
+     */
+    private void dispatch(List<Pending> batch) {
+        Executor executor = factory.getAsyncExecutor();
+        try {
+            (null == executor ? RestClientExecutors.defaultExecutor() : executor).execute(() -> flush(batch));
+        } catch (RejectedExecutionException e) {
+            logger.warn(">>>>>>>>>>>>>>>>>>rest-client-proxy batch rejected:{}", methodKey);
+            fail(batch, e);
+        }
+    }
+
+    /**
+     * 批量调用并拆分结果
+     *
+     * @param batch 待合并列表
+     */
+    private void flush(List<Pending> batch) {
+        Map<Object, List<Pending>> keyMap = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            keyMap.computeIfAbsent(pending.key, key -> new ArrayList<>(1)).add(pending);
+        }
+        Map<String, Object> resultMap;
+        try {
+            //在当前线程上调用批量方法，不占用另一个执行器线程
+            Object[] args = new Object[]{bulkArgument(bulkParameterType, keyMap.keySet())};
+            Object response = Invoker.deliver(factory.getMethodPlan(bulkMethodKey),
+                    GenericRequestEncoder.getInstance(), args);
+            resultMap = splitResponse(response);
+        } catch (Exception e) {
+            fail(batch, e);
+            return;
+        } catch (Error e) {
+            batch.forEach(pending -> pending.future.completeExceptionally(e));
+            return;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(">>>>>>>>>>>>>>>>>>rest-client-proxy batch {} calls into {}", batch.size(), bulkMethodKey);
+        }
+        MethodPlan plan = factory.getMethodPlan(methodKey);
+        keyMap.forEach((key, keyPendingList) -> {
+            Object value = resultMap.get(String.valueOf(key));
+            //批量结果里没有，使用配置的空响应
+            if (null == value) {
+                value = nullResponse(plan);
+            }
+            for (Pending pending : keyPendingList) {
+                pending.future.complete(value);
+            }
+        });
+    }
+
+    /**
+     * 单个查询方法的空响应
+     *
+     * @param plan 单个查询方法执行计划
+     * @return {@link Object} 没有配置时返回null
+     */
+    private Object nullResponse(MethodPlan plan) {
+        return null != plan && plan.hasNullResponse() ? plan.getNullResponse(methodKey) : null;
+    }
+
+    /**
+     * 批量调用失败，配置了降级时每个调用使用单个查询方法的降级响应
+     *
+     * @param batch 待合并列表
+     * @param e     异常
+     */
+    private void fail(List<Pending> batch, Exception e) {
+        MethodPlan plan = factory.getMethodPlan(methodKey);
+        if (null == plan || !plan.hasFailBackResponse()) {
+            batch.forEach(pending -> pending.future.completeExceptionally(e));
+            return;
+        }
+        for (Pending pending : batch) {
+            try {
+                pending.future.complete(plan.getFailBackResponse(e, e.getLocalizedMessage()));
+            } catch (RuntimeException ex) {
+                pending.future.completeExceptionally(ex);
+            }
+        }
+    }
+
+    /**
+     * 批量方法参数
+     *
+     * @param bulkParameterType 批量方法参数类型
+     * @param keys              key
+     * @return {@link Object}
+     */
+    static Object bulkArgument(Class<?> bulkParameterType, Collection<?> keys) {
+        if (bulkParameterType.isArray()) {
+            Object array = Array.newInstance(bulkParameterType.getComponentType(), keys.size());
+            int index = 0;
+            for (Object key : keys) {
+                Array.set(array, index++, key);
+            }
+            return array;
+        }
+        if (Set.class.isAssignableFrom(bulkParameterType)) {
+            return new LinkedHashSet<>(keys);
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * 按key拆分批量结果
+     *
+     * @param response 批量结果
+     * @return {@link Map}
+     */
+    Map<String, Object> splitResponse(Object response) {
+        Map<String, Object> resultMap = new HashMap<>();
+        if (response instanceof Map) {
+            ((Map<?, ?>) response).forEach((key, value) -> resultMap.put(String.valueOf(key), value));
+            return resultMap;
+        }
+        if (null != response && response.getClass().isArray()) {
+            for (int i = 0; i < Array.getLength(response); i++) {
+                putElement(resultMap, Array.get(response, i));
+            }
+        } else if (response instanceof Collection) {
+            for (Object element : (Collection<?>) response) {
+                putElement(resultMap, element);
+            }
+        }
+        return resultMap;
+    }
+
+    /**
+     * 按元素的key属性放入结果
+     *
+     * @param resultMap 结果
+     * @param element   元素
+     */
+    private void putElement(Map<String, Object> resultMap, Object element) {
+        if (null == element) {
+            return;
+        }
+        Object key = element instanceof Map ? ((Map<?, ?>) element).get(keyProperty) : readKey(element);
+        if (null != key) {
+            resultMap.putIfAbsent(String.valueOf(key), element);
+        }
+    }
+
+    /**
+     * 读取元素的key属性，getter优先，其次public字段
+     *
+     * @param element 元素
+     * @return {@link Object}
+     */
+    private Object readKey(Object element) {
+        Object accessor = keyAccessorMap.computeIfAbsent(element.getClass(), this::findKeyAccessor);
+        try {
+            if (accessor instanceof Method) {
+                return ((Method) accessor).invoke(element);
+            }
+            if (accessor instanceof Field) {
+                return ((Field) accessor).get(element);
+            }
+        } catch (ReflectiveOperationException e) {
+            logger.warn(String.format("read property %s of %s error", keyProperty, element.getClass().getName()), e);
+        }
+        return null;
+    }
+
+    /**
+     * 查找key属性的读取方式
+     *
+     * @param clazz 元素类型
+     * @return {@link Object} Method、Field 或 NO_ACCESSOR
+     */
+    private Object findKeyAccessor(Class<?> clazz) {
+        String suffix = Character.toUpperCase(keyProperty.charAt(0)) + keyProperty.substring(1);
+        for (String getter : new String[]{"get" + suffix, "is" + suffix}) {
+            try {
+                Method method = clazz.getMethod(getter);
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                //try next
+            }
+        }
+        try {
+            return clazz.getField(keyProperty);
+        } catch (NoSuchFieldException e) {
+            logger.warn(">>>>>>>>>>>>>>>>>>rest-client-proxy property {} not found on {}", keyProperty, clazz.getName());
+            return NO_ACCESSOR;
+        }
+    }
+
+    /**
+     * 待合并调用
+     */
+    private static class Pending {
+
+        private final Object key;
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        Pending(Object key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.wzb.rest.invoke;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 内存映射的追加日志
+ * <br>日志按固定大小分段，记录格式：长度(int) + CRC32(int) + 内容，长度 -1 表示本段结束；
+ * 读取位置(段序号 + 段内位置)记在 offset 文件里，读完的段删除。
+ * 删除时段文件的映射可能还没有释放(JDK 8 没有释放映射的接口，由GC释放)，Windows 上删除会失败，之后读完下一段或重新打开时再删除。
+ * 多个线程写入，只有一个线程读取
+ */
+final class OutboxLog {
+
+    private static Logger logger = LoggerFactory.getLogger(OutboxLog.class);
+
+    private static final String SUFFIX = ".log";
+
+    private static final String OFFSET_FILE = "offset";
+
+    private static final int HEADER = 8;
+
+    private static final int MARKER = 4;
+
+    private static final int ROLL = -1;
+
+    /**
+     * 段结束
+     */
+    private static final byte[] ROLLED = new byte[0];
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    private final boolean sync;
+
+    private final MappedByteBuffer offsetBuffer;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    /**
+     * 写入位置，写入时持有锁
+     */
+    private long writeSeq;
+
+    private MappedByteBuffer writeBuffer;
+
+    private int writePosition;
+
+    /**
+     * 已写入的位置，段序号 << 32 | 段内位置
+     */
+    private volatile long writeMark;
+
+    /**
+     * 读取位置，只由读取线程访问
+     */
+    private long readSeq;
+
+    private MappedByteBuffer readBuffer;
+
+    private int readPosition;
+
+    private volatile long readSegment;
+
+    /**
+     * 读完未删除的第一个段，只由读取线程访问
+     */
+    private long deleteSeq;
+
+    /**
+     * 打开日志，从读取位置扫描到最后一条完整的记录作为写入位置
+     *
+     * @param directory   日志目录
+     * @param segmentSize 段文件大小(字节)
+     * @param maxSegments 最多段文件数
+     * @param sync        每次写入后刷盘
+     * @throws IOException 读写异常
+     */
+    OutboxLog(Path directory, int segmentSize, int maxSegments, boolean sync) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.max(1024, segmentSize);
+        this.maxSegments = Math.max(2, maxSegments);
+        this.sync = sync;
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments();
+        this.offsetBuffer = map(directory.resolve(OFFSET_FILE), Long.BYTES);
+        long mark = offsetBuffer.getLong(0);
+        long seq = mark >>> 32;
+        int position = (int) mark;
+        if (!segments.contains(seq)) {
+            seq = segments.isEmpty() ? 0L : segments.get(0);
+            position = 0;
+        }
+        this.deleteSeq = segments.isEmpty() ? seq : Math.min(seq, segments.get(0));
+        this.readSeq = seq;
+        this.readSegment = seq;
+        this.readPosition = position;
+        this.readBuffer = mapSegment(seq);
+        //扫描未读的记录
+        long lastSeq = segments.isEmpty() ? seq : Math.max(seq, segments.get(segments.size() - 1));
+        MappedByteBuffer buffer = readBuffer;
+        while (true) {
+            byte[] payload = read(buffer, position);
+            if (null != payload && payload != ROLLED) {
+                pending.incrementAndGet();
+                position += HEADER + payload.length;
+                continue;
+            }
+            if (seq < lastSeq) {
+                if (null == payload) {
+                    logger.warn(">>>>>>>>>>>>>>>>>>rest-client-proxy outbox segment {} is corrupted at {}, skipped",
+                            segmentFile(seq), position);
+                }
+                buffer = mapSegment(++seq);
+                position = 0;
+                continue;
+            }
+            if (payload == ROLLED) {
+                //写完段结束标记后没有创建下一段
+                buffer = mapSegment(++seq);
+                position = 0;
+            }
+            break;
+        }
+        this.writeSeq = seq;
+        this.writeBuffer = buffer;
+        this.writePosition = position;
+        this.writeMark = mark(seq, position);
+        deleteConsumed();
+    }
+
+    /**
+     * 写入记录
+     *
+     * @param payload 内容
+     * @return boolean 记录过大或段文件数已满返回false
+     * @throws IOException 创建段文件异常
+     */
+    synchronized boolean append(byte[] payload) throws IOException {
+        int size = HEADER + payload.length;
+        if (size + MARKER > segmentSize) {
+            return false;
+        }
+        if (writePosition + size + MARKER > segmentSize) {
+            if (writeSeq - readSegment + 1 >= maxSegments) {
+                return false;
+            }
+            MappedByteBuffer next = mapSegment(writeSeq + 1);
+            writeBuffer.putInt(writePosition, ROLL);
+            if (sync) {
+                writeBuffer.force();
+            }
+            writeSeq++;
+            writeBuffer = next;
+            writePosition = 0;
+        }
+        ByteBuffer view = writeBuffer.duplicate();
+        view.position(writePosition + HEADER);
+        view.put(payload);
+        writeBuffer.putInt(writePosition + MARKER, checksum(payload));
+        //最后写长度，长度不为 0 时记录完整
+        writeBuffer.putInt(writePosition, payload.length);
+        if (sync) {
+            writeBuffer.force();
+        }
+        writePosition += size;
+        pending.incrementAndGet();
+        writeMark = mark(writeSeq, writePosition);
+        return true;
+    }
+
+    /**
+     * 读取下一条记录，不移动读取位置，只由读取线程调用
+     *
+     * @return byte[] 没有新记录返回null
+     * @throws IOException 打开段文件异常
+     */
+    byte[] peek() throws IOException {
+        while (mark(readSeq, readPosition) < writeMark) {
+            byte[] payload = read(readBuffer, readPosition);
+            if (null != payload && payload != ROLLED) {
+                return payload;
+            }
+            if (readSeq == writeSeq) {
+                return null;
+            }
+            if (null == payload) {
+                logger.warn(">>>>>>>>>>>>>>>>>>rest-client-proxy outbox segment {} is corrupted at {}, skipped",
+                        segmentFile(readSeq), readPosition);
+            }
+            //读完本段，读下一段后删除
+            readBuffer = mapSegment(readSeq + 1);
+            readSeq++;
+            readPosition = 0;
+            readSegment = readSeq;
+            commit();
+            deleteConsumed();
+        }
+        return null;
+    }
+
+    /**
+     * 确认已读取的记录，只由读取线程调用
+     *
+     * @param payload {@link #peek()} 返回的记录
+     */
+    void ack(byte[] payload) {
+        readPosition += HEADER + payload.length;
+        pending.decrementAndGet();
+        commit();
+    }
+
+    /**
+     * 是否有未读取的记录
+     *
+     * @return boolean
+     */
+    boolean hasMore() {
+        return mark(readSeq, readPosition) < writeMark;
+    }
+
+    /**
+     * 未确认的记录数
+     *
+     * @return long
+     */
+    long pending() {
+        return pending.get();
+    }
+
+    /**
+     * 删除读完的段，删除失败时留到下次
+     */
+    private void deleteConsumed() {
+        while (deleteSeq < readSeq) {
+            try {
+                Files.deleteIfExists(segmentFile(deleteSeq));
+            } catch (IOException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(">>>>>>>>>>>>>>>>>>rest-client-proxy outbox segment {} is still in use, delete later",
+                            segmentFile(deleteSeq));
+                }
+                return;
+            }
+            deleteSeq++;
+        }
+    }
+
+    /**
+     * 保存读取位置
+     */
+    private void commit() {
+        offsetBuffer.putLong(0, mark(readSeq, readPosition));
+        if (sync) {
+            offsetBuffer.force();
+        }
+    }
+
+    /**
+     * 读取位置上的记录
+     *
+     * @param buffer   段
+     * @param position 段内位置
+     * @return byte[] 段结束返回 {@link #ROLLED}，没有完整的记录返回null
+     */
+    private byte[] read(MappedByteBuffer buffer, int position) {
+        if (position + MARKER > segmentSize) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length == ROLL) {
+            return ROLLED;
+        }
+        if (length <= 0 || position + HEADER + length + MARKER > segmentSize) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + HEADER);
+        view.get(payload);
+        return checksum(payload) == buffer.getInt(position + MARKER) ? payload : null;
+    }
+
+    /**
+     * 已有的段序号
+     *
+     * @return {@link List<Long>} 升序
+     * @throws IOException 读取目录异常
+     */
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> name.substring(0, name.length() - SUFFIX.length()))
+                    .filter(name -> !name.isEmpty() && name.chars().allMatch(Character::isDigit))
+                    .map(Long::valueOf)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 映射段文件，不存在时创建
+     *
+     * @param seq 段序号
+     * @return {@link MappedByteBuffer}
+     * @throws IOException 读写异常
+     */
+    private MappedByteBuffer mapSegment(long seq) throws IOException {
+        return map(segmentFile(seq), segmentSize);
+    }
+
+    private Path segmentFile(long seq) {
+        return directory.resolve(String.format("%020d%s", seq, SUFFIX));
+    }
+
+    /**
+     * 映射文件，不足大小时补零
+     *
+     * @param file 文件
+     * @param size 大小
+     * @return {@link MappedByteBuffer}
+     * @throws IOException 读写异常
+     */
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            if (randomAccessFile.length() < size) {
+                randomAccessFile.setLength(size);
+            }
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static long mark(long seq, int position) {
+        return seq << 32 | position;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload, 0, payload.length);
+        return (int) crc32.getValue();
+    }
+}
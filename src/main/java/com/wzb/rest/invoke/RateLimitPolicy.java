@@ -0,0 +1,66 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.cache.ClientCacheFactory;
+
+import java.net.URI;
+
+/**
+ * 客户端限流配置
+ * <br>按方法或客户端共用一个 {@link TokenBucket}，按主机时按请求的 host:port 共用
+ */
+public final class RateLimitPolicy {
+
+    private static ClientCacheFactory factory = ClientCacheFactory.getInstance();
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final int mode;
+
+    private final long maxWaitMillis;
+
+    private final int maxWaitCalls;
+
+    /**
+     * 按方法或客户端共用的令牌桶，按主机时为null
+     */
+    private final TokenBucket bucket;
+
+    /**
+     * 客户端限流配置
+     *
+     * @param name             令牌桶名称，按主机时不使用
+     * @param permitsPerSecond 每秒发放令牌数
+     * @param burst            令牌桶容量
+     * @param mode             获取不到令牌时的处理方式
+     * @param maxWaitMillis    最长等待时间(毫秒)
+     * @param maxWaitCalls     排队时最大等待调用数
+     * @param perHost          按下游主机共用
+     */
+    public RateLimitPolicy(String name, double permitsPerSecond, int burst, int mode, long maxWaitMillis,
+                           int maxWaitCalls, boolean perHost) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.mode = mode;
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxWaitCalls = maxWaitCalls;
+        this.bucket = perHost ? null
+                : factory.putTokenBucketIfAbsent(name, permitsPerSecond, burst, mode, maxWaitMillis, maxWaitCalls);
+    }
+
+    /**
+     * 获取令牌桶
+     *
+     * @param uri 调用url
+     * @return {@link TokenBucket}
+     */
+    public TokenBucket bucket(URI uri) {
+        if (null != bucket) {
+            return bucket;
+        }
+        String host = uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        return factory.putTokenBucketIfAbsent(String.valueOf(host), permitsPerSecond, burst, mode,
+                maxWaitMillis, maxWaitCalls);
+    }
+}
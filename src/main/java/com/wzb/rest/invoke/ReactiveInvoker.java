@@ -0,0 +1,311 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.cache.AsyncType;
+import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.client.ReactiveRestClient;
+import com.wzb.rest.exception.BulkheadFullException;
+import com.wzb.rest.exception.RateLimitedException;
+import com.wzb.rest.log.RestClientLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 响应式执行者
+ * <br>Mono/Flux返回值的方法走WebClient，订阅时才发起请求；
+ * 单独成类，未引入reactor时 {@link Invoker} 不会加载到这里
+ */
+final class ReactiveInvoker {
+
+    private static Logger logger = LoggerFactory.getLogger(ReactiveInvoker.class);
+
+    private static ClientCacheFactory factory = ClientCacheFactory.getInstance();
+
+    /**
+     * Flux按List&lt;T&gt;解码再展开
+     */
+    private static final Map<String, Type> fluxTypeMap = new ConcurrentHashMap<>();
+
+    private static volatile ReactiveRestClient reactiveRestClient;
+
+    /**
+     * init
+     */
+    private ReactiveInvoker() {
+
+    }
+
+    /**
+     * 代理执行
+     *
+     * @param plan    方法执行计划
+     * @param encoder 请求编码
+     * @param args    方法参数
+     * @return {@link Mono} 或 {@link Flux}
+     */
+    static Object invoke(MethodPlan plan, RequestEncoder encoder, Object[] args) {
+        boolean flux = plan.getAsyncType() == AsyncType.FLUX;
+        HttpMethod httpMethod = plan.getHttpMethod();
+        //不识别请求类型
+        if (null == httpMethod) {
+            return flux ? Flux.empty() : Mono.empty();
+        }
+        Mono<Object> response = Mono.defer(() -> call(plan, encoder, httpMethod, args, flux));
+        if (flux) {
+            return response.flatMapMany(elements -> Flux.fromStream(((Collection<?>) elements).stream()
+                    .filter(Objects::nonNull)));
+        }
+        return response;
+    }
+
+    /**
+     * 调用，空响应和降级处理作用于发出的值
+     *
+     * @param plan       方法执行计划
+     * @param encoder    请求编码
+     * @param httpMethod http方法
+     * @param args       方法参数
+     * @param flux       是否Flux
+     * @return {@link Mono<Object>}
+     */
+    private static Mono<Object> call(MethodPlan plan,
+                                     RequestEncoder encoder,
+                                     HttpMethod httpMethod,
+                                     Object[] args,
+                                     boolean flux) {
+        //生成URL
+        String callUrl = encoder.encodeURL(plan, args);
+        HttpEntity<?> httpEntity = null;
+        URI uri;
+        try {
+            httpEntity = encoder.encodeHttpEntity(plan, args);
+            uri = new URI(callUrl);
+        } catch (Exception e) {
+            return failBack(plan, callUrl, httpMethod, httpEntity, e, flux);
+        }
+        HttpEntity<?> requestEntity = httpEntity;
+        long start = System.currentTimeMillis();
+        return exchange(plan, uri, httpMethod, requestEntity, flux)
+                //接口返回空，使用配置的空响应
+                .switchIfEmpty(Mono.defer(() -> plan.hasNullResponse()
+                        ? Mono.justOrEmpty(element(plan.getNullResponse(callUrl), flux))
+                        : Mono.empty()))
+                .doOnSuccess(response -> {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(">>>>>>>>>>>>>>>>>>rest-client-proxy invoke cost:{}(ms)",
+                                System.currentTimeMillis() - start);
+                    }
+                    if (factory.hasLogBackMethod()) {
+                        logBack(RestClientLog.builder()
+                                .url(callUrl)
+                                .method(httpMethod)
+                                .parameter(requestEntity)
+                                .response(response)
+                                .speedTime(System.currentTimeMillis() - start)
+                                .multipart(isMultipart(requestEntity))
+                                .build());
+                    }
+                })
+                .onErrorResume(e -> failBack(plan, callUrl, httpMethod, requestEntity, e, flux));
+    }
+
+    /**
+     * 远程调用，配置限流或舱壁时获取令牌和许可，不在事件循环线程上等待；下游返回 429 时按 Retry-After 暂停发放令牌
+     *
+     * @param plan       方法执行计划
+     * @param uri        调用url
+     * @param httpMethod http方法
+     * @param httpEntity 请求实体
+     * @param flux       是否Flux
+     * @return {@link Mono<Object>}
+     */
+    private static Mono<Object> exchange(MethodPlan plan,
+                                         URI uri,
+                                         HttpMethod httpMethod,
+                                         HttpEntity<?> httpEntity,
+                                         boolean flux) {
+        RateLimitPolicy rateLimit = plan.getRateLimit();
+        if (null == rateLimit) {
+            return bulkhead(plan, uri, httpMethod, httpEntity, flux);
+        }
+        TokenBucket bucket = rateLimit.bucket(uri);
+        if (!bucket.tryAcquireNow()) {
+            return Mono.error(new RateLimitedException(String.format("rate limit[%s] exceeded", bucket.getName())));
+        }
+        return bulkhead(plan, uri, httpMethod, httpEntity, flux).doOnError(e -> pause(bucket, e));
+    }
+
+    /**
+     * 配置舱壁时获取许可
+     *
+     * @param plan       方法执行计划
+     * @param uri        调用url
+     * @param httpMethod http方法
+     * @param httpEntity 请求实体
+     * @param flux       是否Flux
+     * @return {@link Mono<Object>}
+     */
+    private static Mono<Object> bulkhead(MethodPlan plan,
+                                         URI uri,
+                                         HttpMethod httpMethod,
+                                         HttpEntity<?> httpEntity,
+                                         boolean flux) {
+        BulkheadLimiter bulkhead = plan.getBulkhead();
+        if (null == bulkhead) {
+            return reactiveRestClient().exchange(uri, httpMethod, httpEntity, responseType(plan, flux));
+        }
+        if (!bulkhead.tryAcquireNow()) {
+            return Mono.error(new BulkheadFullException(String.format("bulkhead[%s] is full", bulkhead.getName())));
+        }
+        return reactiveRestClient().exchange(uri, httpMethod, httpEntity, responseType(plan, flux))
+                .doFinally(signalType -> bulkhead.release());
+    }
+
+    /**
+     * 下游限流，按 Retry-After 暂停发放令牌
+     *
+     * @param bucket    令牌桶
+     * @param throwable 异常
+     */
+    private static void pause(TokenBucket bucket, Throwable throwable) {
+        if (throwable instanceof HttpStatusCodeException) {
+            HttpStatusCodeException e = (HttpStatusCodeException) throwable;
+            if (e.getRawStatusCode() == Invoker.TOO_MANY_REQUESTS) {
+                bucket.pause(TokenBucket.retryAfterMillis(e.getResponseHeaders()));
+            }
+        } else if (throwable instanceof WebClientResponseException) {
+            WebClientResponseException e = (WebClientResponseException) throwable;
+            if (e.getRawStatusCode() == Invoker.TOO_MANY_REQUESTS) {
+                bucket.pause(TokenBucket.retryAfterMillis(e.getHeaders()));
+            }
+        }
+    }
+
+    /**
+     * 异常降级处理
+     *
+     * @param plan       方法执行计划
+     * @param callUrl    调用url
+     * @param httpMethod http方法
+     * @param httpEntity 请求实体
+     * @param throwable  异常
+     * @param flux       是否Flux
+     * @return {@link Mono<Object>}
+     */
+    private static Mono<Object> failBack(MethodPlan plan,
+                                         String callUrl,
+                                         HttpMethod httpMethod,
+                                         HttpEntity<?> httpEntity,
+                                         Throwable throwable,
+                                         boolean flux) {
+        if (factory.hasLogBackMethod()) {
+            logBack(RestClientLog.builder()
+                    .url(callUrl)
+                    .method(httpMethod)
+                    .parameter(httpEntity)
+                    .throwable(throwable)
+                    .multipart(isMultipart(httpEntity))
+                    .build());
+        }
+        if (plan.hasFailBackResponse()) {
+            return Mono.justOrEmpty(element(plan.getFailBackResponse(throwable, throwable.getLocalizedMessage()), flux));
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * 调用日志，回调在事件循环线程上，日志方法不是异步处理时提交到异步执行器，不阻塞事件循环
+     *
+     * @param log 日志
+     */
+    private static void logBack(RestClientLog log) {
+        if (factory.isLogBackAsync()) {
+            factory.invokeLogBackMethod(log);
+            return;
+        }
+        Executor executor = null == factory.getAsyncExecutor()
+                ? RestClientExecutors.defaultExecutor()
+                : factory.getAsyncExecutor();
+        try {
+            executor.execute(() -> factory.invokeLogBackMethod(log));
+        } catch (RejectedExecutionException e) {
+            logger.warn(">>>>>>>>>>>>>>>>>>rest-client-proxy log back rejected:{}", log.getUrl());
+        }
+    }
+
+    /**
+     * Flux单个元素包装成列表，与解码结果一起展开
+     *
+     * @param value 值
+     * @param flux  是否Flux
+     * @return {@link Object}
+     */
+    private static Object element(Object value, boolean flux) {
+        return flux && null != value ? Collections.singletonList(value) : value;
+    }
+
+    /**
+     * 解码类型
+     *
+     * @param plan 方法执行计划
+     * @param flux 是否Flux
+     * @return {@link Type}
+     */
+    private static Type responseType(MethodPlan plan, boolean flux) {
+        Type elementType = plan.getTypeReference().getType();
+        if (!flux) {
+            return elementType;
+        }
+        return fluxTypeMap.computeIfAbsent(plan.getMethodKey(), key ->
+                ResolvableType.forClassWithGenerics(List.class, ResolvableType.forType(elementType)).getType());
+    }
+
+    /**
+     * 是否文件上传
+     *
+     * @param httpEntity 请求实体
+     * @return boolean
+     */
+    private static boolean isMultipart(HttpEntity<?> httpEntity) {
+        return null != httpEntity && MediaType.MULTIPART_FORM_DATA.equals(httpEntity.getHeaders().getContentType());
+    }
+
+    /**
+     * 获取响应式客户端，首次使用时创建，与同步客户端共用转换器
+     *
+     * @return {@link ReactiveRestClient}
+     */
+    private static ReactiveRestClient reactiveRestClient() {
+        ReactiveRestClient client = reactiveRestClient;
+        if (null == client) {
+            synchronized (ReactiveInvoker.class) {
+                client = reactiveRestClient;
+                if (null == client) {
+                    client = new ReactiveRestClient(WebClient.builder().build(), factory.getRestTemplateClient());
+                    reactiveRestClient = client;
+                }
+            }
+        }
+        return client;
+    }
+}
@@ -0,0 +1,31 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.exception.FileException;
+import org.springframework.http.HttpEntity;
+
+/**
+ * 请求编码
+ * <br>根据方法执行计划把方法参数编码成请求URL及请求体
+ */
+public interface RequestEncoder {
+
+    /**
+     * 编码请求URL
+     *
+     * @param plan 方法执行计划
+     * @param args 方法参数
+     * @return {@link String}
+     */
+    String encodeURL(MethodPlan plan, Object[] args);
+
+    /**
+     * 编码请求实体
+     *
+     * @param plan 方法执行计划
+     * @param args 方法参数
+     * @return {@link HttpEntity}
+     * @throws FileException 文件异常
+     */
+    HttpEntity<?> encodeHttpEntity(MethodPlan plan, Object[] args) throws FileException;
+}
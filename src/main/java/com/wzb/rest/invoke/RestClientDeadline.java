@@ -0,0 +1,152 @@
+package com.wzb.rest.invoke;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 调用截止时间
+ * <br>截止时间绑定在当前线程上，期间的rest客户端调用超时时间不超过剩余时间，
+ * 并通过请求头 {@value #HEADER} 把剩余时间(毫秒)传给下游；异步调用在执行线程上沿用提交时的截止时间
+ * <pre>
+ * RestClientDeadline.call(500, () -&gt; {
+ *     User user = userClient.get(id);
+ *     return orderClient.list(user.getId());
+ * });
+ * </pre>
+ */
+public final class RestClientDeadline {
+
+    /**
+     * 剩余时间请求头
+     */
+    public static final String HEADER = "X-Request-Timeout";
+
+    /**
+     * 未设置截止时间
+     */
+    static final long NONE = 0L;
+
+    private static final ThreadLocal<Long> deadlineNanos = new ThreadLocal<>();
+
+    /**
+     * init
+     */
+    private RestClientDeadline() {
+
+    }
+
+    /**
+     * 在截止时间内执行，已有更早的截止时间时沿用
+     *
+     * @param timeoutMillis 超时时间(毫秒)
+     * @param supplier      执行内容
+     * @param <T>           泛型
+     * @return {@link T}
+     */
+    public static <T> T call(long timeoutMillis, Supplier<T> supplier) {
+        long previous = start(timeoutMillis);
+        try {
+            return supplier.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 在截止时间内执行，已有更早的截止时间时沿用
+     *
+     * @param timeoutMillis 超时时间(毫秒)
+     * @param runnable      执行内容
+     */
+    public static void run(long timeoutMillis, Runnable runnable) {
+        call(timeoutMillis, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * 剩余时间
+     *
+     * @return long 毫秒，未设置截止时间返回 Long.MAX_VALUE
+     */
+    public static long remainingMillis() {
+        long current = current();
+        if (current == NONE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(current - System.nanoTime()));
+    }
+
+    /**
+     * 是否设置了截止时间
+     *
+     * @return boolean
+     */
+    public static boolean isPresent() {
+        return current() != NONE;
+    }
+
+    /**
+     * 开始截止时间，已有更早的截止时间时沿用，需在 finally 里调用 {@link #restore(long)}
+     *
+     * @param timeoutMillis 超时时间(毫秒)
+     * @return long 原截止时间
+     */
+    public static long start(long timeoutMillis) {
+        long previous = current();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeoutMillis));
+        set(previous != NONE && previous - deadline < 0 ? previous : deadline);
+        return previous;
+    }
+
+    /**
+     * 恢复原截止时间
+     *
+     * @param previous {@link #start(long)} 返回的原截止时间
+     */
+    public static void restore(long previous) {
+        set(previous);
+    }
+
+    /**
+     * 当前线程的截止时间
+     *
+     * @return long System.nanoTime 时间，未设置返回 {@link #NONE}
+     */
+    static long current() {
+        Long deadline = deadlineNanos.get();
+        return null == deadline ? NONE : deadline;
+    }
+
+    /**
+     * 按指定截止时间执行，执行后恢复原截止时间，用于异步执行时沿用提交时的截止时间
+     *
+     * @param deadline System.nanoTime 时间，{@link #NONE} 表示不设置
+     * @param supplier 执行内容
+     * @param <T>      泛型
+     * @return {@link T}
+     */
+    static <T> T callAt(long deadline, Supplier<T> supplier) {
+        long previous = current();
+        set(deadline);
+        try {
+            return supplier.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    /**
+     * 设置当前线程的截止时间
+     *
+     * @param deadline System.nanoTime 时间，{@link #NONE} 表示清除
+     */
+    private static void set(long deadline) {
+        if (deadline == NONE) {
+            deadlineNanos.remove();
+        } else {
+            deadlineNanos.set(deadline);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.wzb.rest.invoke;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步执行器
+ */
+public final class RestClientExecutors {
+
+    private static Logger logger = LoggerFactory.getLogger(RestClientExecutors.class);
+
+    private static final String THREAD_NAME_PREFIX = "rest-client-async-";
+
+    private static final String VIRTUAL_THREAD_NAME_PREFIX = "rest-client-virtual-";
+
+    private static final String SCHEDULER_THREAD_NAME = "rest-client-scheduler";
+
+    private static final int MIN_POOL_SIZE = 4;
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * init
+     */
+    private RestClientExecutors() {
+
+    }
+
+    /**
+     * 默认线程池，首次使用时创建
+     * <br>远程调用是阻塞IO，不使用 ForkJoinPool.commonPool
+     *
+     * @return {@link Executor}
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * 定时调度器，单个守护线程，只做调度，任务本身提交到执行器
+     *
+     * @return {@link ScheduledExecutorService}
+     */
+    public static ScheduledExecutorService scheduler() {
+        return SchedulerHolder.SCHEDULER;
+    }
+
+    /**
+     * 虚拟线程执行器，每个任务一个虚拟线程，首次使用时创建
+     * <br>阻塞IO时虚拟线程挂起，不占用平台线程；JDK 21 以下返回null
+     *
+     * @return {@link Executor}
+     */
+    public static Executor virtualThreadExecutor() {
+        return VirtualThreadExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * 是否支持虚拟线程
+     *
+     * @return boolean
+     */
+    public static boolean supportVirtualThread() {
+        return null != VirtualThreadExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * 创建默认线程池
+     *
+     * @return {@link ThreadPoolExecutor}
+     */
+    private static ThreadPoolExecutor createDefaultExecutor() {
+        int poolSize = Math.max(MIN_POOL_SIZE, Runtime.getRuntime().availableProcessors() * 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 创建定时调度器
+     *
+     * @return {@link ScheduledExecutorService}
+     */
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, SCHEDULER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * 创建虚拟线程执行器
+     * <br>编译目标为JDK 8，Thread.ofVirtual 和 Executors.newThreadPerTaskExecutor 反射调用
+     *
+     * @return {@link Executor}
+     */
+    private static Executor createVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, VIRTUAL_THREAD_NAME_PREFIX, 1L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (Executor) newExecutor.invoke(null, threadFactory);
+        } catch (NoSuchMethodException | ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn(">>>>>>>>>>>>>>>>>>rest-client-proxy create virtual thread executor fail", e);
+            return null;
+        }
+    }
+
+    /**
+     * 默认线程池持有
+     */
+    private static class DefaultExecutorHolder {
+
+        private static final Executor EXECUTOR = createDefaultExecutor();
+    }
+
+    /**
+     * 虚拟线程执行器持有
+     */
+    private static class VirtualThreadExecutorHolder {
+
+        private static final Executor EXECUTOR = createVirtualThreadExecutor();
+    }
+
+    /**
+     * 定时调度器持有
+     */
+    private static class SchedulerHolder {
+
+        private static final ScheduledExecutorService SCHEDULER = createScheduler();
+    }
+}
@@ -0,0 +1,325 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.client.CancellationToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 并行调用多个rest客户端方法
+ * <br>限制并发数，整体截止时间到达后返回已完成的结果，未完成或失败的按该方法的 @FailBackResponse 填充，
+ * 未完成的调用断开连接
+ * <pre>
+ * List&lt;Object&gt; results = ScatterGather.builder().maxConcurrency(8).timeout(300, TimeUnit.MILLISECONDS).build()
+ *         .call(() -&gt; userClient.get(id))
+ *         .call(() -&gt; orderClient.list(id), List.class)
+ *         .gather();
+ * </pre>
+ */
+public final class ScatterGather {
+
+    private static Logger logger = LoggerFactory.getLogger(ScatterGather.class);
+
+    private static ClientCacheFactory factory = ClientCacheFactory.getInstance();
+
+    /**
+     * 当前线程执行的调用，记录调用到的方法执行计划
+     */
+    private static final ThreadLocal<Slot> currentSlot = new ThreadLocal<>();
+
+    /**
+     * 执行中的并行调用数，为0时不查找当前线程的调用
+     */
+    private static final AtomicInteger activeGathers = new AtomicInteger();
+
+    private final int maxConcurrency;
+
+    private final long timeoutNanos;
+
+    private final Executor executor;
+
+    private final List<Slot> slots = new ArrayList<>();
+
+    /**
+     * ScatterGather
+     *
+     * @param builder 建设者
+     */
+    private ScatterGather(Builder builder) {
+        this.maxConcurrency = builder.maxConcurrency;
+        this.timeoutNanos = builder.timeoutNanos;
+        this.executor = builder.executor;
+    }
+
+    /**
+     * 建设者
+     *
+     * @return {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 添加调用，降级处理取调用到的方法的 @FailBackResponse
+     *
+     * @param call 调用
+     * @return {@link ScatterGather}
+     */
+    public ScatterGather call(Supplier<?> call) {
+        return call(call, null);
+    }
+
+    /**
+     * 添加调用
+     *
+     * @param call          调用
+     * @param responseClass 响应类型，调用未开始就到截止时间时按此类型取 @FailBackResponse
+     * @return {@link ScatterGather}
+     */
+    public ScatterGather call(Supplier<?> call, Class<?> responseClass) {
+        slots.add(new Slot(call, responseClass));
+        return this;
+    }
+
+    /**
+     * 并行执行并等待，最多等待到截止时间
+     *
+     * @return {@link List<Object>} 与添加顺序一致
+     */
+    public List<Object> gather() {
+        long deadline = System.nanoTime() + timeoutNanos;
+        //调用线程已有更早的截止时间时沿用
+        long callerDeadline = RestClientDeadline.current();
+        if (callerDeadline != RestClientDeadline.NONE && callerDeadline - deadline < 0) {
+            deadline = callerDeadline;
+        }
+        AtomicInteger next = new AtomicInteger();
+        activeGathers.incrementAndGet();
+        try {
+            for (int i = 0; i < Math.min(maxConcurrency, slots.size()); i++) {
+                launchNext(next, deadline);
+            }
+            CompletableFuture<Void> all = CompletableFuture.allOf(slots.stream()
+                    .map(slot -> slot.result)
+                    .toArray(CompletableFuture[]::new));
+            all.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            //未完成的按降级处理
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            //截止后仍在执行的调用已按降级处理，不再记录
+            activeGathers.decrementAndGet();
+        }
+        List<Object> results = new ArrayList<>(slots.size());
+        for (Slot slot : slots) {
+            if (!slot.result.isDone()) {
+                slot.result.complete(failBack(slot, new TimeoutException("scatter-gather deadline exceeded")));
+                slot.token.cancel();
+            }
+            results.add(slot.result.getNow(null));
+        }
+        return results;
+    }
+
+    /**
+     * 启动下一个调用，截止时间后不再启动
+     *
+     * @param next     下一个调用索引
+     * @param deadline 截止时间
+     */
+    private void launchNext(AtomicInteger next, long deadline) {
+        int index = next.getAndIncrement();
+        if (index >= slots.size() || System.nanoTime() - deadline >= 0) {
+            return;
+        }
+        Slot slot = slots.get(index);
+        try {
+            executor.execute(() -> {
+                try {
+                    run(slot, deadline);
+                } finally {
+                    launchNext(next, deadline);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn(">>>>>>>>>>>>>>>>>>rest-client-proxy scatter-gather call rejected");
+            slot.result.complete(failBack(slot, e));
+            launchNext(next, deadline);
+        }
+    }
+
+    /**
+     * 执行调用，异步返回值等待到截止时间
+     *
+     * @param slot     调用
+     * @param deadline 截止时间
+     */
+    private void run(Slot slot, long deadline) {
+        currentSlot.set(slot);
+        CancellationToken previous = CancellationToken.bind(slot.token);
+        Future<?> future = null;
+        try {
+            //调用在截止时间内，超时时间不超过剩余时间
+            Object response = RestClientDeadline.callAt(deadline, slot.call);
+            if (response instanceof Future) {
+                future = (Future<?>) response;
+                response = future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            slot.result.complete(response);
+        } catch (ExecutionException e) {
+            slot.result.complete(failBack(slot, null == e.getCause() ? e : e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            slot.result.complete(failBack(slot, e));
+        } catch (Exception e) {
+            slot.result.complete(failBack(slot, e));
+        } finally {
+            //异步调用超时未完成，取消
+            if (null != future && !future.isDone()) {
+                future.cancel(true);
+            }
+            CancellationToken.restore(previous);
+            currentSlot.remove();
+        }
+    }
+
+    /**
+     * 降级处理，先取调用到的方法，调用未开始时按响应类型
+     *
+     * @param slot      调用
+     * @param throwable 异常
+     * @return {@link Object}
+     */
+    private static Object failBack(Slot slot, Throwable throwable) {
+        MethodPlan plan = slot.plan;
+        if (null != plan) {
+            return plan.hasFailBackResponse() ? plan.getFailBackResponse(throwable, throwable.getLocalizedMessage()) : null;
+        }
+        Class<?> responseClass = slot.responseClass;
+        if (null == responseClass) {
+            return null;
+        }
+        if (factory.hasFailBackResponseMethod(responseClass)) {
+            return factory.getFailBackResponse(responseClass, throwable, throwable.getLocalizedMessage());
+        }
+        return factory.hasFailBackResponse(responseClass) ? factory.getFailBackResponse(responseClass) : null;
+    }
+
+    /**
+     * 记录当前调用执行的方法，由 {@link Invoker} 调用；没有执行中的并行调用时直接返回
+     *
+     * @param plan 方法执行计划
+     */
+    static void recordPlan(MethodPlan plan) {
+        if (activeGathers.get() == 0) {
+            return;
+        }
+        Slot slot = currentSlot.get();
+        if (null != slot && null == slot.plan) {
+            slot.plan = plan;
+        }
+    }
+
+    /**
+     * 调用
+     */
+    private static class Slot {
+
+        private final Supplier<?> call;
+
+        private final Class<?> responseClass;
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private final CancellationToken token = new CancellationToken();
+
+        private volatile MethodPlan plan;
+
+        Slot(Supplier<?> call, Class<?> responseClass) {
+            this.call = call;
+            this.responseClass = responseClass;
+        }
+    }
+
+    /**
+     * Builder
+     */
+    public static class Builder {
+
+        private int maxConcurrency = Integer.MAX_VALUE;
+
+        private long timeoutNanos = TimeUnit.SECONDS.toNanos(1L);
+
+        private Executor executor;
+
+        /**
+         * Builder
+         */
+        private Builder() {
+
+        }
+
+        /**
+         * 最大并发数
+         *
+         * @param maxConcurrency 最大并发数
+         * @return {@link Builder}
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = Math.max(1, maxConcurrency);
+            return this;
+        }
+
+        /**
+         * 整体超时时间
+         *
+         * @param timeout  超时时间
+         * @param timeUnit 时间单位
+         * @return {@link Builder}
+         */
+        public Builder timeout(long timeout, TimeUnit timeUnit) {
+            this.timeoutNanos = timeUnit.toNanos(Math.max(0L, timeout));
+            return this;
+        }
+
+        /**
+         * 执行器，默认使用配置的异步执行器
+         *
+         * @param executor 执行器
+         * @return {@link Builder}
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * 建造
+         *
+         * @return {@link ScatterGather}
+         */
+        public ScatterGather build() {
+            if (null == executor) {
+                executor = null == factory.getAsyncExecutor()
+                        ? RestClientExecutors.defaultExecutor()
+                        : factory.getAsyncExecutor();
+            }
+            return new ScatterGather(this);
+        }
+    }
+}
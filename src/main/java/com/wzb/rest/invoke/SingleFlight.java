@@ -0,0 +1,74 @@
+package com.wzb.rest.invoke;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 合并相同key的并发调用
+ * <br>第一个调用执行，执行期间到达的相同key调用等待并共用结果，执行完成后移除
+ */
+final class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightMap = new ConcurrentHashMap<>();
+
+    /**
+     * 同步执行
+     *
+     * @param key  调用key
+     * @param call 调用
+     * @return {@link Object}
+     */
+    Object execute(String key, Supplier<Object> call) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightMap.putIfAbsent(key, future);
+        if (null != inFlight) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            Object response = call.get();
+            future.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightMap.remove(key, future);
+        }
+    }
+
+    /**
+     * 异步执行，等待方拿到的是依赖的副本，取消不影响共用的调用
+     *
+     * @param key  调用key
+     * @param call 调用
+     * @return {@link CompletableFuture}
+     */
+    CompletableFuture<Object> executeAsync(String key, Supplier<CompletableFuture<Object>> call) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightMap.putIfAbsent(key, future);
+        if (null != inFlight) {
+            return inFlight.thenApply(response -> response);
+        }
+        try {
+            call.get().whenComplete((response, throwable) -> {
+                inFlightMap.remove(key, future);
+                if (null == throwable) {
+                    future.complete(response);
+                } else {
+                    future.completeExceptionally(throwable);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            inFlightMap.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future.thenApply(response -> response);
+    }
+}
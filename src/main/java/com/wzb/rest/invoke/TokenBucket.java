@@ -0,0 +1,251 @@
+package com.wzb.rest.invoke;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 令牌桶限流(GCRA算法)
+ * <br>按理论到达时间计算下一个令牌的发放时间，等待的调用预约令牌后按顺序放行；
+ * 下游返回 429 时暂停发放令牌，暂停结束后按速率恢复，不突发
+ */
+public final class TokenBucket {
+
+    /**
+     * 获取不到令牌时等待，最多 maxWaitMillis
+     */
+    public static final int MODE_BLOCK = 0;
+
+    /**
+     * 获取不到令牌时直接拒绝
+     */
+    public static final int MODE_FAIL_FAST = 1;
+
+    /**
+     * 获取不到令牌时排队，最多 maxWaitCalls 个调用等待，每个最多 maxWaitMillis
+     */
+    public static final int MODE_QUEUE = 2;
+
+    private static final long MAX_PAUSE_MILLIS = TimeUnit.HOURS.toMillis(1L);
+
+    private final String name;
+
+    private final int mode;
+
+    private final long maxWaitNanos;
+
+    private final int maxWaitCalls;
+
+    /**
+     * 令牌间隔和可突发的时间(纳秒)
+     */
+    private final long intervalNanos;
+
+    private final long toleranceNanos;
+
+    /**
+     * 理论到达时间(System.nanoTime)，在 reserve、pause 内访问
+     */
+    private long theoreticalArrival;
+
+    private volatile long pausedUntil;
+
+    private final AtomicInteger waitingCalls = new AtomicInteger();
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    private final LongAdder pauses = new LongAdder();
+
+    /**
+     * 令牌桶限流
+     *
+     * @param name             名称
+     * @param permitsPerSecond 每秒发放令牌数
+     * @param burst            令牌桶容量
+     * @param mode             获取不到令牌时的处理方式
+     * @param maxWaitMillis    最长等待时间(毫秒)
+     * @param maxWaitCalls     排队时最大等待调用数
+     */
+    public TokenBucket(String name, double permitsPerSecond, int burst, int mode, long maxWaitMillis,
+                       int maxWaitCalls) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException(String.format("rate limit[%s] requires permitsPerSecond > 0", name));
+        }
+        this.name = name;
+        this.mode = mode;
+        this.maxWaitNanos = mode == MODE_FAIL_FAST ? 0L : TimeUnit.MILLISECONDS.toNanos(Math.max(0L, maxWaitMillis));
+        this.maxWaitCalls = Math.max(0, maxWaitCalls);
+        this.intervalNanos = Math.max(1L, Math.round(TimeUnit.SECONDS.toNanos(1L) / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.theoreticalArrival = System.nanoTime();
+        this.pausedUntil = this.theoreticalArrival;
+    }
+
+    /**
+     * 获取令牌，按配置的处理方式等待，等待时间不超过调用截止时间
+     *
+     * @return boolean 获取不到返回false
+     */
+    public boolean acquire() {
+        long maxWait = Math.min(maxWaitNanos, TimeUnit.MILLISECONDS.toNanos(RestClientDeadline.remainingMillis()));
+        long now = System.nanoTime();
+        long wait = reserve(now, maxWait);
+        if (wait < 0) {
+            rejectedCalls.increment();
+            return false;
+        }
+        if (wait == 0) {
+            return true;
+        }
+        try {
+            long wakeAt = now + wait;
+            while (true) {
+                //等待期间下游要求暂停时等到暂停结束
+                long paused = pausedUntil;
+                long target = paused - wakeAt > 0 ? paused : wakeAt;
+                long current = System.nanoTime();
+                if (target - current <= 0) {
+                    return true;
+                }
+                if (target - now > maxWait || Thread.currentThread().isInterrupted()) {
+                    //不再等待，退回预约的令牌
+                    cancel();
+                    rejectedCalls.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(this, target - current);
+            }
+        } finally {
+            waitingCalls.decrementAndGet();
+        }
+    }
+
+    /**
+     * 获取令牌，不等待
+     *
+     * @return boolean 获取不到返回false
+     */
+    public boolean tryAcquireNow() {
+        if (reserve(System.nanoTime(), 0L) < 0) {
+            rejectedCalls.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 预约令牌，需要等待时计入等待数
+     *
+     * @param now     当前时间(System.nanoTime)
+     * @param maxWait 最长等待时间(纳秒)
+     * @return long 需要等待的时间(纳秒)，超过最长等待时间或排队已满返回 -1 且不预约
+     */
+    private synchronized long reserve(long now, long maxWait) {
+        long allowedAt = theoreticalArrival - toleranceNanos;
+        if (pausedUntil - allowedAt > 0) {
+            allowedAt = pausedUntil;
+        }
+        long wait = Math.max(0L, allowedAt - now);
+        if (wait > maxWait || (wait > 0 && mode == MODE_QUEUE && waitingCalls.get() >= maxWaitCalls)) {
+            return -1L;
+        }
+        if (wait > 0) {
+            waitingCalls.incrementAndGet();
+        }
+        long arrival = now + wait;
+        theoreticalArrival = (arrival - theoreticalArrival > 0 ? arrival : theoreticalArrival) + intervalNanos;
+        return wait;
+    }
+
+    /**
+     * 退回预约的令牌，不早于暂停结束
+     */
+    private synchronized void cancel() {
+        long released = theoreticalArrival - intervalNanos;
+        long pauseEnd = pausedUntil + toleranceNanos;
+        if (released - pauseEnd >= 0) {
+            theoreticalArrival = released;
+        } else if (theoreticalArrival - pauseEnd > 0) {
+            theoreticalArrival = pauseEnd;
+        }
+    }
+
+    /**
+     * 暂停发放令牌，并清空积攒的令牌
+     *
+     * @param millis 暂停时间(毫秒)，最多一小时
+     */
+    public void pause(long millis) {
+        long pauseNanos = TimeUnit.MILLISECONDS.toNanos(Math.min(MAX_PAUSE_MILLIS, Math.max(0L, millis)));
+        synchronized (this) {
+            long until = System.nanoTime() + pauseNanos;
+            if (until - pausedUntil > 0) {
+                pausedUntil = until;
+            }
+            if (until + toleranceNanos - theoreticalArrival > 0) {
+                theoreticalArrival = until + toleranceNanos;
+            }
+        }
+        pauses.increment();
+    }
+
+    /**
+     * 解析 Retry-After 响应头，秒数或HTTP日期
+     *
+     * @param headers 响应头
+     * @return long 毫秒，没有或无法解析返回 0
+     */
+    static long retryAfterMillis(HttpHeaders headers) {
+        String value = null == headers ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (null == value || value.trim().isEmpty()) {
+            return 0L;
+        }
+        value = value.trim();
+        if (value.chars().allMatch(Character::isDigit)) {
+            return value.length() > 9 ? MAX_PAUSE_MILLIS : TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+        }
+        try {
+            long until = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0L, until - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return 0L;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 等待令牌的调用数
+     *
+     * @return int
+     */
+    public int getWaitingCalls() {
+        return waitingCalls.get();
+    }
+
+    /**
+     * 累计拒绝数
+     *
+     * @return long
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    /**
+     * 累计暂停次数
+     *
+     * @return long
+     */
+    public long getPauses() {
+        return pauses.sum();
+    }
+}
@@ -0,0 +1,237 @@
+package com.wzb.rest.log;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 异步日志分发
+ * <br>请求线程把日志放入预分配的无锁环形缓冲区(多生产者单消费者)，后台线程取出后调用日志方法；
+ * 每个槽位带序号，生产者CAS占位后写入，消费者按序号判断是否可读
+ */
+public final class LogBackDispatcher {
+
+    /**
+     * 缓冲区满时丢弃
+     */
+    public static final int OVERFLOW_DROP = 0;
+
+    /**
+     * 缓冲区满时等待
+     */
+    public static final int OVERFLOW_BLOCK = 1;
+
+    /**
+     * 缓冲区超过一半时采样，满时丢弃
+     */
+    public static final int OVERFLOW_SAMPLE = 2;
+
+    private static final String THREAD_NAME = "rest-client-logback";
+
+    private static final int MAX_BUFFER_SIZE = 1 << 20;
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100L);
+
+    private static final long SHUTDOWN_MILLIS = 1000L;
+
+    private static Logger logger = LoggerFactory.getLogger(LogBackDispatcher.class);
+
+    private final Consumer<RestClientLog> logBack;
+
+    private final int overflow;
+
+    private final int sampleRate;
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<RestClientLog> buffer;
+
+    /**
+     * 槽位序号，等于写入位置+1时可读，等于读取位置+容量时可写
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long head;
+
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    private final LongAdder droppedLogs = new LongAdder();
+
+    private final Thread consumer;
+
+    private volatile boolean waiting;
+
+    private volatile boolean running = true;
+
+    /**
+     * 异步日志分发
+     *
+     * @param bufferSize 缓冲区大小，向上取2的幂
+     * @param overflow   缓冲区满时的处理方式
+     * @param sampleRate 采样时每 sampleRate 条保留一条
+     * @param logBack    日志方法
+     */
+    public LogBackDispatcher(int bufferSize, int overflow, int sampleRate, Consumer<RestClientLog> logBack) {
+        int size = Math.max(2, Math.min(MAX_BUFFER_SIZE, bufferSize));
+        this.capacity = Integer.highestOneBit(size - 1) << 1;
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.overflow = overflow;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.logBack = logBack;
+        this.consumer = new Thread(this::consume, THREAD_NAME);
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, THREAD_NAME + "-shutdown"));
+    }
+
+    /**
+     * 发布日志，不等待日志方法执行
+     *
+     * @param log 日志
+     */
+    public void publish(RestClientLog log) {
+        if (overflow == OVERFLOW_SAMPLE && null == log.getThrowable() && size() > capacity >> 1
+                && sampleCount.getAndIncrement() % sampleRate != 0) {
+            droppedLogs.increment();
+            return;
+        }
+        while (!offer(log)) {
+            if (overflow != OVERFLOW_BLOCK || !running) {
+                droppedLogs.increment();
+                return;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        if (waiting) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * 放入缓冲区
+     *
+     * @param log 日志
+     * @return boolean 缓冲区满返回false
+     */
+    private boolean offer(RestClientLog log) {
+        for (; ; ) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, log);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 取出日志，只由消费线程调用
+     *
+     * @return {@link RestClientLog} 缓冲区空返回null
+     */
+    private RestClientLog poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        RestClientLog log = buffer.get(index);
+        buffer.lazySet(index, null);
+        sequences.lazySet(index, position + capacity);
+        head = position + 1;
+        return log;
+    }
+
+    /**
+     * 消费线程，缓冲区空时挂起，停止后处理完剩余日志
+     */
+    private void consume() {
+        while (true) {
+            RestClientLog log = poll();
+            if (null != log) {
+                dispatch(log);
+                continue;
+            }
+            if (!running) {
+                return;
+            }
+            waiting = true;
+            if (size() == 0) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            waiting = false;
+        }
+    }
+
+    /**
+     * 调用日志方法
+     *
+     * @param log 日志
+     */
+    private void dispatch(RestClientLog log) {
+        try {
+            logBack.accept(log);
+        } catch (Throwable e) {
+            logger.warn(">>>>>>>>>>>>>>>>>>rest-client-proxy async logback fail", e);
+        }
+    }
+
+    /**
+     * 停止，等待剩余日志处理完
+     */
+    private void shutdown() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(SHUTDOWN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 缓冲区中的日志数
+     *
+     * @return int
+     */
+    public int size() {
+        return (int) Math.max(0L, tail.get() - head);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 累计丢弃数
+     *
+     * @return long
+     */
+    public long getDroppedLogs() {
+        return droppedLogs.sum();
+    }
+}
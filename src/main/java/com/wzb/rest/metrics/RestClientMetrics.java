@@ -0,0 +1,197 @@
+package com.wzb.rest.metrics;
+
+import com.wzb.rest.invoke.AdaptiveLimiter;
+import com.wzb.rest.invoke.BulkheadLimiter;
+import com.wzb.rest.invoke.DurableOutbox;
+import com.wzb.rest.invoke.FireAndForgetQueue;
+import com.wzb.rest.invoke.TokenBucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationContext;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 客户端指标
+ * <br>上下文里有 MeterRegistry 时注册，没有引入 micrometer 时不注册
+ */
+public final class RestClientMetrics {
+
+    private static final String METER_REGISTRY = "io.micrometer.core.instrument.MeterRegistry";
+
+    private static final String TAG_NAME = "name";
+
+    private static final String TAG_HOST = "host";
+
+    private static RestClientMetrics metrics = new RestClientMetrics();
+
+    private volatile Object meterRegistry;
+
+    /**
+     * init
+     */
+    private RestClientMetrics() {
+
+    }
+
+    /**
+     * 获取实例
+     *
+     * @return {@link RestClientMetrics}
+     */
+    public static RestClientMetrics getInstance() {
+        return metrics;
+    }
+
+    /**
+     * 绑定上下文里的 MeterRegistry
+     *
+     * @param applicationContext 上下文
+     */
+    public void bind(ApplicationContext applicationContext) {
+        if (ClassUtils.isPresent(METER_REGISTRY, RestClientMetrics.class.getClassLoader())) {
+            this.meterRegistry = applicationContext.getBeanProvider(MeterRegistry.class).getIfAvailable();
+        }
+    }
+
+    /**
+     * 注册舱壁指标
+     *
+     * @param bulkhead 舱壁
+     */
+    public void registerBulkhead(BulkheadLimiter bulkhead) {
+        Object registry = this.meterRegistry;
+        if (null == registry) {
+            return;
+        }
+        MeterRegistry meterRegistry = (MeterRegistry) registry;
+        Gauge.builder("rest.client.bulkhead.waiting", bulkhead, BulkheadLimiter::getWaitingCalls)
+                .tag(TAG_NAME, bulkhead.getName())
+                .description("calls waiting in the bulkhead queue")
+                .register(meterRegistry);
+        Gauge.builder("rest.client.bulkhead.available", bulkhead, BulkheadLimiter::getAvailableCalls)
+                .tag(TAG_NAME, bulkhead.getName())
+                .description("available concurrent calls of the bulkhead")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.bulkhead.rejected", bulkhead, BulkheadLimiter::getRejectedCalls)
+                .tag(TAG_NAME, bulkhead.getName())
+                .description("calls rejected by the bulkhead")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册自适应并发限制指标
+     *
+     * @param limiter 自适应并发限制
+     */
+    public void registerAdaptiveLimiter(AdaptiveLimiter limiter) {
+        Object registry = this.meterRegistry;
+        if (null == registry) {
+            return;
+        }
+        MeterRegistry meterRegistry = (MeterRegistry) registry;
+        Gauge.builder("rest.client.limit", limiter, AdaptiveLimiter::getLimit)
+                .tag(TAG_HOST, limiter.getName())
+                .description("adaptive concurrency limit of the host")
+                .register(meterRegistry);
+        Gauge.builder("rest.client.limit.inflight", limiter, AdaptiveLimiter::getInFlight)
+                .tag(TAG_HOST, limiter.getName())
+                .description("in-flight calls to the host")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.limit.rejected", limiter, AdaptiveLimiter::getRejectedCalls)
+                .tag(TAG_HOST, limiter.getName())
+                .description("calls rejected by the adaptive concurrency limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册发送后不等待指标
+     *
+     * @param queue 发送队列
+     */
+    public void registerFireAndForget(FireAndForgetQueue queue) {
+        Object registry = this.meterRegistry;
+        if (null == registry) {
+            return;
+        }
+        MeterRegistry meterRegistry = (MeterRegistry) registry;
+        Gauge.builder("rest.client.fire.queued", queue, FireAndForgetQueue::size)
+                .tag(TAG_NAME, queue.getName())
+                .description("calls waiting in the fire and forget queue")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.fire.sent", queue, FireAndForgetQueue::getSentCalls)
+                .tag(TAG_NAME, queue.getName())
+                .description("fire and forget calls sent")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.fire.dropped", queue, FireAndForgetQueue::getDroppedCalls)
+                .tag(TAG_NAME, queue.getName())
+                .description("fire and forget calls dropped because the queue is full")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.fire.failed", queue, FireAndForgetQueue::getFailedCalls)
+                .tag(TAG_NAME, queue.getName())
+                .description("fire and forget calls failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册本地持久化发送指标
+     *
+     * @param outbox 本地日志
+     */
+    public void registerOutbox(DurableOutbox outbox) {
+        Object registry = this.meterRegistry;
+        if (null == registry) {
+            return;
+        }
+        MeterRegistry meterRegistry = (MeterRegistry) registry;
+        Gauge.builder("rest.client.outbox.pending", outbox, DurableOutbox::getPendingCalls)
+                .tag(TAG_NAME, outbox.getName())
+                .description("calls persisted in the outbox and not yet acknowledged")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.outbox.sent", outbox, DurableOutbox::getSentCalls)
+                .tag(TAG_NAME, outbox.getName())
+                .description("outbox calls sent")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.outbox.retried", outbox, DurableOutbox::getRetriedCalls)
+                .tag(TAG_NAME, outbox.getName())
+                .description("outbox send retries")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.outbox.failed", outbox, DurableOutbox::getFailedCalls)
+                .tag(TAG_NAME, outbox.getName())
+                .description("outbox calls moved to the dead letter log")
+                .register(meterRegistry);
+        Gauge.builder("rest.client.outbox.dead", outbox, DurableOutbox::getDeadLetters)
+                .tag(TAG_NAME, outbox.getName())
+                .description("calls kept in the dead letter log")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.outbox.rejected", outbox, DurableOutbox::getRejectedCalls)
+                .tag(TAG_NAME, outbox.getName())
+                .description("calls not persisted and sent synchronously")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册限流指标
+     *
+     * @param bucket 令牌桶
+     */
+    public void registerTokenBucket(TokenBucket bucket) {
+        Object registry = this.meterRegistry;
+        if (null == registry) {
+            return;
+        }
+        MeterRegistry meterRegistry = (MeterRegistry) registry;
+        Gauge.builder("rest.client.ratelimit.waiting", bucket, TokenBucket::getWaitingCalls)
+                .tag(TAG_NAME, bucket.getName())
+                .description("calls waiting for a token")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.ratelimit.rejected", bucket, TokenBucket::getRejectedCalls)
+                .tag(TAG_NAME, bucket.getName())
+                .description("calls rejected by the rate limit")
+                .register(meterRegistry);
+        FunctionCounter.builder("rest.client.ratelimit.paused", bucket, TokenBucket::getPauses)
+                .tag(TAG_NAME, bucket.getName())
+                .description("pauses requested by 429 responses")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,280 @@
+package com.wzb.rest.processor;
+
+import com.wzb.rest.instance.InstanceFactory;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 实现类源码生成
+ * <br>只生成方法分发，方法执行计划在启动时由 MethodResolver 解析，与代理模式使用同一套规则
+ */
+final class RestClientImplWriter {
+
+    private static final String METHOD_PLAN = "com.wzb.rest.cache.MethodPlan";
+
+    private static final String METHOD_RESOLVER = "com.wzb.rest.resolver.MethodResolver";
+
+    private static final String INVOKER = "com.wzb.rest.invoke.Invoker";
+
+    private final Elements elements;
+
+    private final Types types;
+
+    private final TypeElement restClientInterface;
+
+    private final String packageName;
+
+    private final String simpleName;
+
+    private final List<ExecutableElement> methods;
+
+    /**
+     * 实现类源码生成
+     *
+     * @param processingEnv       处理环境
+     * @param restClientInterface rest客户端接口
+     */
+    RestClientImplWriter(ProcessingEnvironment processingEnv, TypeElement restClientInterface) {
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.restClientInterface = restClientInterface;
+        PackageElement packageElement = elements.getPackageOf(restClientInterface);
+        this.packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(restClientInterface).toString();
+        this.simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                .concat(InstanceFactory.GENERATED_SUFFIX);
+        //与运行时 getMethods 一致，包含继承的抽象方法，按方法key排序保证生成结果稳定
+        this.methods = ElementFilter.methodsIn(elements.getAllMembers(restClientInterface)).stream()
+                .filter(method -> method.getModifiers().contains(Modifier.ABSTRACT))
+                .filter(method -> method.getEnclosingElement().getKind() == ElementKind.INTERFACE)
+                .sorted(Comparator.comparing(this::methodKey))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 生成类名
+     *
+     * @return {@link String}
+     */
+    String getClassName() {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    /**
+     * 检查是否能生成
+     *
+     * @return {@link String} 不能生成的原因，能生成返回null
+     */
+    String checkSupported() {
+        if (restClientInterface.getModifiers().contains(Modifier.PRIVATE)) {
+            return "private interface";
+        }
+        if (!restClientInterface.getTypeParameters().isEmpty()) {
+            return "generic interface";
+        }
+        for (ExecutableElement method : methods) {
+            if (!method.getTypeParameters().isEmpty()) {
+                return String.format("generic method %s", method.getSimpleName());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 生成源码
+     *
+     * @return {@link String}
+     */
+    String write() {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * {@link ").append(restClientInterface.getQualifiedName())
+                .append("} 实现，由 ").append(RestClientProcessor.class.getName()).append(" 生成\n */\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(simpleName).append(" implements ")
+                .append(restClientInterface.getQualifiedName()).append(" {\n\n");
+        source.append("    private final ").append(METHOD_PLAN).append("[] plans;\n\n");
+        //构造方法，按运行时规则解析方法执行计划
+        String interfaceClass = restClientInterface.getQualifiedName() + ".class";
+        source.append("    public ").append(simpleName).append("(java.lang.String prefixUrl) {\n");
+        source.append("        java.util.Map<java.lang.reflect.Method, ").append(METHOD_PLAN).append("> planMap = ")
+                .append(METHOD_RESOLVER).append(".getInstance()\n                .resolverMethod(")
+                .append(interfaceClass).append(", prefixUrl);\n");
+        source.append("        this.plans = new ").append(METHOD_PLAN).append("[").append(methods.size())
+                .append("];\n");
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            source.append("        this.plans[").append(i).append("] = planMap.get(interfaceMethod(")
+                    .append(interfaceClass).append(", ").append(literal(method.getSimpleName().toString()));
+            for (VariableElement parameter : method.getParameters()) {
+                source.append(", ").append(classLiteral(parameter.asType()));
+            }
+            source.append("));\n");
+        }
+        source.append("    }\n");
+        for (int i = 0; i < methods.size(); i++) {
+            writeMethod(source, methods.get(i), i);
+        }
+        writeMethodLookup(source);
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * 生成接口方法实现
+     *
+     * @param source    源码
+     * @param method    方法
+     * @param planIndex 方法执行计划索引
+     */
+    private void writeMethod(StringBuilder source, ExecutableElement method, int planIndex) {
+        TypeMirror returnType = method.getReturnType();
+        List<? extends VariableElement> parameters = method.getParameters();
+        source.append("\n    @Override\n    public ").append(returnType).append(" ")
+                .append(method.getSimpleName()).append("(");
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            String parameterType = parameters.get(i).asType().toString();
+            if (method.isVarArgs() && i == parameters.size() - 1 && parameterType.endsWith("[]")) {
+                parameterType = parameterType.substring(0, parameterType.length() - 2).concat("...");
+            }
+            source.append(parameterType).append(" ").append(parameters.get(i).getSimpleName());
+        }
+        source.append(")");
+        List<? extends TypeMirror> thrownTypes = method.getThrownTypes();
+        if (!thrownTypes.isEmpty()) {
+            source.append(" throws ").append(thrownTypes.stream().map(TypeMirror::toString)
+                    .collect(Collectors.joining(", ")));
+        }
+        source.append(" {\n        ");
+        if (returnType.getKind() != TypeKind.VOID) {
+            TypeMirror castType = returnType.getKind().isPrimitive()
+                    ? types.boxedClass(types.getPrimitiveType(returnType.getKind())).asType()
+                    : returnType;
+            source.append("return (").append(castType).append(") ");
+        }
+        source.append(INVOKER).append(".invoke(this.plans[").append(planIndex).append("], ");
+        if (parameters.isEmpty()) {
+            source.append("new java.lang.Object[0]);\n");
+        } else {
+            source.append("new java.lang.Object[]{").append(parameters.stream()
+                    .map(parameter -> parameter.getSimpleName().toString())
+                    .collect(Collectors.joining(", "))).append("});\n");
+        }
+        source.append("    }\n");
+    }
+
+    /**
+     * 生成接口方法查找
+     *
+     * @param source 源码
+     */
+    private void writeMethodLookup(StringBuilder source) {
+        source.append("\n    private static java.lang.reflect.Method interfaceMethod(java.lang.Class<?> clazz, ")
+                .append("java.lang.String name, java.lang.Class<?>... parameterTypes) {\n");
+        source.append("        try {\n");
+        source.append("            return clazz.getMethod(name, parameterTypes);\n");
+        source.append("        } catch (java.lang.NoSuchMethodException e) {\n");
+        source.append("            throw new java.lang.IllegalStateException(e);\n");
+        source.append("        }\n    }\n");
+    }
+
+    /**
+     * 方法key，与 ClientCacheFactory#generateMethodKey 一致
+     *
+     * @param method 方法
+     * @return {@link String}
+     */
+    private String methodKey(ExecutableElement method) {
+        StringBuilder methodKey = new StringBuilder(elements.getBinaryName(restClientInterface))
+                .append("#").append(method.getSimpleName()).append("(");
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                methodKey.append(",");
+            }
+            methodKey.append(typeName(parameters.get(i).asType()));
+        }
+        return methodKey.append(")").toString();
+    }
+
+    /**
+     * 类型名称，与 Class#getTypeName 一致
+     *
+     * @param type 类型
+     * @return {@link String}
+     */
+    private String typeName(TypeMirror type) {
+        TypeMirror erasure = types.erasure(type);
+        if (erasure.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) erasure).getComponentType()).concat("[]");
+        }
+        if (erasure.getKind() == TypeKind.DECLARED) {
+            return elements.getBinaryName((TypeElement) ((DeclaredType) erasure).asElement()).toString();
+        }
+        return erasure.toString();
+    }
+
+    /**
+     * 类字面量
+     *
+     * @param type 类型
+     * @return {@link String}
+     */
+    private String classLiteral(TypeMirror type) {
+        return types.erasure(type).toString().concat(".class");
+    }
+
+    /**
+     * 字符串字面量
+     *
+     * @param value 值
+     * @return {@link String}
+     */
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                case '\\':
+                    literal.append('\\').append(c);
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < ' ') {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+            }
+        }
+        return literal.append("\"").toString();
+    }
+}
@@ -0,0 +1,151 @@
+package com.wzb.rest.processor;
+
+import com.wzb.rest.registrar.RestClientComponentsIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 编译期处理 @RestClient 接口
+ * <br>为每个接口生成 接口名$RestClientImpl 实现类，实现类自带方法执行计划，
+ * 启动时 {@link com.wzb.rest.proxy.RestClientProxy} 优先使用，不再反射解析方法和生成代理类
+ * <br>同时生成 {@link RestClientComponentsIndex} 索引，启动时不再扫描类路径
+ * <br>可选功能，未注册 META-INF/services，需在编译参数里指定处理器
+ */
+@SupportedAnnotationTypes(RestClientProcessor.REST_CLIENT)
+public class RestClientProcessor extends AbstractProcessor {
+
+    static final String REST_CLIENT = "com.wzb.rest.annation.RestClient";
+
+    /**
+     * 本次编译的@RestClient类
+     */
+    private final Set<String> components = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.INTERFACE) {
+                    generate((TypeElement) element);
+                }
+                if (element.getKind().isClass() || element.getKind() == ElementKind.INTERFACE) {
+                    components.add(processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+                }
+            }
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    /**
+     * 生成组件索引，合并增量编译前已有的索引
+     */
+    private void writeIndex() {
+        Set<String> index = new TreeSet<>(components);
+        Filer filer = processingEnv.getFiler();
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "",
+                    RestClientComponentsIndex.COMPONENTS_RESOURCE_LOCATION);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while (null != (line = reader.readLine())) {
+                    line = line.trim();
+                    //移除已删除或不再注解的类
+                    if (!line.isEmpty() && !line.startsWith("#") && isRestClient(line)) {
+                        index.add(line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            //没有已有索引
+        }
+        if (index.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "",
+                    RestClientComponentsIndex.COMPONENTS_RESOURCE_LOCATION);
+            try (Writer out = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String component : index) {
+                    out.write(component);
+                    out.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    String.format("write %s fail: %s", RestClientComponentsIndex.COMPONENTS_RESOURCE_LOCATION,
+                            e.getMessage()));
+        }
+    }
+
+    /**
+     * 类是否仍注解@RestClient
+     *
+     * @param binaryName 类名
+     * @return boolean
+     */
+    private boolean isRestClient(String binaryName) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(binaryName.replace('$', '.'));
+        if (null == element) {
+            return false;
+        }
+        return element.getAnnotationMirrors().stream().anyMatch(annotation ->
+                ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName()
+                        .contentEquals(REST_CLIENT));
+    }
+
+    /**
+     * 生成实现类
+     *
+     * @param restClientInterface rest客户端接口
+     */
+    private void generate(TypeElement restClientInterface) {
+        RestClientImplWriter writer = new RestClientImplWriter(processingEnv, restClientInterface);
+        String unsupported = writer.checkSupported();
+        if (null != unsupported) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    String.format("skip generate %s, %s, use runtime resolver",
+                            restClientInterface.getQualifiedName(), unsupported),
+                    restClientInterface);
+            return;
+        }
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler()
+                    .createSourceFile(writer.getClassName(), restClientInterface);
+            try (Writer out = sourceFile.openWriter()) {
+                out.write(writer.write());
+            }
+        } catch (IOException | RuntimeException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    String.format("generate %s fail: %s", writer.getClassName(), e.getMessage()),
+                    restClientInterface);
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.wzb.rest.proxy;
 
 import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MetadataSnapshot;
+import com.wzb.rest.cache.MethodPlan;
 import com.wzb.rest.client.RestTemplateClient;
 import com.wzb.rest.config.MessageConvertConfigure;
 import com.wzb.rest.instance.InstanceFactory;
+import com.wzb.rest.invoke.DurableOutbox;
+import com.wzb.rest.invoke.RestClientExecutors;
+import com.wzb.rest.metrics.RestClientMetrics;
 import com.wzb.rest.resolver.ConfigureClassResolver;
 import com.wzb.rest.resolver.MethodResolver;
 import org.slf4j.Logger;
@@ -18,9 +23,11 @@ import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.util.Assert;
 import org.springframework.web.client.RestTemplate;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 
 /**
@@ -42,6 +49,11 @@ public class RestClientProxy implements FactoryBean<Object>, InitializingBean, A
      */
     public static final int MODE_JAVASSIST = 2;
 
+    /**
+     * 隐藏类代理，JDK 15 以下降级成 javassist 动态代理
+     */
+    public static final int MODE_HIDDEN = 3;
+
     private static final String PROPERTY_SYMBOL_START = "${";
 
     private static final String PROPERTY_SYMBOL_END = "}";
@@ -81,6 +93,10 @@ public class RestClientProxy implements FactoryBean<Object>, InitializingBean, A
 
     private Class<?>[] configureClass;
 
+    private String executorName;
+
+    private boolean virtualThreads;
+
     /**
      * 构造方法
      */
@@ -108,26 +124,7 @@ public class RestClientProxy implements FactoryBean<Object>, InitializingBean, A
      * @return {@link Object}
      */
     private Object getProxy() {
-        if (!factory.hasLoadRestClientProxy(restClientInterface)) {
-            if (logger.isDebugEnabled()) {
-                logger.debug(">>>>>>>>>>>>>>rest-client-proxy load proxy of {}", restClientInterface.getName());
-            }
-            //解析路由
-            resolverRoute();
-            //解析服务
-            resolverValue();
-            //解析接口方法
-            methodResolver.resolverMethod(restClientInterface, this.url);
-            //创建代理
-            Object restProxy;
-            if (mode == MODE_JAVASSIST) {
-                restProxy = InstanceFactory.createInstance(this.restClientInterface);
-            } else {
-                restProxy = InstanceFactory.createProxy(this.restClientInterface);
-            }
-            factory.putIfAbsent(restClientInterface, restProxy);
-        }
-        //设置rest请求模板
+        //设置rest请求模板，先于方法解析以便执行计划绑定降级处理
         if (!factory.hasRestTemplateClient()) {
             RestTemplate restTemplate = null;
             //使用预配置的Rest模板
@@ -144,11 +141,62 @@ public class RestClientProxy implements FactoryBean<Object>, InitializingBean, A
             RestTemplateClient restTemplateClient = new RestTemplateClient(restTemplate,
                     requestConverters, responseConverters, interceptors);
             factory.setRestTemplateClient(restTemplateClient);
+            //异步执行器
+            if (null != this.executorName && !this.executorName.isEmpty()) {
+                factory.setAsyncExecutor(applicationContext.getBean(this.executorName, Executor.class));
+            } else if (this.virtualThreads) {
+                if (RestClientExecutors.supportVirtualThread()) {
+                    factory.setAsyncExecutor(RestClientExecutors.virtualThreadExecutor());
+                } else {
+                    logger.warn(">>>>>>>>>>>>>>rest-client-proxy virtual threads require JDK 21+, use default executor");
+                }
+            }
+            //舱壁等指标
+            RestClientMetrics.getInstance().bind(applicationContext);
+            //方法元数据快照
+            MetadataSnapshot.getInstance().setDirectory(environment.getProperty(MetadataSnapshot.DIRECTORY_PROPERTY));
+            //本地持久化发送目录
+            DurableOutbox.setDirectory(environment.getProperty(DurableOutbox.DIRECTORY_PROPERTY));
+        }
+        if (!factory.hasLoadRestClientProxy(restClientInterface)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(">>>>>>>>>>>>>>rest-client-proxy load proxy of {}", restClientInterface.getName());
+            }
+            //解析路由
+            resolverRoute();
+            //解析服务
+            resolverValue();
+            //编译期生成的实现
+            Object restProxy = InstanceFactory.createGeneratedInstance(this.restClientInterface, this.url);
+            if (null == restProxy) {
+                restProxy = createProxy();
+            }
+            factory.putIfAbsent(restClientInterface, restProxy);
         }
         this.proxy = factory.getRestClientProxy(restClientInterface);
         return this.proxy;
     }
 
+    /**
+     * 解析接口方法并按代理模式创建代理
+     *
+     * @return {@link Object}
+     */
+    private Object createProxy() {
+        //解析接口方法
+        Map<Method, MethodPlan> planMap = methodResolver.resolverMethod(restClientInterface, this.url);
+        //创建代理
+        Object restProxy;
+        if (mode == MODE_JAVASSIST) {
+            restProxy = InstanceFactory.createInstance(this.restClientInterface, planMap);
+        } else if (mode == MODE_HIDDEN) {
+            restProxy = InstanceFactory.createHiddenInstance(this.restClientInterface, planMap);
+        } else {
+            restProxy = InstanceFactory.createProxy(this.restClientInterface, planMap);
+        }
+        return restProxy;
+    }
+
     @Override
     public Class<?> getObjectType() {
         return this.restClientInterface;
@@ -221,6 +269,24 @@ public class RestClientProxy implements FactoryBean<Object>, InitializingBean, A
         this.configureClass = configureClass;
     }
 
+    /**
+     * 设置异步执行器
+     *
+     * @param executorName 异步执行器名称
+     */
+    public void setExecutorName(String executorName) {
+        this.executorName = executorName;
+    }
+
+    /**
+     * 设置是否使用虚拟线程
+     *
+     * @param virtualThreads 是否使用虚拟线程
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
     /**
      * 解析路由
      */
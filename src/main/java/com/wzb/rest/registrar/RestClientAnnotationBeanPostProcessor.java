@@ -22,8 +22,10 @@ import org.springframework.context.annotation.ClassPathScanningCandidateComponen
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.StandardAnnotationMetadata;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
@@ -87,13 +89,22 @@ public class RestClientAnnotationBeanPostProcessor implements BeanDefinitionRegi
                 new RestClientClassPathBeanDefinitionScanner(false, environment);
         scanner.setResourceLoader(this.resourceLoader);
         scanner.addIncludeFilter(new AnnotationTypeFilter(RestClient.class));
+        //编译期索引，不存在时扫描类路径
+        RestClientComponentsIndex index = environment.getProperty(
+                RestClientComponentsIndex.IGNORE_INDEX_PROPERTY, Boolean.class, Boolean.FALSE)
+                ? null
+                : RestClientComponentsIndex.load(classLoader);
 
         for (String packageToScan : packagesToScan) {
 
             // Registers @RestClient Bean first
             // Finds all BeanAnnotationMetadata of @RestClient.
-            Set<AnnotationMetadata> beanAnnotationMetadata =
-                    findRestClientBeanAnnotationMetadata(scanner, packageToScan);
+            Set<AnnotationMetadata> beanAnnotationMetadata = null == index
+                    ? null
+                    : findRestClientBeanAnnotationMetadata(index, packageToScan);
+            if (CollectionUtils.isEmpty(beanAnnotationMetadata)) {
+                beanAnnotationMetadata = findRestClientBeanAnnotationMetadata(scanner, packageToScan);
+            }
 
             if (!CollectionUtils.isEmpty(beanAnnotationMetadata)) {
 
@@ -152,6 +163,41 @@ public class RestClientAnnotationBeanPostProcessor implements BeanDefinitionRegi
         return beanAnnotationMetadata;
     }
 
+    /**
+     * 从索引找到@RestClient注解 bean对象注释元数据
+     *
+     * @param index         编译期索引
+     * @param packageToScan 要扫描的包
+     * @return {@link Set<AnnotationMetadata>}
+     */
+    private Set<AnnotationMetadata> findRestClientBeanAnnotationMetadata(RestClientComponentsIndex index,
+                                                                         String packageToScan) {
+
+        Set<String> candidateTypes = index.getCandidateTypes(packageToScan);
+
+        Set<AnnotationMetadata> beanAnnotationMetadata = new LinkedHashSet<>(candidateTypes.size());
+
+        for (String candidateType : candidateTypes) {
+
+            if (!ClassUtils.isPresent(candidateType, classLoader)) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("@RestClient index entry [" + candidateType + "] was not found, ignored");
+                }
+                continue;
+            }
+            AnnotationMetadata annotationMetadata =
+                    new StandardAnnotationMetadata(resolveClassName(candidateType, classLoader), true);
+            if (!annotationMetadata.isAnnotated(RestClient.class.getName())) {
+                continue;
+            }
+            Assert.isTrue(annotationMetadata.isInterface(),
+                    "@RestClient can only be specified on an interface");
+
+            beanAnnotationMetadata.add(annotationMetadata);
+        }
+        return beanAnnotationMetadata;
+    }
+
     /**
      * 注册@RestClient bean对象
      *
@@ -215,6 +261,8 @@ public class RestClientAnnotationBeanPostProcessor implements BeanDefinitionRegi
         builder.addPropertyValue("restTemplateName", restAttributes.get("value"));
         builder.addPropertyValue("mode", restAttributes.get("mode"));
         builder.addPropertyValue("configureClass", restAttributes.get("configureClass"));
+        builder.addPropertyValue("executorName", restAttributes.get("executor"));
+        builder.addPropertyValue("virtualThreads", restAttributes.get("virtualThreads"));
 
         AbstractBeanDefinition definition = builder.getBeanDefinition();
 
@@ -0,0 +1,108 @@
+package com.wzb.rest.registrar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 注解@RestClient 组件索引
+ * <br>由 com.wzb.rest.processor.RestClientProcessor 编译期生成，每行一个类名，
+ * 存在索引时按索引注册，不再扫描类路径
+ */
+public final class RestClientComponentsIndex {
+
+    /**
+     * 索引文件位置
+     */
+    public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/rest-client.components";
+
+    /**
+     * 忽略索引，强制扫描类路径
+     */
+    public static final String IGNORE_INDEX_PROPERTY = "rest-client.index.ignore";
+
+    private static final String COMMENT = "#";
+
+    private static Logger logger = LoggerFactory.getLogger(RestClientComponentsIndex.class);
+
+    private final Set<String> candidateTypes;
+
+    /**
+     * RestClientComponentsIndex
+     *
+     * @param candidateTypes 索引的类名
+     */
+    private RestClientComponentsIndex(Set<String> candidateTypes) {
+        this.candidateTypes = candidateTypes;
+    }
+
+    /**
+     * 加载类路径上所有索引
+     *
+     * @param classLoader 类加载器
+     * @return {@link RestClientComponentsIndex} 没有索引时返回null
+     */
+    public static RestClientComponentsIndex load(ClassLoader classLoader) {
+        Set<String> candidateTypes = new LinkedHashSet<>();
+        try {
+            Enumeration<URL> urls = null == classLoader
+                    ? ClassLoader.getSystemResources(COMPONENTS_RESOURCE_LOCATION)
+                    : classLoader.getResources(COMPONENTS_RESOURCE_LOCATION);
+            if (!urls.hasMoreElements()) {
+                return null;
+            }
+            while (urls.hasMoreElements()) {
+                read(urls.nextElement(), candidateTypes);
+            }
+        } catch (IOException e) {
+            logger.warn(">>>>>>>>>>>>>读取@RestClient索引异常, 使用类路径扫描", e);
+            return null;
+        }
+        return new RestClientComponentsIndex(candidateTypes);
+    }
+
+    /**
+     * 读取索引文件
+     *
+     * @param url            索引文件
+     * @param candidateTypes 索引的类名
+     * @throws IOException 读取异常
+     */
+    private static void read(URL url, Set<String> candidateTypes) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith(COMMENT)) {
+                    candidateTypes.add(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取包下的索引类名
+     *
+     * @param basePackage 包
+     * @return {@link Set<String>}
+     */
+    public Set<String> getCandidateTypes(String basePackage) {
+        String packagePrefix = basePackage.concat(".");
+        Set<String> types = new LinkedHashSet<>();
+        for (String candidateType : candidateTypes) {
+            if (candidateType.startsWith(packagePrefix)) {
+                types.add(candidateType);
+            }
+        }
+        return types;
+    }
+}
@@ -45,18 +45,28 @@ public final class DynamicParameterResolver {
      */
     public void resolverDynamicParameter(ClientCacheFactory factory, String methodKey, String dynamicUrl) {
         if (!factory.hasDynamicParameter(methodKey)) {
-            List<DynamicParameter> dynamicParameterList = new LinkedList<>();
-            DynamicParameter dynamicParameter;
-            int fromIndex = 0;
-            do {
-                dynamicParameter = findNextDynamicParameter(dynamicUrl, fromIndex);
-                fromIndex = dynamicParameter.getEndIndex() + 1;
-                dynamicParameterList.add(dynamicParameter);
-            } while (Objects.nonNull(dynamicParameter.getName()));
-            factory.putDynamicParameterIfAbsent(methodKey, dynamicParameterList);
+            factory.putDynamicParameterIfAbsent(methodKey, resolverDynamicParameter(dynamicUrl));
         }
     }
 
+    /**
+     * 解析动态URL参数
+     *
+     * @param dynamicUrl 动态URL
+     * @return {@link List<DynamicParameter>}
+     */
+    public List<DynamicParameter> resolverDynamicParameter(String dynamicUrl) {
+        List<DynamicParameter> dynamicParameterList = new LinkedList<>();
+        DynamicParameter dynamicParameter;
+        int fromIndex = 0;
+        do {
+            dynamicParameter = findNextDynamicParameter(dynamicUrl, fromIndex);
+            fromIndex = dynamicParameter.getEndIndex() + 1;
+            dynamicParameterList.add(dynamicParameter);
+        } while (Objects.nonNull(dynamicParameter.getName()));
+        return dynamicParameterList;
+    }
+
     /**
      * 查找下一个动态参数
      *
@@ -1,10 +1,17 @@
 package com.wzb.rest.resolver;
 
 import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MetadataSnapshot;
+import com.wzb.rest.cache.MethodPlan;
 import com.wzb.rest.cache.MethodUrl;
+import com.wzb.rest.cache.ParameterType;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 /**
@@ -24,6 +31,10 @@ public final class MethodResolver {
 
     private DynamicParameterResolver dynamicParameterResolver;
 
+    private MetadataSnapshot metadataSnapshot;
+
+    private PolicyResolver policyResolver;
+
     /**
      * init
      */
@@ -45,18 +56,27 @@ public final class MethodResolver {
      *
      * @param restClientInterface rest客户端接口
      * @param prefixUrl           URL前缀
+     * @return {@link Map<Method, MethodPlan>} 方法执行计划
      */
-    public void resolverMethod(Class<?> restClientInterface, String prefixUrl) {
+    public Map<Method, MethodPlan> resolverMethod(Class<?> restClientInterface, String prefixUrl) {
         Method[] methods = restClientInterface.getMethods();
+        Map<Method, MethodPlan> planMap = new HashMap<>(methods.length * 2);
+        //元数据快照有效时已装填url、参数，下面的解析直接命中缓存
+        boolean loadSnapshot = metadataSnapshot.isEnabled()
+                && metadataSnapshot.load(factory, restClientInterface, prefixUrl);
+        List<String> methodKeys = new ArrayList<>(methods.length);
         Stream.of(methods).forEach(method -> {
             //方法key
-            String methodKey = factory.generateMethodKey(method);
+            String methodKey = factory.generateMethodKey(restClientInterface, method);
+            methodKeys.add(methodKey);
             //解析URL
             urlResolver.resolverUrl(factory, methodKey, method, prefixUrl);
-            //方法参数注解，1维是参数，2维是注解
-            Annotation[][] annotations = method.getParameterAnnotations();
             //解析方法参数@PathVariable、@RequestParam、@RequestHeader、@RequestBody、@RestRequestBody、@RestRequestFile注解参数
-            parameterResolver.resolverParameter(factory, methodKey, annotations, method.getParameters());
+            if (!factory.hasParameterSort(methodKey)) {
+                //方法参数注解，1维是参数，2维是注解
+                Annotation[][] annotations = method.getParameterAnnotations();
+                parameterResolver.resolverParameter(factory, methodKey, annotations, method.getParameters());
+            }
             //解析动态参数URL
             MethodUrl methodUrl = factory.getMethodUrl(methodKey);
             dynamicParameterResolver.resolverDynamicParameter(factory, methodKey, methodUrl.getUrl());
@@ -64,8 +84,38 @@ public final class MethodResolver {
             responseTypeResolver.resolverResponseType(factory, methodKey, method.getGenericReturnType());
             //接口方法参数分类
             parameterResolver.resolverParameterType(factory, methodKey);
+            //生成执行计划
+            factory.putIfAbsent(methodKey, buildMethodPlan(methodKey, restClientInterface, method));
+            planMap.put(method, factory.getMethodPlan(methodKey));
         });
+        if (metadataSnapshot.isEnabled() && !loadSnapshot) {
+            metadataSnapshot.save(factory, restClientInterface, prefixUrl, methodKeys);
+        }
+        return planMap;
+    }
 
+    /**
+     * 生成方法执行计划
+     *
+     * @param methodKey           方法key
+     * @param restClientInterface rest客户端接口
+     * @param method              方法
+     * @return {@link MethodPlan}
+     */
+    private MethodPlan buildMethodPlan(String methodKey, Class<?> restClientInterface, Method method) {
+        MethodPlan.Builder builder = MethodPlan.builder(methodKey)
+                .httpMethod(factory.getMethodUrl(methodKey).getHttpMethod())
+                .dynamicParameters(factory.getDynamicParameter(methodKey))
+                .path(factory.getPath(methodKey))
+                .responseClass(factory.getResponseClass(methodKey).get(0))
+                .returnType(factory.getReturnType(methodKey))
+                .asyncType(responseTypeResolver.resolverAsyncType(method.getGenericReturnType()));
+        for (ParameterType parameterType : ParameterType.values()) {
+            builder.parameterSorts(parameterType, factory.getParameterSortByParameterType(methodKey, parameterType));
+        }
+        //调用策略
+        policyResolver.resolverPolicy(factory, methodKey, restClientInterface, method, builder);
+        return builder.build();
     }
 
     /**
@@ -81,5 +131,9 @@ public final class MethodResolver {
         parameterResolver = ParameterResolver.getInstance();
 
         dynamicParameterResolver = DynamicParameterResolver.getInstance();
+
+        metadataSnapshot = MetadataSnapshot.getInstance();
+
+        policyResolver = PolicyResolver.getInstance();
     }
 }
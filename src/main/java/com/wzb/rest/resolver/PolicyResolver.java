@@ -0,0 +1,330 @@
+package com.wzb.rest.resolver;
+
+import com.wzb.rest.annation.AdaptiveLimit;
+import com.wzb.rest.annation.Batch;
+import com.wzb.rest.annation.Bulkhead;
+import com.wzb.rest.annation.Coalesce;
+import com.wzb.rest.annation.FireAndForget;
+import com.wzb.rest.annation.Hedge;
+import com.wzb.rest.annation.Outbox;
+import com.wzb.rest.annation.RateLimit;
+import com.wzb.rest.annation.RestClient;
+import com.wzb.rest.annation.RestRequestFile;
+import com.wzb.rest.annation.Timeout;
+import com.wzb.rest.cache.AsyncType;
+import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.invoke.AdaptiveLimitPolicy;
+import com.wzb.rest.invoke.DurableOutbox;
+import com.wzb.rest.invoke.FireAndForgetQueue;
+import com.wzb.rest.invoke.HedgePolicy;
+import com.wzb.rest.invoke.MicroBatcher;
+import com.wzb.rest.invoke.RateLimitPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * 调用策略解析类
+ * <br>解析方法或接口上的策略注解，装配到方法执行计划
+ */
+public final class PolicyResolver {
+
+    private static PolicyResolver resolver = new PolicyResolver();
+
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * init
+     */
+    private PolicyResolver() {
+
+    }
+
+    /**
+     * 获取实例
+     *
+     * @return {@link PolicyResolver}
+     */
+    public static PolicyResolver getInstance() {
+        return resolver;
+    }
+
+    /**
+     * 解析调用策略
+     *
+     * @param factory             缓存工厂
+     * @param methodKey           方法key
+     * @param restClientInterface rest客户端接口
+     * @param method              方法
+     * @param builder             执行计划
+     */
+    public void resolverPolicy(ClientCacheFactory factory,
+                               String methodKey,
+                               Class<?> restClientInterface,
+                               Method method,
+                               MethodPlan.Builder builder) {
+        resolverTimeout(restClientInterface, method, builder);
+        resolverBulkhead(factory, methodKey, restClientInterface, method, builder);
+        resolverAdaptiveLimit(restClientInterface, method, builder);
+        resolverRateLimit(methodKey, restClientInterface, method, builder);
+        resolverCoalesce(factory, methodKey, method, builder);
+        resolverHedge(factory, methodKey, method, builder);
+        resolverBatch(factory, methodKey, restClientInterface, method, builder);
+        resolverFireAndForget(factory, methodKey, restClientInterface, method, builder);
+        resolverOutbox(methodKey, method, builder);
+    }
+
+    /**
+     * 解析超时时间，方法上 @Timeout 小于 0 的取 @RestClient 上的
+     *
+     * @param restClientInterface rest客户端接口
+     * @param method              方法
+     * @param builder             执行计划
+     */
+    private void resolverTimeout(Class<?> restClientInterface, Method method, MethodPlan.Builder builder) {
+        RestClient restClient = restClientInterface.getAnnotation(RestClient.class);
+        Timeout timeout = method.getAnnotation(Timeout.class);
+        int connectTimeout = null == restClient ? -1 : restClient.connectTimeout();
+        int readTimeout = null == restClient ? -1 : restClient.readTimeout();
+        long callTimeout = null == restClient ? -1L : restClient.timeout();
+        if (null != timeout) {
+            connectTimeout = timeout.connectTimeout() >= 0 ? timeout.connectTimeout() : connectTimeout;
+            readTimeout = timeout.readTimeout() >= 0 ? timeout.readTimeout() : readTimeout;
+            callTimeout = timeout.value() >= 0 ? timeout.value() : callTimeout;
+        }
+        builder.timeout(connectTimeout, readTimeout, callTimeout);
+    }
+
+    /**
+     * 解析合并请求，只合并GET请求
+     *
+     * @param factory   缓存工厂
+     * @param methodKey 方法key
+     * @param method    方法
+     * @param builder   执行计划
+     */
+    private void resolverCoalesce(ClientCacheFactory factory,
+                                  String methodKey,
+                                  Method method,
+                                  MethodPlan.Builder builder) {
+        if (!method.isAnnotationPresent(Coalesce.class)) {
+            return;
+        }
+        if (HttpMethod.GET == factory.getMethodUrl(methodKey).getHttpMethod()) {
+            builder.coalesce(true);
+        } else {
+            logger.warn(">>>>>>>>>>>>>>@Coalesce only supports GET, ignored on {}", methodKey);
+        }
+    }
+
+    /**
+     * 解析对冲请求，只对冲GET请求
+     *
+     * @param factory   缓存工厂
+     * @param methodKey 方法key
+     * @param method    方法
+     * @param builder   执行计划
+     */
+    private void resolverHedge(ClientCacheFactory factory,
+                               String methodKey,
+                               Method method,
+                               MethodPlan.Builder builder) {
+        Hedge hedge = method.getAnnotation(Hedge.class);
+        if (null == hedge) {
+            return;
+        }
+        if (HttpMethod.GET == factory.getMethodUrl(methodKey).getHttpMethod()) {
+            builder.hedge(new HedgePolicy(hedge.delayMillis()));
+        } else {
+            logger.warn(">>>>>>>>>>>>>>@Hedge only supports GET, ignored on {}", methodKey);
+        }
+    }
+
+    /**
+     * 解析舱壁，方法上的优先，接口上的整个客户端共用
+     *
+     * @param factory             缓存工厂
+     * @param methodKey           方法key
+     * @param restClientInterface rest客户端接口
+     * @param method              方法
+     * @param builder             执行计划
+     */
+    private void resolverBulkhead(ClientCacheFactory factory,
+                                  String methodKey,
+                                  Class<?> restClientInterface,
+                                  Method method,
+                                  MethodPlan.Builder builder) {
+        Bulkhead bulkhead = method.getAnnotation(Bulkhead.class);
+        String name = methodKey;
+        if (null == bulkhead) {
+            bulkhead = restClientInterface.getAnnotation(Bulkhead.class);
+            name = restClientInterface.getName();
+        }
+        if (null != bulkhead) {
+            builder.bulkhead(factory.putBulkheadIfAbsent(name, bulkhead.maxConcurrentCalls(),
+                    bulkhead.maxWaitCalls(), bulkhead.maxWaitMillis()));
+        }
+    }
+
+    /**
+     * 解析客户端限流，方法上的优先，接口上的整个客户端共用，perHost 时按主机共用
+     *
+     * @param methodKey           方法key
+     * @param restClientInterface rest客户端接口
+     * @param method              方法
+     * @param builder             执行计划
+     */
+    private void resolverRateLimit(String methodKey,
+                                   Class<?> restClientInterface,
+                                   Method method,
+                                   MethodPlan.Builder builder) {
+        RateLimit rateLimit = method.getAnnotation(RateLimit.class);
+        String name = methodKey;
+        if (null == rateLimit) {
+            rateLimit = restClientInterface.getAnnotation(RateLimit.class);
+            name = restClientInterface.getName();
+        }
+        if (null != rateLimit) {
+            builder.rateLimit(new RateLimitPolicy(name, rateLimit.permitsPerSecond(), rateLimit.burst(),
+                    rateLimit.mode(), rateLimit.maxWaitMillis(), rateLimit.maxWaitCalls(), rateLimit.perHost()));
+        }
+    }
+
+    /**
+     * 解析自适应并发限制，方法上的优先
+     *
+     * @param restClientInterface rest客户端接口
+     * @param method              方法
+     * @param builder             执行计划
+     */
+    private void resolverAdaptiveLimit(Class<?> restClientInterface, Method method, MethodPlan.Builder builder) {
+        AdaptiveLimit adaptiveLimit = method.getAnnotation(AdaptiveLimit.class);
+        if (null == adaptiveLimit) {
+            adaptiveLimit = restClientInterface.getAnnotation(AdaptiveLimit.class);
+        }
+        if (null != adaptiveLimit) {
+            builder.adaptiveLimit(new AdaptiveLimitPolicy(adaptiveLimit.initialLimit(),
+                    adaptiveLimit.minLimit(), adaptiveLimit.maxLimit()));
+        }
+    }
+
+    /**
+     * 解析发送后不等待，只作用于返回 void 的方法
+     *
+     * @param factory             缓存工厂
+     * @param methodKey           方法key
+     * @param restClientInterface rest客户端接口
+     * @param method              方法
+     * @param builder             执行计划
+     */
+    private void resolverFireAndForget(ClientCacheFactory factory,
+                                       String methodKey,
+                                       Class<?> restClientInterface,
+                                       Method method,
+                                       MethodPlan.Builder builder) {
+        FireAndForget fireAndForget = method.getAnnotation(FireAndForget.class);
+        if (null == fireAndForget) {
+            return;
+        }
+        if (method.getReturnType() != void.class) {
+            logger.warn(">>>>>>>>>>>>>>@FireAndForget only supports void methods, ignored on {}", methodKey);
+            return;
+        }
+        if (fireAndForget.batchMethod().isEmpty()) {
+            builder.fireAndForget(new FireAndForgetQueue(methodKey, fireAndForget.queueSize(),
+                    fireAndForget.workers()));
+            return;
+        }
+        Method bulkMethod = method.getParameterCount() != 1 ? null : findBulkMethod(restClientInterface,
+                fireAndForget.batchMethod());
+        if (null == bulkMethod) {
+            logger.warn(">>>>>>>>>>>>>>@FireAndForget requires one parameter and bulk method {} with one collection "
+                    + "parameter, send one by one on {}", fireAndForget.batchMethod(), methodKey);
+            builder.fireAndForget(new FireAndForgetQueue(methodKey, fireAndForget.queueSize(),
+                    fireAndForget.workers()));
+            return;
+        }
+        builder.fireAndForget(new FireAndForgetQueue(methodKey, fireAndForget.queueSize(), fireAndForget.workers(),
+                factory.generateMethodKey(restClientInterface, bulkMethod), bulkMethod.getParameterTypes()[0],
+                fireAndForget.maxBatchSize()));
+    }
+
+    /**
+     * 解析本地持久化后发送，只作用于返回 void 且没有文件参数的方法
+     *
+     * @param methodKey 方法key
+     * @param method    方法
+     * @param builder   执行计划
+     */
+    private void resolverOutbox(String methodKey, Method method, MethodPlan.Builder builder) {
+        Outbox outbox = method.getAnnotation(Outbox.class);
+        if (null == outbox) {
+            return;
+        }
+        boolean hasFile = Stream.of(method.getParameters())
+                .anyMatch(parameter -> parameter.isAnnotationPresent(RestRequestFile.class));
+        if (method.getReturnType() != void.class || hasFile) {
+            logger.warn(">>>>>>>>>>>>>>@Outbox only supports void methods without file parameters, ignored on {}",
+                    methodKey);
+            return;
+        }
+        builder.outbox(DurableOutbox.open(methodKey, outbox.segmentSize(), outbox.maxSegments(), outbox.sync(),
+                outbox.retryMillis(), outbox.maxRetryMillis(), outbox.maxAttempts(), outbox.maxAgeMillis()));
+    }
+
+    /**
+     * 查找只有一个参数(Collection、List、Set或数组)的批量方法
+     *
+     * @param restClientInterface rest客户端接口
+     * @param name                批量方法名
+     * @return {@link Method} 没有返回null
+     */
+    private Method findBulkMethod(Class<?> restClientInterface, String name) {
+        return Stream.of(restClientInterface.getMethods())
+                .filter(candidate -> candidate.getName().equals(name) && candidate.getParameterCount() == 1)
+                .filter(candidate -> candidate.getParameterTypes()[0].isArray()
+                        || Collection.class.isAssignableFrom(candidate.getParameterTypes()[0]))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 解析批量合并，批量方法在同一接口上，只有一个集合或数组参数
+     *
+     * @param factory             缓存工厂
+     * @param methodKey           方法key
+     * @param restClientInterface rest客户端接口
+     * @param method              方法
+     * @param builder             执行计划
+     */
+    private void resolverBatch(ClientCacheFactory factory,
+                               String methodKey,
+                               Class<?> restClientInterface,
+                               Method method,
+                               MethodPlan.Builder builder) {
+        Batch batch = method.getAnnotation(Batch.class);
+        if (null == batch) {
+            return;
+        }
+        AsyncType asyncType = ResponseTypeResolver.getInstance().resolverAsyncType(method.getGenericReturnType());
+        if (method.getParameterCount() != 1 || batch.keyProperty().isEmpty()
+                || (asyncType != AsyncType.NONE && asyncType != AsyncType.FUTURE)) {
+            logger.warn(">>>>>>>>>>>>>>@Batch requires one key parameter and a sync or CompletableFuture return, "
+                    + "ignored on {}", methodKey);
+            return;
+        }
+        Method bulkMethod = findBulkMethod(restClientInterface, batch.value());
+        if (null == bulkMethod) {
+            logger.warn(">>>>>>>>>>>>>>@Batch bulk method {} with one collection parameter not found, ignored on {}",
+                    batch.value(), methodKey);
+            return;
+        }
+        builder.batcher(new MicroBatcher(methodKey, factory.generateMethodKey(restClientInterface, bulkMethod),
+                bulkMethod.getParameterTypes()[0], batch.maxSize(), batch.windowMillis(), batch.keyProperty()));
+    }
+}
@@ -1,5 +1,6 @@
 package com.wzb.rest.resolver;
 
+import com.wzb.rest.cache.AsyncType;
 import com.wzb.rest.cache.ClientCacheFactory;
 
 import java.lang.reflect.GenericArrayType;
@@ -9,12 +10,18 @@ import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * 返回类型解析类
  */
 public final class ResponseTypeResolver {
 
+    private static final String MONO = "reactor.core.publisher.Mono";
+
+    private static final String FLUX = "reactor.core.publisher.Flux";
+
     private static ResponseTypeResolver resolver = new ResponseTypeResolver();
 
     /**
@@ -47,6 +54,8 @@ public final class ResponseTypeResolver {
         if (factory.hasResponseClass(methodKey)) {
             return factory.getResponseClass(methodKey);
         }
+        //异步返回类型按值类型解析
+        type = unwrapAsyncType(type);
         List<Class<?>> classes = new ArrayList<>();
         if (type instanceof ParameterizedType
                 || type instanceof TypeVariable
@@ -61,6 +70,51 @@ public final class ResponseTypeResolver {
         return classes;
     }
 
+    /**
+     * 解析异步返回类型
+     *
+     * @param type 类型
+     * @return {@link AsyncType}
+     */
+    public AsyncType resolverAsyncType(Type type) {
+        Type rawType = type instanceof ParameterizedType ? ((ParameterizedType) type).getRawType() : type;
+        if (CompletableFuture.class.equals(rawType) || CompletionStage.class.equals(rawType)) {
+            return AsyncType.FUTURE;
+        }
+        //按类名识别，reactor为可选依赖
+        if (rawType instanceof Class) {
+            String typeName = ((Class<?>) rawType).getName();
+            if (MONO.equals(typeName)) {
+                return AsyncType.MONO;
+            }
+            if (FLUX.equals(typeName)) {
+                return AsyncType.FLUX;
+            }
+        }
+        return AsyncType.NONE;
+    }
+
+    /**
+     * 异步返回类型取值类型，如 CompletableFuture&lt;T&gt;、Mono&lt;T&gt;、Flux&lt;T&gt; 取 T
+     *
+     * @param type 类型
+     * @return {@link Type}
+     */
+    public Type unwrapAsyncType(Type type) {
+        if (resolverAsyncType(type) == AsyncType.NONE) {
+            return type;
+        }
+        if (!(type instanceof ParameterizedType)) {
+            return Object.class;
+        }
+        Type valueType = ((ParameterizedType) type).getActualTypeArguments()[0];
+        if (valueType instanceof WildcardType) {
+            Type[] upperBounds = ((WildcardType) valueType).getUpperBounds();
+            return upperBounds.length == 0 ? Object.class : upperBounds[0];
+        }
+        return valueType;
+    }
+
     /**
      * 解析程序实际类型
      *
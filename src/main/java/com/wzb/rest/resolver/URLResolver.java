@@ -53,5 +53,4 @@ public final class URLResolver {
         factory.putIfAbsent(methodKey, methodUrl);
         return methodUrl.getHttpMethod();
     }
-
 }
@@ -0,0 +1,71 @@
+package com.wzb.rest.cache;
+
+import com.wzb.rest.log.RestClientLog;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 空响应、异常降级、日志方法绑定：静态方法、实例方法、参数顺序
+ */
+public class MethodInstanceTest {
+
+    @Test
+    public void staticHandlersAreNotBoundToInstance() throws NoSuchMethodException {
+        ClientCacheFactory.MethodInstance nullResponse = new ClientCacheFactory.MethodInstance(
+                method("staticNull", CharSequence.class), null, ClientCacheFactory.MethodInstance.NULL_RESPONSE);
+        assertEquals("null:empty", nullResponse.invokeNullResponse("empty"));
+        ClientCacheFactory.MethodInstance failBack = new ClientCacheFactory.MethodInstance(
+                method("staticFailBack", CharSequence.class, Throwable.class), new Handlers(),
+                ClientCacheFactory.MethodInstance.FAIL_BACK_RESPONSE);
+        assertEquals("fail:error:IllegalStateException",
+                failBack.invokeFailBackResponse(new IllegalStateException(), "error"));
+    }
+
+    @Test
+    public void instanceHandlersUseBoundInstance() throws NoSuchMethodException {
+        Handlers handlers = new Handlers();
+        ClientCacheFactory.MethodInstance logBack = new ClientCacheFactory.MethodInstance(
+                method("logBack", RestClientLog.class), handlers, ClientCacheFactory.MethodInstance.LOG_BACK);
+        logBack.invokeLogBack(RestClientLog.builder().url("/a").build());
+        assertEquals("/a", handlers.lastUrl);
+    }
+
+    @Test
+    public void unusedParametersGetDefaultValues() throws NoSuchMethodException {
+        ClientCacheFactory.MethodInstance failBack = new ClientCacheFactory.MethodInstance(
+                method("failBackWithoutThrowable", int.class, CharSequence.class), new Handlers(),
+                ClientCacheFactory.MethodInstance.FAIL_BACK_RESPONSE);
+        assertEquals("0:error", failBack.invokeFailBackResponse(new IllegalStateException(), "error"));
+        //签名不匹配的调用不抛出，返回 null
+        assertNull(failBack.invokeNullResponse("empty"));
+    }
+
+    private static Method method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return Handlers.class.getDeclaredMethod(name, parameterTypes);
+    }
+
+    static class Handlers {
+
+        private String lastUrl;
+
+        static String staticNull(CharSequence msg) {
+            return "null:" + msg;
+        }
+
+        static String staticFailBack(CharSequence msg, Throwable throwable) {
+            return "fail:" + msg + ":" + throwable.getClass().getSimpleName();
+        }
+
+        void logBack(RestClientLog log) {
+            lastUrl = log.getUrl();
+        }
+
+        String failBackWithoutThrowable(int code, CharSequence msg) {
+            return code + ":" + msg;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.wzb.rest.instance;
+
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.cache.ParameterSort;
+import com.wzb.rest.cache.ParameterType;
+import com.wzb.rest.resolver.DynamicParameterResolver;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 专用请求编码：配置的URL不写进生成的源码
+ */
+public class RequestEncoderFactoryTest {
+
+    @Test
+    public void baseUrlIsReadFromPlanAtRuntime() {
+        List<String> first = RequestEncoderFactory.definitionEncoder(plan("http://first-host:8080/user/{id}"));
+        List<String> second = RequestEncoderFactory.definitionEncoder(plan("http://second-host/user/{id}"));
+        assertEquals(first, second);
+        for (String method : first) {
+            assertFalse(method, method.contains("first-host"));
+        }
+    }
+
+    @Test
+    public void differentParametersGenerateDifferentSource() {
+        MethodPlan withParameter = MethodPlan.builder("k")
+                .httpMethod(HttpMethod.GET)
+                .dynamicParameters(DynamicParameterResolver.getInstance()
+                        .resolverDynamicParameter("http://first-host/user/{id}"))
+                .parameterSort(sort(0, "id", ParameterType.PATH, String.class))
+                .parameterSort(sort(1, "name", ParameterType.PARAM, String.class))
+                .build();
+        assertFalse(RequestEncoderFactory.definitionEncoder(withParameter)
+                .equals(RequestEncoderFactory.definitionEncoder(plan("http://first-host/user/{id}"))));
+    }
+
+    private static MethodPlan plan(String url) {
+        return MethodPlan.builder("k")
+                .httpMethod(HttpMethod.GET)
+                .dynamicParameters(DynamicParameterResolver.getInstance().resolverDynamicParameter(url))
+                .parameterSort(sort(0, "id", ParameterType.PATH, String.class))
+                .build();
+    }
+
+    private static ParameterSort sort(int index, String name, ParameterType type, Class<?> clazz) {
+        return ParameterSort.builder().index(index).name(name).type(type).clazz(clazz).build();
+    }
+}
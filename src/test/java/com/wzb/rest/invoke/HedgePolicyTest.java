@@ -0,0 +1,131 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.client.CancellationToken;
+import com.wzb.rest.exception.DeadlineExceededException;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 对冲请求：先成功的生效、中止另一个、等待时间不超过截止时间
+ */
+public class HedgePolicyTest {
+
+    @Test
+    public void backupWinsAndSlowPrimaryIsCancelled() throws Exception {
+        HedgePolicy policy = new HedgePolicy(50L);
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        String response = policy.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                primaryCancelled.set(awaitCancel(5000L));
+                throw new IllegalStateException("primary cancelled");
+            }
+            return "backup";
+        });
+        assertEquals("backup", response);
+        assertTrue(primaryCancelled.get());
+        assertEquals(2, attempts.get());
+        assertEquals(1L, policy.getHedgedCalls());
+    }
+
+    @Test
+    public void fastPrimaryRunsOnCallerThreadWithoutHedge() throws Exception {
+        HedgePolicy policy = new HedgePolicy(100L);
+        AtomicInteger attempts = new AtomicInteger();
+        Thread response = policy.execute(() -> {
+            attempts.incrementAndGet();
+            return Thread.currentThread();
+        });
+        assertSame(Thread.currentThread(), response);
+        //延迟时间过后也不再发对冲请求
+        TimeUnit.MILLISECONDS.sleep(200L);
+        assertEquals(1, attempts.get());
+        assertEquals(0L, policy.getHedgedCalls());
+    }
+
+    @Test
+    public void bothFailuresPropagateLastException() throws Exception {
+        HedgePolicy policy = new HedgePolicy(20L);
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            policy.execute(() -> {
+                if (attempts.incrementAndGet() == 1) {
+                    TimeUnit.MILLISECONDS.sleep(150L);
+                    throw new IllegalStateException("primary");
+                }
+                throw new IllegalArgumentException("backup");
+            });
+            fail("expected failure");
+        } catch (IllegalStateException e) {
+            assertEquals("primary", e.getMessage());
+        }
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void waitForBackupIsBoundedByDeadline() {
+        HedgePolicy policy = new HedgePolicy(20L);
+        AtomicInteger attempts = new AtomicInteger();
+        Callable<String> call = () -> {
+            if (attempts.incrementAndGet() == 1) {
+                TimeUnit.MILLISECONDS.sleep(60L);
+                throw new IllegalStateException("primary");
+            }
+            awaitCancel(5000L);
+            throw new IllegalStateException("backup cancelled");
+        };
+        long start = System.nanoTime();
+        try {
+            RestClientDeadline.call(200L, () -> {
+                try {
+                    return policy.execute(call);
+                } catch (Exception e) {
+                    throw e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException(e);
+                }
+            });
+            fail("expected deadline exceeded");
+        } catch (DeadlineExceededException e) {
+            long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue("cost " + cost + "ms", cost < 1000L);
+        }
+    }
+
+    @Test
+    public void callsDirectlyUntilEnoughSamples() throws Exception {
+        HedgePolicy policy = new HedgePolicy(0L);
+        assertEquals(-1L, policy.getDelayMillis());
+        for (int i = 0; i < 32; i++) {
+            assertSame(Thread.currentThread(), policy.execute(Thread::currentThread));
+        }
+        //每次调用只记录一个样本，32 次后按 p95 对冲
+        assertTrue(policy.getDelayMillis() >= 0L);
+        assertEquals(0L, policy.getHedgedCalls());
+    }
+
+    /**
+     * 等待当前调用被取消
+     *
+     * @param maxMillis 最长等待时间(毫秒)
+     * @return boolean 是否被取消
+     */
+    private static boolean awaitCancel(long maxMillis) throws InterruptedException {
+        CancellationToken token = CancellationToken.current();
+        long end = System.currentTimeMillis() + maxMillis;
+        while (System.currentTimeMillis() < end) {
+            if (null != token && token.isCancelled()) {
+                return true;
+            }
+            TimeUnit.MILLISECONDS.sleep(5L);
+        }
+        return false;
+    }
+}
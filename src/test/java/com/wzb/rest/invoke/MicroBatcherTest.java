@@ -0,0 +1,138 @@
+package com.wzb.rest.invoke;
+
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.exception.DeadlineExceededException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 批量合并：批量参数和结果拆分、空key、等待时间
+ */
+public class MicroBatcherTest {
+
+    private final MicroBatcher batcher = new MicroBatcher("single", "bulk", List.class, 10, 5L, "id");
+
+    @Test
+    public void bulkArgumentMatchesParameterType() {
+        List<Object> keys = Arrays.asList(1L, 2L, 2L);
+        assertArrayEquals(new Long[]{1L, 2L, 2L}, (Long[]) MicroBatcher.bulkArgument(Long[].class, keys));
+        Object set = MicroBatcher.bulkArgument(Set.class, keys);
+        assertTrue(set instanceof LinkedHashSet);
+        assertEquals(2, ((Set<?>) set).size());
+        assertEquals(keys, MicroBatcher.bulkArgument(List.class, keys));
+    }
+
+    @Test
+    public void mapResponseIsSplitByKeyString() {
+        Map<Object, Object> response = new HashMap<>();
+        response.put(1L, "one");
+        response.put(2L, "two");
+        Map<String, Object> resultMap = batcher.splitResponse(response);
+        assertEquals("one", resultMap.get("1"));
+        assertEquals("two", resultMap.get("2"));
+    }
+
+    @Test
+    public void listResponseIsSplitByGetterFieldOrMapKey() {
+        User first = new User(1L);
+        Account second = new Account(2L);
+        Map<String, Object> third = Collections.singletonMap("id", 3L);
+        List<Object> response = new ArrayList<>(Arrays.asList(first, second, third, null));
+        Map<String, Object> resultMap = batcher.splitResponse(response);
+        assertSame(first, resultMap.get("1"));
+        assertSame(second, resultMap.get("2"));
+        assertSame(third, resultMap.get("3"));
+        assertEquals(3, resultMap.size());
+    }
+
+    @Test
+    public void arrayResponseKeepsFirstElementForDuplicateKeys() {
+        User first = new User(1L);
+        User duplicate = new User(1L);
+        Map<String, Object> resultMap = batcher.splitResponse(new User[]{first, duplicate});
+        assertSame(first, resultMap.get("1"));
+        assertEquals(1, resultMap.size());
+    }
+
+    @Test
+    public void elementsWithoutKeyPropertyAreIgnored() {
+        Map<String, Object> resultMap = batcher.splitResponse(Arrays.asList("no-id", 42));
+        assertTrue(resultMap.isEmpty());
+        assertNull(batcher.splitResponse(null).get("1"));
+    }
+
+    @Test
+    public void nullKeyCompletesWithoutBatching() {
+        CompletableFuture<Object> future = batcher.submit(null);
+        assertTrue(future.isDone());
+        assertNull(future.join());
+    }
+
+    @Test
+    public void joinIsBoundedByPlanTimeout() {
+        MethodPlan plan = MethodPlan.builder("single").timeout(-1, -1, 50L).build();
+        assertBounded(() -> MicroBatcher.join(plan, new CompletableFuture<>()));
+    }
+
+    @Test
+    public void joinIsBoundedByDeadline() {
+        MethodPlan plan = MethodPlan.builder("single").build();
+        assertBounded(() -> RestClientDeadline.call(50L, () -> MicroBatcher.join(plan, new CompletableFuture<>())));
+    }
+
+    private static void assertBounded(Runnable join) {
+        long start = System.nanoTime();
+        try {
+            join.run();
+            fail("expected deadline exceeded");
+        } catch (DeadlineExceededException e) {
+            long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue("cost " + cost + "ms", cost < 1000L);
+        }
+    }
+
+    /**
+     * getter 读取key
+     */
+    public static class User {
+
+        private final Long id;
+
+        User(Long id) {
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+
+    /**
+     * public 字段读取key
+     */
+    public static class Account {
+
+        public final Long id;
+
+        Account(Long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.wzb.rest.invoke;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 追加日志：写入读取、崩溃恢复、不完整记录扫描、分段删除
+ */
+public class OutboxLogTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("outbox-log-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void peekReturnsRecordsInOrderUntilAcknowledged() throws IOException {
+        OutboxLog log = new OutboxLog(directory, SEGMENT_SIZE, 4, false);
+        assertTrue(log.append(bytes("a")));
+        assertTrue(log.append(bytes("b")));
+        assertEquals(2L, log.pending());
+
+        assertEquals("a", string(log.peek()));
+        //未确认时重复读到同一条
+        assertEquals("a", string(log.peek()));
+        log.ack(log.peek());
+        assertEquals("b", string(log.peek()));
+        log.ack(log.peek());
+
+        assertNull(log.peek());
+        assertFalse(log.hasMore());
+        assertEquals(0L, log.pending());
+    }
+
+    @Test
+    public void reopenResumesFromLastAcknowledgedRecord() throws IOException {
+        OutboxLog log = new OutboxLog(directory, SEGMENT_SIZE, 4, true);
+        for (int i = 0; i < 3; i++) {
+            log.append(bytes("record-" + i));
+        }
+        log.ack(log.peek());
+
+        //模拟进程重启
+        OutboxLog reopened = new OutboxLog(directory, SEGMENT_SIZE, 4, true);
+        assertEquals(2L, reopened.pending());
+        assertEquals("record-1", string(reopened.peek()));
+        reopened.ack(reopened.peek());
+        assertEquals("record-2", string(reopened.peek()));
+
+        //恢复后继续写在最后一条之后
+        assertTrue(reopened.append(bytes("record-3")));
+        reopened.ack(reopened.peek());
+        assertEquals("record-3", string(reopened.peek()));
+    }
+
+    @Test
+    public void tornRecordAtTailIsDiscardedAndOverwritten() throws IOException {
+        OutboxLog log = new OutboxLog(directory, SEGMENT_SIZE, 4, true);
+        log.append(bytes("first"));
+        log.append(bytes("second"));
+        //写了长度、内容未写完时崩溃：长度和校验和与内容不一致
+        int tail = 2 * 8 + "first".length() + "second".length();
+        try (RandomAccessFile file = new RandomAccessFile(segment(0).toFile(), "rw")) {
+            file.seek(tail);
+            file.writeInt(100);
+            file.writeInt(12345);
+            file.write(bytes("torn"));
+        }
+
+        OutboxLog reopened = new OutboxLog(directory, SEGMENT_SIZE, 4, true);
+        assertEquals(2L, reopened.pending());
+        assertTrue(reopened.append(bytes("third")));
+        assertEquals("first", string(reopened.peek()));
+        reopened.ack(reopened.peek());
+        assertEquals("second", string(reopened.peek()));
+        reopened.ack(reopened.peek());
+        assertEquals("third", string(reopened.peek()));
+        reopened.ack(reopened.peek());
+        assertNull(reopened.peek());
+    }
+
+    @Test
+    public void corruptedRecordSkipsRestOfOlderSegment() throws IOException {
+        OutboxLog log = new OutboxLog(directory, SEGMENT_SIZE, 4, true);
+        byte[] payload = new byte[300];
+        for (int i = 0; i < 5; i++) {
+            payload[0] = (byte) i;
+            assertTrue(log.append(payload.clone()));
+        }
+        assertTrue(Files.exists(segment(1)));
+        //第一段的第二条校验和损坏
+        try (RandomAccessFile file = new RandomAccessFile(segment(0).toFile(), "rw")) {
+            file.seek(8 + 300 + 4);
+            file.writeInt(0);
+        }
+
+        OutboxLog reopened = new OutboxLog(directory, SEGMENT_SIZE, 4, true);
+        //第一段只剩第一条，第二段完整
+        assertEquals(3L, reopened.pending());
+        int[] firstBytes = new int[3];
+        for (int i = 0; i < 3; i++) {
+            byte[] record = reopened.peek();
+            firstBytes[i] = record[0];
+            reopened.ack(record);
+        }
+        assertEquals(0, firstBytes[0]);
+        assertEquals(3, firstBytes[1]);
+        assertEquals(4, firstBytes[2]);
+        assertNull(reopened.peek());
+    }
+
+    @Test
+    public void consumedSegmentsAreDeletedAndFullLogRejects() throws IOException {
+        OutboxLog log = new OutboxLog(directory, SEGMENT_SIZE, 2, false);
+        byte[] payload = new byte[400];
+        int appended = 0;
+        while (log.append(payload)) {
+            appended++;
+        }
+        //两段，每段两条
+        assertEquals(4, appended);
+        assertTrue(Files.exists(segment(0)));
+        assertTrue(Files.exists(segment(1)));
+
+        for (int i = 0; i < 3; i++) {
+            log.ack(log.peek());
+        }
+        assertFalse(Files.exists(segment(0)));
+        //读到第二段后可以继续写
+        assertTrue(log.append(payload));
+        assertEquals(2L, log.pending());
+    }
+
+    @Test
+    public void oversizedRecordIsRejected() throws IOException {
+        OutboxLog log = new OutboxLog(directory, SEGMENT_SIZE, 2, false);
+        assertFalse(log.append(new byte[SEGMENT_SIZE]));
+        assertEquals(0L, log.pending());
+    }
+
+    private Path segment(long seq) {
+        return directory.resolve(String.format("%020d.log", seq));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return null == value ? null : new String(value, StandardCharsets.UTF_8);
+    }
+}
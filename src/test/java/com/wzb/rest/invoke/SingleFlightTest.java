@@ -0,0 +1,140 @@
+package com.wzb.rest.invoke;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 合并相同key的并发调用
+ */
+public class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    public void concurrentCallsWithSameKeyShareOneExecution() throws InterruptedException {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object shared = new Object();
+        int callers = 8;
+        Object[] results = new Object[callers];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            int index = i;
+            Thread thread = new Thread(() -> results[index] = singleFlight.execute("key", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return shared;
+            }));
+            threads.add(thread);
+            thread.start();
+            if (i == 0) {
+                started.await();
+            }
+        }
+        //等待其他调用进入等待
+        TimeUnit.MILLISECONDS.sleep(100L);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000L);
+        }
+        assertEquals(1, executions.get());
+        for (Object result : results) {
+            assertSame(shared, result);
+        }
+    }
+
+    @Test
+    public void differentKeysAndLaterCallsExecuteSeparately() {
+        AtomicInteger executions = new AtomicInteger();
+        singleFlight.execute("a", executions::incrementAndGet);
+        singleFlight.execute("b", executions::incrementAndGet);
+        singleFlight.execute("a", executions::incrementAndGet);
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    public void failureIsSharedAndKeyIsReleased() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        Runnable caller = () -> {
+            try {
+                singleFlight.execute("key", () -> {
+                    started.countDown();
+                    await(release);
+                    throw new IllegalStateException("down");
+                });
+            } catch (IllegalStateException e) {
+                failures.incrementAndGet();
+            }
+        };
+        Thread first = new Thread(caller);
+        first.start();
+        started.await();
+        Thread second = new Thread(caller);
+        second.start();
+        TimeUnit.MILLISECONDS.sleep(100L);
+        release.countDown();
+        first.join(5000L);
+        second.join(5000L);
+        assertEquals(2, failures.get());
+        assertEquals("ok", singleFlight.execute("key", () -> "ok"));
+    }
+
+    @Test
+    public void asyncWaitersGetIndependentCopies() throws Exception {
+        CompletableFuture<Object> source = new CompletableFuture<>();
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<Object> first = singleFlight.executeAsync("key", () -> {
+            executions.incrementAndGet();
+            return source;
+        });
+        CompletableFuture<Object> second = singleFlight.executeAsync("key", () -> {
+            executions.incrementAndGet();
+            return source;
+        });
+        //取消一个等待方不影响共用的调用
+        second.cancel(true);
+        source.complete("value");
+        assertEquals("value", first.get(1, TimeUnit.SECONDS));
+        assertTrue(second.isCancelled());
+        assertEquals(1, executions.get());
+
+        CompletableFuture<Object> failed = singleFlight.executeAsync("key", () -> {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("down"));
+            return future;
+        });
+        try {
+            failed.get(1, TimeUnit.SECONDS);
+            fail("expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertFalse(singleFlight.executeAsync("key", () -> CompletableFuture.completedFuture("again"))
+                .isCompletedExceptionally());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.wzb.rest.invoke;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 令牌桶：突发、暂停、排队、退回预约
+ */
+public class TokenBucketTest {
+
+    @Test
+    public void burstIsAvailableImmediatelyThenFailFast() {
+        TokenBucket bucket = new TokenBucket("burst", 1, 3, TokenBucket.MODE_FAIL_FAST, 1000L, 0);
+        assertTrue(bucket.acquire());
+        assertTrue(bucket.acquire());
+        assertTrue(bucket.acquire());
+        assertFalse(bucket.acquire());
+        assertFalse(bucket.tryAcquireNow());
+        assertEquals(2L, bucket.getRejectedCalls());
+    }
+
+    @Test
+    public void blockModeWaitsForNextToken() {
+        TokenBucket bucket = new TokenBucket("block", 10, 1, TokenBucket.MODE_BLOCK, 1000L, 0);
+        assertTrue(bucket.acquire());
+        long start = System.nanoTime();
+        assertTrue(bucket.acquire());
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("waited " + waited + "ms", waited >= 80L);
+    }
+
+    @Test
+    public void pauseBlocksTokensUntilItEnds() {
+        TokenBucket bucket = new TokenBucket("pause", 1000, 10, TokenBucket.MODE_BLOCK, 1000L, 0);
+        bucket.pause(200L);
+        assertEquals(1L, bucket.getPauses());
+        //暂停期间不发放，也不能突发
+        assertFalse(bucket.tryAcquireNow());
+        long start = System.nanoTime();
+        assertTrue(bucket.acquire());
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("waited " + waited + "ms", waited >= 150L);
+        //暂停结束后按速率恢复，积攒的令牌已清空
+        assertFalse(bucket.tryAcquireNow());
+    }
+
+    @Test
+    public void pauseLongerThanMaxWaitRejects() {
+        TokenBucket bucket = new TokenBucket("pause-reject", 1000, 1, TokenBucket.MODE_BLOCK, 50L, 0);
+        bucket.pause(500L);
+        long start = System.nanoTime();
+        assertFalse(bucket.acquire());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 400L);
+        assertEquals(1L, bucket.getRejectedCalls());
+    }
+
+    @Test
+    public void queueModeAdmitsMaxWaitCallsAndRejectsOthers() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket("queue", 5, 1, TokenBucket.MODE_QUEUE, 2000L, 2);
+        assertTrue(bucket.acquire());
+        int callers = 5;
+        CountDownLatch ready = new CountDownLatch(callers);
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            Thread thread = new Thread(() -> {
+                ready.countDown();
+                if (bucket.acquire()) {
+                    admitted.incrementAndGet();
+                } else {
+                    rejected.incrementAndGet();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        ready.await();
+        for (Thread thread : threads) {
+            thread.join(5000L);
+        }
+        assertEquals(2, admitted.get());
+        assertEquals(3, rejected.get());
+        assertEquals(0, bucket.getWaitingCalls());
+    }
+
+    @Test
+    public void interruptedWaiterReturnsItsReservation() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket("rollback", 10, 1, TokenBucket.MODE_BLOCK, 1000L, 0);
+        long start = System.nanoTime();
+        assertTrue(bucket.acquire());
+        Thread waiter = new Thread(() -> assertFalse(bucket.acquire()));
+        waiter.start();
+        TimeUnit.MILLISECONDS.sleep(20L);
+        waiter.interrupt();
+        waiter.join();
+        //退回后下一个令牌在 100ms 左右，没有退回时要等到 200ms
+        assertTrue(bucket.acquire());
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("waited " + waited + "ms", waited < 180L);
+        assertEquals(1L, bucket.getRejectedCalls());
+    }
+
+    @Test
+    public void acquireRespectsDeadline() {
+        TokenBucket bucket = new TokenBucket("deadline", 1, 1, TokenBucket.MODE_BLOCK, 5000L, 0);
+        assertTrue(bucket.acquire());
+        long start = System.nanoTime();
+        assertFalse(RestClientDeadline.call(100L, bucket::acquire));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000L);
+    }
+
+    @Test
+    public void retryAfterAcceptsSecondsAndHttpDate() {
+        HttpHeaders headers = new HttpHeaders();
+        assertEquals(0L, TokenBucket.retryAfterMillis(headers));
+        headers.set(HttpHeaders.RETRY_AFTER, "3");
+        assertEquals(3000L, TokenBucket.retryAfterMillis(headers));
+        headers.set(HttpHeaders.RETRY_AFTER, DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(10L)));
+        long millis = TokenBucket.retryAfterMillis(headers);
+        assertTrue(millis > 8000L && millis <= 10000L);
+        headers.set(HttpHeaders.RETRY_AFTER, "soon");
+        assertEquals(0L, TokenBucket.retryAfterMillis(headers));
+    }
+}
@@ -0,0 +1,131 @@
+package com.wzb.rest.log;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 异步日志分发：顺序、满时丢弃、采样、等待
+ */
+public class LogBackDispatcherTest {
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(8, new LogBackDispatcher(5, LogBackDispatcher.OVERFLOW_DROP, 1, log -> {
+        }).getCapacity());
+        assertEquals(8, new LogBackDispatcher(8, LogBackDispatcher.OVERFLOW_DROP, 1, log -> {
+        }).getCapacity());
+        assertEquals(2, new LogBackDispatcher(0, LogBackDispatcher.OVERFLOW_DROP, 1, log -> {
+        }).getCapacity());
+    }
+
+    @Test
+    public void logsAreDispatchedInPublishOrder() throws InterruptedException {
+        List<String> urls = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(100);
+        LogBackDispatcher dispatcher = new LogBackDispatcher(16, LogBackDispatcher.OVERFLOW_BLOCK, 1, log -> {
+            urls.add(log.getUrl());
+            done.countDown();
+        });
+        for (int i = 0; i < 100; i++) {
+            dispatcher.publish(log("/" + i, null));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals("/" + i, urls.get(i));
+        }
+        assertEquals(0L, dispatcher.getDroppedLogs());
+    }
+
+    @Test
+    public void fullBufferDropsWhenConsumerIsBlocked() throws InterruptedException {
+        CountDownLatch consuming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        LogBackDispatcher dispatcher = new LogBackDispatcher(4, LogBackDispatcher.OVERFLOW_DROP, 1, log -> {
+            consuming.countDown();
+            await(release);
+            done.countDown();
+        });
+        //第一条被消费线程取出后阻塞
+        dispatcher.publish(log("/0", null));
+        assertTrue(consuming.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 6; i++) {
+            dispatcher.publish(log("/" + i, null));
+        }
+        assertEquals(4, dispatcher.size());
+        assertEquals(2L, dispatcher.getDroppedLogs());
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void sampleModeKeepsErrorLogs() throws InterruptedException {
+        CountDownLatch consuming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<RestClientLog> logs = new CopyOnWriteArrayList<>();
+        LogBackDispatcher dispatcher = new LogBackDispatcher(8, LogBackDispatcher.OVERFLOW_SAMPLE, 2, log -> {
+            consuming.countDown();
+            await(release);
+            logs.add(log);
+        });
+        dispatcher.publish(log("/0", null));
+        assertTrue(consuming.await(5, TimeUnit.SECONDS));
+        //超过一半后每 2 条保留 1 条
+        for (int i = 1; i <= 9; i++) {
+            dispatcher.publish(log("/" + i, null));
+        }
+        assertEquals(2L, dispatcher.getDroppedLogs());
+        //有异常的日志不采样
+        dispatcher.publish(log("/error", new IllegalStateException()));
+        assertEquals(2L, dispatcher.getDroppedLogs());
+        assertEquals(8, dispatcher.size());
+        release.countDown();
+        long end = System.currentTimeMillis() + 5000L;
+        while (logs.size() < 9 && System.currentTimeMillis() < end) {
+            TimeUnit.MILLISECONDS.sleep(5L);
+        }
+        assertEquals(9, logs.size());
+        assertEquals("/error", logs.get(8).getUrl());
+    }
+
+    @Test
+    public void blockModeWaitsForFreeSlot() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(50);
+        LogBackDispatcher dispatcher = new LogBackDispatcher(2, LogBackDispatcher.OVERFLOW_BLOCK, 1, log -> {
+            sleep(1L);
+            done.countDown();
+        });
+        for (int i = 0; i < 50; i++) {
+            dispatcher.publish(log("/" + i, null));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0L, dispatcher.getDroppedLogs());
+    }
+
+    private static RestClientLog log(String url, Throwable throwable) {
+        return RestClientLog.builder().url(url).throwable(throwable).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
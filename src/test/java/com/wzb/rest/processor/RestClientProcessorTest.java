@@ -0,0 +1,109 @@
+package com.wzb.rest.processor;
+
+import com.wzb.rest.cache.ClientCacheFactory;
+import com.wzb.rest.cache.MethodPlan;
+import com.wzb.rest.resolver.MethodResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 编译期生成实现：方法执行计划与运行时解析结果相同
+ */
+public class RestClientProcessorTest {
+
+    private static final String PREFIX_URL = "http://localhost:8080/";
+
+    private static final String FIXTURE = "package fixture;\n"
+            + "import org.springframework.web.bind.annotation.*;\n"
+            + "import java.util.List;\n"
+            + "import java.util.concurrent.CompletableFuture;\n"
+            + "@com.wzb.rest.annation.RestClient(\"users\")\n"
+            + "public interface UserClient {\n"
+            + "    @GetMapping(\"/{id}\")\n"
+            + "    String get(@PathVariable(\"id\") String id);\n"
+            + "    @GetMapping(\"/find\")\n"
+            + "    List<String> find(@RequestParam(\"name\") String name);\n"
+            + "    @GetMapping(\"/find\")\n"
+            + "    List<String> find(@RequestParam(\"age\") int age);\n"
+            + "    @PostMapping(\"/save\")\n"
+            + "    CompletableFuture<Integer> save(@RequestBody List<String> names);\n"
+            + "    @com.wzb.rest.annation.Hedge(delayMillis = 50)\n"
+            + "    @GetMapping(\"/count\")\n"
+            + "    int count(@RequestHeader(\"tenant\") String tenant, int... ids);\n"
+            + "}\n";
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rest-client-processor");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void generatedPlansAreTheRuntimePlans() throws Exception {
+        Path source = directory.resolve("fixture/UserClient.java");
+        Files.createDirectories(source.getParent());
+        Files.write(source, FIXTURE.getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors, "-proc:only", "-processor", RestClientProcessor.class.getName(),
+                "-classpath", System.getProperty("java.class.path"), "-s", directory.toString(),
+                "-d", directory.toString(), source.toString());
+        assertEquals(errors.toString(), 0, result);
+        Path generated = directory.resolve("fixture/UserClient$RestClientImpl.java");
+        result = compiler.run(null, null, errors, "-classpath", System.getProperty("java.class.path"),
+                "-d", directory.toString(), source.toString(), generated.toString());
+        assertEquals(errors.toString(), 0, result);
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()},
+                getClass().getClassLoader())) {
+            Class<?> restClientInterface = classLoader.loadClass("fixture.UserClient");
+            Object instance = classLoader.loadClass("fixture.UserClient$RestClientImpl")
+                    .getConstructor(String.class).newInstance(PREFIX_URL);
+            Field field = instance.getClass().getDeclaredField("plans");
+            field.setAccessible(true);
+            MethodPlan[] plans = (MethodPlan[]) field.get(instance);
+            Map<Method, MethodPlan> planMap = MethodResolver.getInstance()
+                    .resolverMethod(restClientInterface, PREFIX_URL);
+            assertEquals(planMap.size(), plans.length);
+            //生成类按方法key排序
+            ClientCacheFactory factory = ClientCacheFactory.getInstance();
+            Method[] methods = restClientInterface.getMethods();
+            Arrays.sort(methods,
+                    Comparator.comparing(method -> factory.generateMethodKey(restClientInterface, method)));
+            for (int i = 0; i < methods.length; i++) {
+                assertNotNull(plans[i]);
+                assertSame(methods[i].toString(), planMap.get(methods[i]), plans[i]);
+            }
+        }
+    }
+}